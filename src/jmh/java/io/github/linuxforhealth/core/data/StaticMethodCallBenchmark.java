@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.linuxforhealth.api.EvaluationResult;
+import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.hl7.data.Hl7RelatedGeneralUtils;
+
+/**
+ * Evaluation of the GeneralUtils calls of the templates, bound to the method with
+ * {@link StaticMethodCall} and interpreted by JEXL.
+ *
+ * Run with ./gradlew jmh -Pjmh.include=StaticMethodCallBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StaticMethodCallBenchmark {
+
+    @Param({ "GeneralUtils.noWhiteSpace(join)", "GeneralUtils.concatenateWithChar(data, '  \\n')",
+            "GeneralUtils.getEncounterStatus(vars1,vars2,vars3)",
+            "GeneralUtils.dateTimeWithZoneId(dateTimeIn,ZONEID)" })
+    public String expression;
+
+    private JexlEngineUtil engine;
+    private JexlExpression bound;
+    private JexlExpression interpreted;
+    private Map<String, EvaluationResult> context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        engine = new JexlEngineUtil("GeneralUtils", Hl7RelatedGeneralUtils.class);
+        bound = engine.compile(expression);
+        if (!(bound instanceof StaticMethodCall)) {
+            throw new IllegalStateException("Expression is not bound: " + expression);
+        }
+        interpreted = new JexlBuilder().silent(false).debug(true).strict(true).create()
+                .createExpression(expression);
+
+        context = new HashMap<>();
+        context.put("join", EvaluationResultFactory.getEvaluationResult("urn id 123"));
+        context.put("data", EvaluationResultFactory.getEvaluationResult("first line"));
+        context.put("vars1", EvaluationResultFactory.getEvaluationResult("A"));
+        context.put("vars2", EvaluationResultFactory.getEvaluationResult("20210407191342"));
+        context.put("vars3", EvaluationResultFactory.getEvaluationResult("20210407191342"));
+        context.put("dateTimeIn", EvaluationResultFactory.getEvaluationResult("20210407191342"));
+        context.put("ZONEID", EvaluationResultFactory.getEvaluationResult("+08:00"));
+    }
+
+    @Benchmark
+    public Object boundCall() {
+        return engine.evaluate(bound, context);
+    }
+
+    @Benchmark
+    public Object interpretedCall() {
+        return engine.evaluate(interpreted, context);
+    }
+
+}
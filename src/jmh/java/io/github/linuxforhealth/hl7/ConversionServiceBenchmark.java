@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of HL7ToFHIRConversionService in messages per second for several worker pool sizes.
+ * Every invocation submits the sample message of each template supported by the default
+ * configuration and waits for all of them. Scaling with the pool size is only visible on a host with
+ * at least as many processors as workers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConversionServiceBenchmark {
+
+    private static final String[] MESSAGE_TYPES = { "ADT_A01", "ADT_A03", "ADT_A04", "ADT_A08", "ADT_A28",
+            "ADT_A31", "ADT_A34", "ADT_A40", "DFT_P03", "MDM_T02", "MDM_T06", "OML_O21", "ORM_O01", "OMP_O09",
+            "ORU_R01", "PPR_PC1", "RDE_O11", "RDE_O25", "VXU_V04" };
+
+    @Param({ "1", "2", "4" })
+    public int workers;
+
+    private List<String> hl7messages;
+    private HL7ToFHIRConversionService service;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        hl7messages = new ArrayList<>();
+        for (String messageType : MESSAGE_TYPES) {
+            try (InputStream in = ConversionServiceBenchmark.class
+                    .getResourceAsStream("/messages/" + messageType + ".hl7")) {
+                hl7messages.add(IOUtils.toString(in, StandardCharsets.UTF_8));
+            }
+        }
+        service = new HL7ToFHIRConversionService(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(19)
+    public List<String> convert() {
+        List<CompletableFuture<String>> futures = new ArrayList<>(hl7messages.size());
+        for (String hl7message : hl7messages) {
+            futures.add(service.submit(hl7message, ConverterOptions.SIMPLE_OPTIONS));
+        }
+        List<String> bundles = new ArrayList<>(futures.size());
+        for (CompletableFuture<String> future : futures) {
+            bundles.add(future.join());
+        }
+        return bundles;
+    }
+
+}
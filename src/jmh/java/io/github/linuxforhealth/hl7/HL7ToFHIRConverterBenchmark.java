@@ -0,0 +1,111 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+
+/**
+ * End to end conversion of one sample message per message template in src/main/resources/hl7/message.
+ * The sample messages are the ones in src/test/resources/messages. Every template is measured with
+ * validation on and off and with pretty print on and off.
+ *
+ * Run with ./gradlew jmh, the task adds the GC profiler so allocation per operation is reported next
+ * to the time per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HL7ToFHIRConverterBenchmark {
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+
+    @Param({ "ADT_A01", "ADT_A02", "ADT_A03", "ADT_A04", "ADT_A08", "ADT_A28", "ADT_A31", "ADT_A34", "ADT_A40",
+            "DFT_P03", "MDM_T02", "MDM_T04", "MDM_T06", "MDM_T08", "MDM_T10", "OML_O21", "OMP_O09", "ORM_O01",
+            "ORU_R01", "PPR_PC1", "PPR_PC2", "PPR_PC3", "RDE_O11", "RDE_O25", "VXU_V04" })
+    public String messageType;
+
+    @Param({ "false", "true" })
+    public boolean validate;
+
+    @Param({ "false", "true" })
+    public boolean prettyPrint;
+
+    private File configHome;
+    private String hl7message;
+    private ConverterOptions options;
+    private HL7ToFHIRConverter converter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // The default configuration does not support every template
+        configHome = Files.createTempDirectory("hl7-benchmark").toFile();
+        Properties prop = new Properties();
+        prop.put("supported.hl7.messages", messageType);
+        prop.put("default.zoneid", "+08:00");
+        try (OutputStream out = new FileOutputStream(new File(configHome, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, configHome.getAbsolutePath());
+        ConverterRegistry.reset();
+
+        try (InputStream in = HL7ToFHIRConverterBenchmark.class
+                .getResourceAsStream("/messages/" + messageType + ".hl7")) {
+            hl7message = IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+        ConverterOptions.Builder builder = new ConverterOptions.Builder();
+        if (validate) {
+            builder.withValidateResource();
+        }
+        if (prettyPrint) {
+            builder.withPrettyPrint();
+        }
+        options = builder.build();
+        converter = new HL7ToFHIRConverter();
+        // Fail the trial up front instead of in the measurement loop
+        converter.convert(hl7message, options);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.clearProperty(CONF_PROP_HOME);
+        ConverterRegistry.reset();
+        FileUtils.deleteDirectory(configHome);
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(hl7message, options);
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of an ORU_R01 with a growing number of OBX segments. The cost of evaluating the
+ * context values of every repetition shows in the allocation per operation reported by the GC
+ * profiler, gc.alloc.rate.norm.
+ *
+ * Run with ./gradlew jmh -Pjmh.include=LargeMessageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeMessageBenchmark {
+
+    @Param({ "10", "200", "2000" })
+    public int obxCount;
+
+    private String hl7message;
+    private ConverterOptions options;
+    private HL7ToFHIRConverter converter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder message = new StringBuilder()
+                .append("MSH|^~\\&|SE050|050|PACS|050|20210407191342||ORU^R01|MSGID000001|T|2.6\r")
+                .append("PID|1||123^^^MRN^MR||DOE^JANE||19800202|F\r")
+                .append("PV1|1|O|Location||||1234^Attending^Doctor\r")
+                .append("ORC|RE||123|\r")
+                .append("OBR|1||123|456^Lipid Panel^LN||||||||||||||||||202108160605|||F\r");
+        for (int i = 1; i <= obxCount; i++) {
+            message.append("OBX|").append(i)
+                    .append("|NM|1894^Non-HDL Cholesterol, calc^LN||180|mg/dL|<130 optimal|H|||F|||202108160605\r");
+        }
+        hl7message = message.toString();
+        options = new ConverterOptions.Builder().build();
+        converter = new HL7ToFHIRConverter();
+        // Fail the trial up front instead of in the measurement loop
+        converter.convert(hl7message, options);
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(hl7message, options);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.linuxforhealth.fhir.FHIRContext;
+import io.github.linuxforhealth.hl7.message.HL7MessageEngine;
+
+/**
+ * Compares converting a message with the engine cached by HL7ToFHIRConverter for the options against
+ * creating a new FHIRContext and HL7MessageEngine for every message, which is what the converter did
+ * before the engines were cached. Both convert the message and encode the bundle to a string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageEngineBenchmark {
+
+    // Message types supported by the default configuration
+    @Param({ "ADT_A01", "ORU_R01" })
+    public String messageType;
+
+    private String hl7message;
+    private ConverterOptions options;
+    private HL7ToFHIRConverter converter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        try (InputStream in = MessageEngineBenchmark.class
+                .getResourceAsStream("/messages/" + messageType + ".hl7")) {
+            hl7message = IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+        options = ConverterOptions.SIMPLE_OPTIONS;
+        converter = new HL7ToFHIRConverter();
+        // Fail the trial up front instead of in the measurement loop
+        converter.convert(hl7message, options);
+    }
+
+    @Benchmark
+    public String cachedEngine() {
+        return converter.convert(hl7message, options);
+    }
+
+    @Benchmark
+    public String enginePerMessage() {
+        FHIRContext context = new FHIRContext(options.isPrettyPrint(), options.isValidateResource(),
+                options.getProperties(), options.getZoneIdText());
+        HL7MessageEngine engine = new HL7MessageEngine(context, options.getBundleType());
+        Bundle bundle = converter.convertToBundle(hl7message, options, engine);
+        return engine.getFHIRContext().encodeResourceToString(bundle);
+    }
+
+}
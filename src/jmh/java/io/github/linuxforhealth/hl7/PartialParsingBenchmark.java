@@ -0,0 +1,105 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+
+/**
+ * Conversion of a verbose ADT_A01 with segments the template does not read: GT1, ACC, UB1 and Z
+ * segments. With parse.referenced.segments.only these segments are not parsed field by field; the
+ * GC profiler shows the difference in gc.alloc.rate.norm.
+ *
+ * Run with ./gradlew jmh -Pjmh.include=PartialParsingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartialParsingBenchmark {
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+
+    @Param({ "false", "true" })
+    public boolean referencedSegmentsOnly;
+
+    @Param({ "5", "50" })
+    public int unreferencedSegmentCount;
+
+    private File configHome;
+    private String hl7message;
+    private HL7ToFHIRConverter converter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        configHome = Files.createTempDirectory("hl7-benchmark").toFile();
+        Properties prop = new Properties();
+        prop.put("supported.hl7.messages", "ADT_A01");
+        prop.put("default.zoneid", "+08:00");
+        prop.put("parse.referenced.segments.only", String.valueOf(referencedSegmentsOnly));
+        try (OutputStream out = new FileOutputStream(new File(configHome, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, configHome.getAbsolutePath());
+        ConverterRegistry.reset();
+
+        StringBuilder message = new StringBuilder()
+                .append("MSH|^~\\&|SE050|050|PACS|050|20210407191342||ADT^A01|MSGID000001|T|2.6\r")
+                .append("EVN|A01|20210407191342\r")
+                .append("PID|1||123^^^MRN^MR||DOE^JANE||19800202|F|||1 Main St^^Oxford^^Ox1 4DP\r")
+                .append("PV1|1|I|6N^1234^A^GENHOS||||0100^ANDERSON^CARL|0148^ADDISON^JAMES||SUR\r");
+        // In the order of the ADT_A01 structure, so HAPI places them as usual
+        for (int i = 1; i <= unreferencedSegmentCount; i++) {
+            message.append("GT1|").append(i)
+                    .append("||DOE^JOHN^^^^^L||1 Main St^^Oxford^^Ox1 4DP|555-1234|555-5678|19700101|M|P/F|SLF\r");
+        }
+        message.append("ACC|20210401|01^Auto^HL70050|Oxford|||Y|||\r")
+                .append("UB1|1||||||||||||||||||||||||\r");
+        for (int i = 1; i <= unreferencedSegmentCount; i++) {
+            message.append("ZPD|").append(i).append("|custom^data^^^^|more|fields|to|skip\r");
+        }
+        hl7message = message.toString();
+        converter = new HL7ToFHIRConverter();
+        // Fail the trial up front instead of in the measurement loop
+        converter.convert(hl7message);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.clearProperty(CONF_PROP_HOME);
+        ConverterRegistry.reset();
+        FileUtils.deleteDirectory(configHome);
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(hl7message);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+
+/**
+ * Startup cost of the converter: creates a converter for every message template in
+ * src/main/resources/hl7/message, with a new registry. The first iterations of each fork are the
+ * cold start, the later ones the reload after {@link ConverterRegistry#reset()}. Eager and parallel
+ * loading load all templates with the resource models they use, lazy loading none of them.
+ *
+ * The GC profiler added by ./gradlew jmh reports the bytes allocated to load the templates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(3)
+public class TemplateLoadingBenchmark {
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+    private static final String ALL_TEMPLATES = "ADT_A01, ADT_A02, ADT_A03, ADT_A04, ADT_A08, ADT_A28, ADT_A31, "
+            + "ADT_A34, ADT_A40, DFT_P03, MDM_T02, MDM_T04, MDM_T06, MDM_T08, MDM_T10, OML_O21, OMP_O09, ORM_O01, "
+            + "ORU_R01, PPR_PC1, PPR_PC2, PPR_PC3, RDE_O11, RDE_O25, VXU_V04";
+
+    @Param({ "eager", "parallel", "lazy" })
+    public String templateLoading;
+
+    private File configHome;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        configHome = Files.createTempDirectory("hl7-benchmark").toFile();
+        Properties prop = new Properties();
+        prop.put("supported.hl7.messages", ALL_TEMPLATES);
+        prop.put("default.zoneid", "+08:00");
+        prop.put("template.loading", templateLoading);
+        try (OutputStream out = new FileOutputStream(new File(configHome, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, configHome.getAbsolutePath());
+    }
+
+    @Setup(Level.Iteration)
+    public void newRegistry() {
+        ConverterRegistry.reset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.clearProperty(CONF_PROP_HOME);
+        ConverterRegistry.reset();
+        FileUtils.deleteDirectory(configHome);
+    }
+
+    @Benchmark
+    public HL7ToFHIRConverter createConverter() {
+        return new HL7ToFHIRConverter();
+    }
+
+}
@@ -14,6 +14,10 @@ import java.util.Map;
  * Each expression defines how to extract the value for a field. The execute method defines the
  * extraction process.
  * 
+ * Expressions are created once when the templates are loaded and are shared by every conversion
+ * that uses the template, including conversions running concurrently on different threads.
+ * Implementations must therefore not keep any per-evaluation state in instance fields: all the
+ * state of an evaluation lives in the arguments and local variables of {@link #evaluate}.
  *
  * @author pbhallam
  */
@@ -42,7 +46,8 @@ public interface Expression {
   List<Specification> getspecs();
 
   /**
-   * Evaluates the expression and returns the GenericResult Object
+   * Evaluates the expression and returns the GenericResult Object. Must be safe to call from
+   * several threads at the same time.
    * 
    * @param primaryDataSource {@link InputDataExtractor} input data
    * @param contextValues - Map of values for variables
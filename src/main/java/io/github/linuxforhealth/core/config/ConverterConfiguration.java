@@ -7,10 +7,9 @@ package io.github.linuxforhealth.core.config;
 
 import java.time.DateTimeException;
 import java.time.ZoneId;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.FileBasedConfiguration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -21,10 +20,19 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.ClasspathLocationStrategy;
 import org.apache.commons.configuration2.io.CombinedLocationStrategy;
 import org.apache.commons.configuration2.io.FileLocationStrategy;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Settings read from config.properties. The configuration is part of the {@link ConverterRegistry}
+ * snapshot and is not modified after it is created.
+ *
+ */
 public class ConverterConfiguration {
   private static final Logger LOGGER = LoggerFactory.getLogger(ConverterConfiguration.class);
 
@@ -34,8 +42,11 @@ public class ConverterConfiguration {
   private static final String CONFIG_PROPERTIES = "config.properties";
   private static final String ADDITIONAL_CONCEPT_MAPS_FILE = "additional.conceptmap.file";
   private static final String ADDITIONAL_RESOURCES_LOCATION = "additional.resources.location";
-
-  private static ConverterConfiguration configuration;
+  private static final String TERMINOLOGY_CACHE_SIZE = "terminology.cache.size";
+  private static final String TERMINOLOGY_CACHE_EXPIRE_SECONDS = "terminology.cache.expire.seconds";
+  private static final long DEFAULT_TERMINOLOGY_CACHE_SIZE = 10000;
+  private static final String TEMPLATE_LOADING = "template.loading";
+  private static final String PARSE_REFERENCED_SEGMENTS_ONLY = "parse.referenced.segments.only";
 
   private String resourceFolder;
   private boolean resourcefromClassPath;
@@ -43,8 +54,24 @@ public class ConverterConfiguration {
   private ZoneId zoneId;
   private String additionalConceptmapFile;
   private String additionalResourcesLocation;
+  private long terminologyCacheSize;
+  private long terminologyCacheExpireSeconds;
+  private TemplateLoading templateLoading;
+  private boolean parseReferencedSegmentsOnly;
+
+  /**
+   * How the converter loads the message templates of supported.hl7.messages.
+   */
+  public enum TemplateLoading {
+    /** All templates when the converter is created, one after the other */
+    EAGER,
+    /** All templates when the converter is created, on all cores */
+    PARALLEL,
+    /** Each template on the first conversion of a message of its type */
+    LAZY
+  }
 
-  private ConverterConfiguration() {
+  ConverterConfiguration() {
     try {
 
       List<FileLocationStrategy> subs = Arrays.asList(new ConfigDirectoryLocationStrategy(),
@@ -74,9 +101,9 @@ public class ConverterConfiguration {
       List<Object> values = config.getList(SUPPORTED_HL7_MESSAGES, null);
       if (values != null) {
         supportedMessageTemplates = values.stream().filter(v -> v != null && StringUtils.isNotBlank(v.toString()))
-        .map(v -> v.toString()).collect(Collectors.toList());
+        .map(v -> v.toString()).collect(ImmutableList.toImmutableList());
       } else {
-        supportedMessageTemplates = new ArrayList<>(Arrays.asList("*"));
+        supportedMessageTemplates = ImmutableList.of("*");
       }
 
 
@@ -92,6 +119,17 @@ public class ConverterConfiguration {
       // get additional resources location
       additionalResourcesLocation = config.getString(ADDITIONAL_RESOURCES_LOCATION, null);
 
+      // get terminology cache size and expiry, a blank or invalid value keeps the default
+      terminologyCacheSize = NumberUtils.toLong(config.getString(TERMINOLOGY_CACHE_SIZE, null),
+          DEFAULT_TERMINOLOGY_CACHE_SIZE);
+      terminologyCacheExpireSeconds = NumberUtils.toLong(config.getString(TERMINOLOGY_CACHE_EXPIRE_SECONDS, null), 0);
+
+      // get template loading, loading all templates one after the other if not found
+      templateLoading = getTemplateLoading(config.getString(TEMPLATE_LOADING, null));
+
+      // get partial parsing, parsing all segments if not found
+      parseReferencedSegmentsOnly = BooleanUtils.toBoolean(config.getString(PARSE_REFERENCED_SEGMENTS_ONLY, null));
+
     } catch (ConfigurationException e) {
       throw new IllegalStateException("Cannot read configuration for resource location", e);
     }
@@ -107,15 +145,28 @@ public class ConverterConfiguration {
     }
   }
 
-  public static ConverterConfiguration getInstance() {
-    if (configuration == null) {
-      configuration = new ConverterConfiguration();
+  private static TemplateLoading getTemplateLoading(String loadingText) {
+    if (StringUtils.isBlank(loadingText)) {
+      return TemplateLoading.EAGER;
+    }
+    try {
+      return TemplateLoading.valueOf(loadingText.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Unknown template loading {}, loading templates eagerly", loadingText);
+      return TemplateLoading.EAGER;
     }
-    return configuration;
   }
 
+  public static ConverterConfiguration getInstance() {
+    return ConverterRegistry.getInstance().getConfiguration();
+  }
+
+  /**
+   * Reloads the configuration and everything that is loaded from it, see
+   * {@link ConverterRegistry#reset()}.
+   */
   public static void reset() {
-    configuration = null;
+    ConverterRegistry.reset();
   }
 
   public String getResourceFolder() {
@@ -146,4 +197,33 @@ public class ConverterConfiguration {
     return additionalResourcesLocation;
   }
 
+  /**
+   * @return maximum number of codes in the terminology cache, 0 or less switches the cache off
+   */
+  public long getTerminologyCacheSize() {
+    return terminologyCacheSize;
+  }
+
+  /**
+   * @return seconds after which a cached code is looked up again, 0 or less to never expire
+   */
+  public long getTerminologyCacheExpireSeconds() {
+    return terminologyCacheExpireSeconds;
+  }
+
+  /**
+   * @return how the converter loads the message templates, {@link TemplateLoading#EAGER} if not
+   *         configured
+   */
+  public TemplateLoading getTemplateLoading() {
+    return templateLoading;
+  }
+
+  /**
+   * @return true if only the fields of the segments the message template reads are parsed
+   */
+  public boolean isParseReferencedSegmentsOnly() {
+    return parseReferencedSegmentsOnly;
+  }
+
 }
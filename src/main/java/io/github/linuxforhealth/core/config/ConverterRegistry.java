@@ -0,0 +1,354 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.config;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+
+import io.github.linuxforhealth.core.Constants;
+import io.github.linuxforhealth.core.ObjectMapperUtil;
+import io.github.linuxforhealth.core.terminology.CodingSystem;
+import io.github.linuxforhealth.core.terminology.CompiledConceptMap;
+import io.github.linuxforhealth.core.terminology.TerminologyCache;
+import io.github.linuxforhealth.hl7.message.MessageTemplates;
+import io.github.linuxforhealth.hl7.resource.ResourceReader;
+
+/**
+ * Immutable snapshot of the configuration and of the lookup tables that are loaded from it: the
+ * resource reader, the HL7 v2 to FHIR code mappings, the FHIR resource classes and the coding system
+ * and extension URLs. The terminology cache is part of the snapshot too, since the cached codes
+ * depend on the coding system URLs, and so are the message templates, which are loaded on first use.
+ *
+ * The snapshot is built completely before it is published, so lookups are plain reads of immutable
+ * maps and need no locking. After {@link #reset()} the next use builds a new snapshot and publishes
+ * it in one step, so a thread sees either the old or the new snapshot but never a partially loaded
+ * one. {@link #reload()} builds the new snapshot, templates included, while the current one stays
+ * in use. A conversion {@link #pin() pins} the snapshot it started with, so it finishes with the
+ * same templates and lookups even if a new snapshot is published in the meantime.
+ *
+ */
+public final class ConverterRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConverterRegistry.class);
+
+    private static final TypeReference<List<CodingSystem>> CODING_SYSTEMS = new TypeReference<List<CodingSystem>>() {
+    };
+
+    private static final Map<String, String> URL_MAPPING_PATHS = ImmutableMap.of(
+            Constants.CODING_SYSTEM_MAPPING, Constants.CODING_SYSTEM_MAPPING_PATH,
+            Constants.EXTENSION_URL_MAPPING, Constants.EXTENSION_URL_MAPPING_PATH);
+
+    private static final AtomicReference<ConverterRegistry> CURRENT = new AtomicReference<>();
+    // Registry of the conversion running on the thread, see pin()
+    private static final ThreadLocal<ConverterRegistry> PINNED = new ThreadLocal<>();
+
+    private final ConverterConfiguration configuration;
+    private final ResourceReader resourceReader;
+    private final Map<String, Map<String, String>> hl7v2Mappings;
+    private final Map<String, Class<? extends Resource>> resourceClasses;
+    private final Map<String, Map<String, CodingSystem>> urlMaps;
+    private final TerminologyCache terminologyCache;
+    private final Supplier<MessageTemplates> messageTemplates;
+
+    private ConverterRegistry(ConverterConfiguration configuration) {
+        this.configuration = configuration;
+        this.resourceReader = new ResourceReader(configuration);
+        this.hl7v2Mappings = loadHl7v2Mappings(resourceReader);
+        this.resourceClasses = loadResourceClasses(resourceReader);
+        CompiledConceptMap compiledConceptMap = openCompiledConceptMap(configuration);
+        this.urlMaps = ImmutableMap.of(
+                Constants.CODING_SYSTEM_MAPPING,
+                loadUrlMap(resourceReader, configuration, compiledConceptMap, Constants.CODING_SYSTEM_MAPPING_PATH),
+                Constants.EXTENSION_URL_MAPPING,
+                loadUrlMap(resourceReader, configuration, compiledConceptMap, Constants.EXTENSION_URL_MAPPING_PATH));
+        this.terminologyCache = new TerminologyCache(configuration.getTerminologyCacheSize(),
+                configuration.getTerminologyCacheExpireSeconds());
+        this.messageTemplates = Suppliers
+                .memoize(() -> MessageTemplates.load(this, configuration.getTemplateLoading()));
+    }
+
+    // Copy of the registry with the url map of one url type loaded again
+    private ConverterRegistry(ConverterRegistry registry, String urlType) {
+        this.configuration = registry.configuration;
+        this.resourceReader = registry.resourceReader;
+        this.hl7v2Mappings = registry.hl7v2Mappings;
+        this.resourceClasses = registry.resourceClasses;
+        Map<String, Map<String, CodingSystem>> urls = new HashMap<>(registry.urlMaps);
+        urls.put(urlType, loadUrlMap(resourceReader, configuration, openCompiledConceptMap(configuration),
+                URL_MAPPING_PATHS.get(urlType)));
+        this.urlMaps = ImmutableMap.copyOf(urls);
+        // The cached codes are keyed by the system urls, which may have changed
+        this.terminologyCache = new TerminologyCache(configuration.getTerminologyCacheSize(),
+                configuration.getTerminologyCacheExpireSeconds());
+        // The templates do not depend on the url maps
+        this.messageTemplates = registry.messageTemplates;
+    }
+
+    /**
+     * Returns the registry pinned by the current thread or else the current registry, building it on
+     * first use.
+     *
+     * @return {@link ConverterRegistry}
+     * @throws IllegalStateException - If the configuration cannot be read
+     * @throws IllegalArgumentException - If a lookup table cannot be read
+     */
+    public static ConverterRegistry getInstance() {
+        ConverterRegistry registry = PINNED.get();
+        if (registry == null) {
+            registry = CURRENT.get();
+        }
+        if (registry == null) {
+            registry = initialize();
+        }
+        return registry;
+    }
+
+    private static synchronized ConverterRegistry initialize() {
+        ConverterRegistry registry = CURRENT.get();
+        if (registry == null) {
+            registry = new ConverterRegistry(new ConverterConfiguration());
+            CURRENT.set(registry);
+        }
+        return registry;
+    }
+
+    /**
+     * Drops the current registry. The next use builds a new registry from the configuration found at
+     * that time, so the configuration can be changed between the reset and the next use.
+     */
+    public static synchronized void reset() {
+        CURRENT.set(null);
+    }
+
+    /**
+     * Loads the coding systems of one url type again and publishes them in a new registry that keeps
+     * the other tables of the current registry. Does nothing if no registry is built yet, the next
+     * use loads all the tables.
+     *
+     * @param urlType {@link Constants#CODING_SYSTEM_MAPPING} or {@link Constants#EXTENSION_URL_MAPPING}
+     * @throws IllegalArgumentException - If the url type is unknown or its table cannot be read
+     */
+    public static synchronized void reloadUrlMap(String urlType) {
+        Preconditions.checkArgument(URL_MAPPING_PATHS.containsKey(urlType), "Unknown url type %s", urlType);
+        ConverterRegistry registry = CURRENT.get();
+        if (registry != null) {
+            CURRENT.set(new ConverterRegistry(registry, urlType));
+        }
+    }
+
+    /**
+     * Builds a new registry from the configuration found at this time, loads its message templates
+     * and then publishes it. Until then the current registry stays in use, so conversions do not wait
+     * for the reload. If the new registry cannot be built the current registry stays.
+     *
+     * @return the new registry
+     * @throws IllegalStateException - If the configuration or a template cannot be read
+     * @throws IllegalArgumentException - If a lookup table or a template cannot be read
+     */
+    public static synchronized ConverterRegistry reload() {
+        ConverterRegistry registry = new ConverterRegistry(new ConverterConfiguration());
+        registry.getMessageTemplates();
+        CURRENT.set(registry);
+        LOGGER.info("Published reloaded converter registry");
+        return registry;
+    }
+
+    /**
+     * Makes this registry the registry of the current thread until the scope is closed, whatever
+     * registry is published in the meantime. Scopes can be nested.
+     *
+     * @return scope to close in the same thread
+     */
+    public Scope pin() {
+        Scope scope = new Scope(PINNED.get());
+        PINNED.set(this);
+        return scope;
+    }
+
+    public ConverterConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public ResourceReader getResourceReader() {
+        return resourceReader;
+    }
+
+    /**
+     * @param fhirConceptName Name of the FHIR concept
+     * @return HL7 v2 to FHIR code mapping for the concept or null if the concept is not mapped
+     */
+    public Map<String, String> getHl7v2Mapping(String fhirConceptName) {
+        return hl7v2Mappings.get(fhirConceptName);
+    }
+
+    /**
+     * @param name Resource name
+     * @return FHIR resource class for the resource name or null if the name is not mapped
+     */
+    public Class<? extends Resource> getResourceClass(String name) {
+        return resourceClasses.get(name);
+    }
+
+    /**
+     * @param urlType {@link Constants#CODING_SYSTEM_MAPPING} or {@link Constants#EXTENSION_URL_MAPPING}
+     * @return Coding systems by upper case id or null if the url type is unknown. With a compiled
+     *         additional concept map the coding systems are read from the compiled file on lookup.
+     */
+    public Map<String, CodingSystem> getUrlMap(String urlType) {
+        return urlMaps.get(urlType);
+    }
+
+    /**
+     * @return cache of the terminology lookups made with the coding system URLs of this registry
+     */
+    public TerminologyCache getTerminologyCache() {
+        return terminologyCache;
+    }
+
+    /**
+     * Returns the message templates of this registry, loading them on first use as configured by
+     * template.loading.
+     *
+     * @return {@link MessageTemplates}
+     * @throws IllegalArgumentException - If a template cannot be loaded
+     */
+    public MessageTemplates getMessageTemplates() {
+        return messageTemplates.get();
+    }
+
+    private static Map<String, Map<String, String>> loadHl7v2Mappings(ResourceReader reader) {
+        TypeReference<Map<String, Map<String, String>>> typeRef = new TypeReference<Map<String, Map<String, String>>>() {
+        };
+        String content = reader.getResourceInHl7Folder(Constants.V2_TO_FHIR_MAPPING_PATH);
+        try {
+            Map<String, Map<String, String>> mappings = ObjectMapperUtil.getYAMLInstance().readValue(content, typeRef);
+            ImmutableMap.Builder<String, Map<String, String>> builder = ImmutableMap
+                    .builderWithExpectedSize(mappings.size());
+            mappings.forEach((concept, mapping) -> {
+                if (mapping != null) {
+                    // A code without a value is not mapped, same as a missing code
+                    builder.put(concept, mapping.entrySet().stream().filter(e -> e.getValue() != null)
+                            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)));
+                }
+            });
+            return builder.build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot initialize mapping", e);
+        }
+    }
+
+    private static Map<String, Class<? extends Resource>> loadResourceClasses(ResourceReader reader) {
+        String resource = reader.getResource(Constants.RESOURCE_MAPPING_PATH);
+        Map<String, String> resourceMapping;
+        try {
+            resourceMapping = ObjectMapperUtil.getYAMLInstance().readValue(resource,
+                    new TypeReference<Map<String, String>>() {
+                    });
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot read resource mapping file fhir/resourcemapping.yml ", e);
+        }
+        ImmutableMap.Builder<String, Class<? extends Resource>> builder = ImmutableMap
+                .builderWithExpectedSize(resourceMapping.size());
+        resourceMapping.forEach((name, className) -> {
+            try {
+                builder.put(name, ClassUtils.getClass(className).asSubclass(Resource.class));
+            } catch (ClassNotFoundException | ClassCastException e) {
+                LOGGER.warn("Resource type {} is mapped to an unknown class {}", name, className);
+            }
+        });
+        return builder.build();
+    }
+
+    // A compiled additional concept map is mapped once and shared by the url types and by the
+    // registries built while the file is unchanged
+    private static CompiledConceptMap openCompiledConceptMap(ConverterConfiguration configuration) {
+        String filePath = configuration.getAdditionalConceptmapFile();
+        if (StringUtils.isBlank(filePath)) {
+            return null;
+        }
+        try {
+            Path file = Paths.get(filePath);
+            return CompiledConceptMap.isCompiled(file) ? CompiledConceptMap.open(file) : null;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(filePath, e);
+        }
+    }
+
+    private static Map<String, CodingSystem> loadUrlMap(ResourceReader reader, ConverterConfiguration configuration,
+            CompiledConceptMap compiledConceptMap, String path) {
+        Map<String, CodingSystem> urls = new HashMap<>();
+        try {
+            urls.putAll(toMap(readCodingSystems(reader.getResourceInHl7Folder(path))));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + path, e);
+        }
+        // The additional concept map supplements and overrides the default systems
+        String filePath = configuration.getAdditionalConceptmapFile();
+        if (compiledConceptMap != null) {
+            return compiledConceptMap.overlay(ImmutableMap.copyOf(urls));
+        } else if (StringUtils.isNotBlank(filePath)) {
+            try (InputStream fis = new FileInputStream(filePath)) {
+                urls.putAll(toMap(readCodingSystems(fis)));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(filePath, e);
+            }
+        }
+        return ImmutableMap.copyOf(urls);
+    }
+
+    private static List<CodingSystem> readCodingSystems(String content) throws IOException {
+        return ObjectMapperUtil.getYAMLInstance().readValue(content, CODING_SYSTEMS);
+    }
+
+    private static List<CodingSystem> readCodingSystems(InputStream content) throws IOException {
+        return ObjectMapperUtil.getYAMLInstance().readValue(content, CODING_SYSTEMS);
+    }
+
+    private static Map<String, CodingSystem> toMap(List<CodingSystem> systems) {
+        return systems.stream().collect(Collectors.toMap(CodingSystem::getId, codeSystem -> codeSystem));
+    }
+
+    /**
+     * Pins a registry to the thread, see {@link ConverterRegistry#pin()}.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ConverterRegistry previous;
+
+        private Scope(ConverterRegistry previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                PINNED.remove();
+            } else {
+                PINNED.set(previous);
+            }
+        }
+    }
+
+}
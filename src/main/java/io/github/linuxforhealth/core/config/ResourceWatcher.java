@@ -0,0 +1,180 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the resource folders, base.path.resource and additional.resources.location, and reloads
+ * the {@link ConverterRegistry} when a file in them changes. The new registry and its templates are
+ * built in the background by the watcher thread and published when they are complete; conversions
+ * continue with the current registry until then. If the changed resources cannot be loaded, for
+ * instance a template with a syntax error, the current registry stays and the next change is tried
+ * again.
+ *
+ * Changes are collected until the folders are quiet for a moment, so a template saved in several
+ * writes or a folder copied file by file results in one reload. The folders are taken from the
+ * configuration when the watcher starts.
+ */
+public final class ResourceWatcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceWatcher.class);
+
+    static final long DEFAULT_QUIET_MILLIS = 500;
+
+    private final WatchService watchService;
+    private final long quietMillis;
+    private final Thread thread;
+    private final AtomicLong reloadCount = new AtomicLong();
+
+    private ResourceWatcher(WatchService watchService, List<Path> folders, long quietMillis) throws IOException {
+        this.watchService = watchService;
+        this.quietMillis = quietMillis;
+        for (Path folder : folders) {
+            registerAll(folder);
+        }
+        this.thread = new Thread(this::run, "hl7-resource-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the resource folders of the current configuration.
+     *
+     * @return the watcher, close it to stop watching
+     * @throws IOException - If the folders cannot be watched
+     */
+    public static ResourceWatcher start() throws IOException {
+        return start(DEFAULT_QUIET_MILLIS);
+    }
+
+    /**
+     * Starts watching the resource folders of the current configuration.
+     *
+     * @param quietMillis Milliseconds without changes after which the registry is reloaded
+     * @return the watcher, close it to stop watching
+     * @throws IOException - If the folders cannot be watched
+     */
+    public static ResourceWatcher start(long quietMillis) throws IOException {
+        ConverterConfiguration configuration = ConverterRegistry.getInstance().getConfiguration();
+        List<Path> folders = new ArrayList<>();
+        for (String folder : new String[] { configuration.getResourceFolder(),
+                configuration.getAdditionalResourcesLocation() }) {
+            if (StringUtils.isNotBlank(folder) && Files.isDirectory(Paths.get(folder))) {
+                folders.add(Paths.get(folder));
+            }
+        }
+        if (folders.isEmpty()) {
+            LOGGER.warn("No resource folder to watch, resources are read from the classpath");
+        }
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        try {
+            ResourceWatcher watcher = new ResourceWatcher(watchService, folders, quietMillis);
+            watcher.thread.start();
+            LOGGER.info("Watching resource folders {}", folders);
+            return watcher;
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of reloads published since the watcher started
+     */
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    /**
+     * Stops watching. A reload in progress is finished.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = processEvents(watchService.take());
+                // Wait until the folders are quiet
+                WatchKey key;
+                while ((key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= processEvents(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.debug("Stopped watching resource folders");
+        }
+    }
+
+    private boolean processEvents(WatchKey key) {
+        boolean changed = false;
+        Path folder = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed = true;
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                Path created = folder.resolve((Path) event.context());
+                if (Files.isDirectory(created)) {
+                    try {
+                        registerAll(created);
+                    } catch (IOException e) {
+                        LOGGER.warn("Cannot watch resource folder {}", created);
+                        LOGGER.debug("Cannot watch resource folder {}", created, e);
+                    }
+                }
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            ConverterRegistry.reload();
+            reloadCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            LOGGER.error("Cannot reload the changed resources, conversions continue with the current ones");
+            LOGGER.debug("Cannot reload the changed resources", e);
+        }
+    }
+
+    private void registerAll(Path folder) throws IOException {
+        List<Path> folders;
+        try (Stream<Path> paths = Files.walk(folder)) {
+            folders = paths.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (Path path : folders) {
+            path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+}
@@ -8,6 +8,8 @@ package io.github.linuxforhealth.core.data;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import org.apache.commons.jexl3.JexlBuilder;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
@@ -21,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.core.exception.DataExtractionException;
 
 public final class JexlEngineUtil {
@@ -28,10 +31,13 @@ public final class JexlEngineUtil {
   private static final List<String> OPERATORS =
       Lists.newArrayList(">", "<", "==", "!=", ">=", "<=");
 
-  private JexlEngine jexl;
-  private Map<String, Object> functions = new HashMap<>();
-
-  private Map<String, JexlExpression> exprCache = new HashMap<String, JexlExpression>();
+  // The engine, the functions and the compiled expressions are shared by all the threads that
+  // evaluate expressions with this engine. The functions are only changed by the constructors.
+  private final JexlEngine jexl;
+  private final Map<String, Object> functions = new HashMap<>();
+  private final Map<String, JexlExpression> exprCache = new ConcurrentHashMap<>();
+  // Conditions are validated differently, they are kept apart from the expressions
+  private final Map<String, JexlExpression> conditionCache = new ConcurrentHashMap<>();
 
   public JexlEngineUtil() {
     jexl = new JexlBuilder().silent(false).debug(true).strict(true).create();
@@ -43,7 +49,7 @@ public final class JexlEngineUtil {
 
   public JexlEngineUtil(Map<String, Object> functions) {
     this();
-    functions.putAll(functions);
+    this.functions.putAll(functions);
 
   }
 
@@ -53,30 +59,63 @@ public final class JexlEngineUtil {
     functions.put(name, function);
 
   }
-  
-  public Object evaluate(String jexlExp, Map<String, Object> context) {
+
+  /**
+   * Validates and compiles the expression. The compiled expression is immutable and can be evaluated
+   * by several threads at the same time, templates compile their expressions once when they are
+   * loaded. A plain call of a static method of the functions, like GeneralUtils.generateResourceId(),
+   * is bound to the method and does not go through the interpreter.
+   * 
+   * @param jexlExp JEXL expression, example: GeneralUtils.generateName(var1)
+   * @return compiled expression
+   * @throws IllegalArgumentException if the expression is blank or uses an unsupported function
+   */
+  public JexlExpression compile(String jexlExp) {
     Preconditions.checkArgument(StringUtils.isNotBlank(jexlExp), "jexlExp cannot be blank");
-    Preconditions.checkArgument(context != null, "context cannot be null");
     String trimedJexlExp = StringUtils.trim(jexlExp);
-    // ensure that expression
-    validateExpression(trimedJexlExp);
-
-    LOGGER.debug("Evaluating expression : {}", trimedJexlExp);
-    Map<String, Object> localContext = new HashMap<>(functions);
-    localContext.putAll(context);
-
     JexlExpression exp = exprCache.get(trimedJexlExp);
-    if(exp == null) {
-    	exp = jexl.createExpression(trimedJexlExp);
-    	exprCache.put(trimedJexlExp, exp);
+    if (exp == null) {
+      // ensure that expression
+      validateExpression(trimedJexlExp);
+      exp = exprCache.computeIfAbsent(trimedJexlExp, this::createExpression);
     }
-    
-    JexlContext jc = new MapContext();
-    localContext.entrySet().forEach(e -> jc.set(e.getKey(), e.getValue()));
+    return exp;
+  }
+
+  // Plain static calls are bound to the method, everything else is interpreted
+  private JexlExpression createExpression(String jexlExp) {
+    JexlExpression interpreted = jexl.createExpression(jexlExp);
+    JexlExpression direct = StaticMethodCall.bind(interpreted, functions,
+        literal -> jexl.createExpression(literal).evaluate(new MapContext()));
+    return direct != null ? direct : interpreted;
+  }
+
+  public Object evaluate(String jexlExp, Map<String, Object> context) {
+    Preconditions.checkArgument(context != null, "context cannot be null");
+    return evaluate(compile(jexlExp), new ReadOnlyContext<>(context, Function.identity(), functions));
+  }
+
+  /**
+   * Evaluates the compiled expression. The names in the expression are resolved from the context
+   * values when the expression reads them, the context values are not copied.
+   * 
+   * @param exp Expression compiled by {@link #compile(String)}
+   * @param contextValues Context values
+   * @return value of the expression
+   */
+  public Object evaluate(JexlExpression exp, Map<String, EvaluationResult> contextValues) {
+    Preconditions.checkArgument(exp != null, "exp cannot be null");
+    Preconditions.checkArgument(contextValues != null, "contextValues cannot be null");
+    return evaluate(exp, new ReadOnlyContext<>(contextValues,
+        value -> value != null ? value.getValue() : null, functions));
+  }
+
+  private static Object evaluate(JexlExpression exp, JexlContext jc) {
+    LOGGER.debug("Evaluating expression : {}", exp.getSourceText());
     // Now evaluate the expression, getting the result
     try {
       Object obj = exp.evaluate(jc);
-      LOGGER.debug("Evaluated expression : {}, returning object {}", trimedJexlExp, obj);
+      LOGGER.debug("Evaluated expression : {}, returning object {}", exp.getSourceText(), obj);
       return obj;
     } catch (JexlException e) {
 
@@ -97,12 +136,8 @@ public final class JexlEngineUtil {
     validateCondition(trimedJexlExp);
 
     LOGGER.debug("Evaluating condiitional expression : {}", trimedJexlExp);
-    Map<String, Object> localContext = new HashMap<>(functions);
-    localContext.putAll(context);
-
-    JexlExpression exp = jexl.createExpression(trimedJexlExp);
-    JexlContext jc = new MapContext();
-    localContext.entrySet().forEach(e -> jc.set(e.getKey(), e.getValue()));
+    JexlExpression exp = conditionCache.computeIfAbsent(trimedJexlExp, jexl::createExpression);
+    JexlContext jc = new ReadOnlyContext<>(context, Function.identity(), functions);
     // Now evaluate the expression, getting the result
 
     boolean obj = (boolean) exp.evaluate(jc);
@@ -148,4 +183,42 @@ public final class JexlEngineUtil {
     }
 
   }
+
+  /**
+   * Resolves the names of an expression from the context values and then from the functions, when
+   * the expression reads them. Neither map is copied. Expressions of the templates only read values,
+   * assignments are rejected.
+   */
+  private static final class ReadOnlyContext<V> implements JexlContext {
+    private final Map<String, V> variables;
+    private final Function<V, Object> unwrap;
+    private final Map<String, Object> functions;
+
+    ReadOnlyContext(Map<String, V> variables, Function<V, Object> unwrap,
+        Map<String, Object> functions) {
+      this.variables = variables;
+      this.unwrap = unwrap;
+      this.functions = functions;
+    }
+
+    @Override
+    public Object get(String name) {
+      V value = variables.get(name);
+      if (value != null || variables.containsKey(name)) {
+        return unwrap.apply(value);
+      }
+      return functions.get(name);
+    }
+
+    @Override
+    public void set(String name, Object value) {
+      throw new UnsupportedOperationException("Expression cannot assign variable " + name);
+    }
+
+    @Override
+    public boolean has(String name) {
+      return variables.containsKey(name) || functions.containsKey(name);
+    }
+  }
+
 }
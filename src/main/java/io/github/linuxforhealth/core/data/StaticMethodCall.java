@@ -0,0 +1,253 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlExpression;
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+import io.github.linuxforhealth.core.exception.DataExtractionException;
+
+/**
+ * Expression of the form Function.method(arg1, arg2, ...) bound to the static method once, when the
+ * expression is compiled. The arguments must be variable names or literals, anything more complex
+ * is not bound and stays with the JEXL interpreter.
+ *
+ * The call falls back to the interpreted expression whenever the interpreter could behave
+ * differently: a variable that is not in the context or an argument that does not match the type
+ * of the parameter. The interpreter then reports the error or converts the argument as before.
+ */
+final class StaticMethodCall implements JexlExpression {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticMethodCall.class);
+
+    // Words of the JEXL syntax that cannot be variable names
+    private static final Set<String> RESERVED = ImmutableSet.of("or", "and", "eq", "ne", "lt", "gt", "le",
+            "ge", "div", "mod", "not", "null", "true", "false", "new", "var", "empty", "size", "function",
+            "return", "if", "else", "for", "while", "do", "continue", "break", "NaN");
+
+    private final JexlExpression interpreted;
+    private final MethodHandle handle;
+    private final Class<?>[] parameterTypes;
+    // Variable name of each argument, null for a literal
+    private final String[] variables;
+    // Value of each literal argument
+    private final Object[] literals;
+
+    private StaticMethodCall(JexlExpression interpreted, Method method, String[] variables,
+            Object[] literals) throws IllegalAccessException {
+        this.interpreted = interpreted;
+        MethodHandle target = MethodHandles.publicLookup().unreflect(method);
+        this.handle = target.asType(target.type().generic()).asSpreader(Object[].class, variables.length);
+        this.parameterTypes = method.getParameterTypes();
+        this.variables = variables;
+        this.literals = literals;
+    }
+
+    /**
+     * Binds the expression to a static method of one of the functions.
+     *
+     * @param interpreted The expression compiled by the JEXL engine
+     * @param functions Functions of the engine by name
+     * @param literalEvaluator Evaluates the text of a literal argument with the JEXL engine
+     * @return the bound call or null if the expression is not a simple static method call
+     */
+    static StaticMethodCall bind(JexlExpression interpreted, Map<String, Object> functions,
+            Function<String, Object> literalEvaluator) {
+        String source = interpreted.getSourceText().trim();
+        int open = source.indexOf('(');
+        if (open < 0 || !source.endsWith(")")) {
+            return null;
+        }
+        String target = source.substring(0, open).trim();
+        int dot = target.indexOf('.');
+        if (dot < 0 || !isIdentifier(target.substring(0, dot)) || !isIdentifier(target.substring(dot + 1))) {
+            return null;
+        }
+        Object function = functions.get(target.substring(0, dot));
+        List<String> args = splitArguments(source.substring(open + 1, source.length() - 1));
+        if (!(function instanceof Class) || args == null) {
+            return null;
+        }
+
+        Method method = findMethod((Class<?>) function, target.substring(dot + 1), args.size());
+        if (method == null) {
+            return null;
+        }
+        String[] variables = new String[args.size()];
+        Object[] literals = new Object[args.size()];
+        try {
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                if (isIdentifier(arg) && !RESERVED.contains(arg)) {
+                    variables[i] = arg;
+                } else if (isLiteral(arg)) {
+                    literals[i] = literalEvaluator.apply(arg);
+                } else {
+                    return null;
+                }
+            }
+            return new StaticMethodCall(interpreted, method, variables, literals);
+        } catch (RuntimeException | IllegalAccessException e) {
+            LOGGER.debug("Expression {} is evaluated by the interpreter", source, e);
+            return null;
+        }
+    }
+
+    @Override
+    public Object evaluate(JexlContext context) {
+        Object[] args = new Object[variables.length];
+        for (int i = 0; i < args.length; i++) {
+            if (variables[i] == null) {
+                args[i] = literals[i];
+            } else if (context.has(variables[i])) {
+                args[i] = context.get(variables[i]);
+            } else {
+                return interpreted.evaluate(context);
+            }
+            if (!accepts(parameterTypes[i], args[i])) {
+                return interpreted.evaluate(context);
+            }
+        }
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (RuntimeException e) {
+            throw new DataExtractionException("Exception encountered during JEXL expression evaluation", e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataExtractionException("Exception encountered during JEXL expression evaluation", e);
+        }
+    }
+
+    @Override
+    public String getSourceText() {
+        return interpreted.getSourceText();
+    }
+
+    @Override
+    public String getParsedText() {
+        return interpreted.getParsedText();
+    }
+
+    @Override
+    public Callable<Object> callable(JexlContext context) {
+        return () -> evaluate(context);
+    }
+
+    private static boolean accepts(Class<?> parameterType, Object value) {
+        if (value == null) {
+            return !parameterType.isPrimitive();
+        }
+        return ClassUtils.primitiveToWrapper(parameterType).isInstance(value);
+    }
+
+    // The only public static method of the name and arity, overloads are left to the interpreter
+    private static Method findMethod(Class<?> klass, String name, int arity) {
+        Method found = null;
+        for (Method method : klass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) || !method.getName().equals(name)) {
+                continue;
+            }
+            // Varargs methods can take any number of arguments
+            if (method.isVarArgs() || (found != null && method.getParameterCount() == arity)) {
+                return null;
+            } else if (method.getParameterCount() == arity) {
+                found = method;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Splits the arguments at the commas outside of string literals.
+     *
+     * @return arguments, trimmed, or null if an argument is empty or contains a nested expression
+     */
+    private static List<String> splitArguments(String text) {
+        List<String> args = new ArrayList<>();
+        if (text.trim().isEmpty()) {
+            return args;
+        }
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ',') {
+                args.add(text.substring(start, i).trim());
+                start = i + 1;
+            } else if (c == '(' || c == ')') {
+                return null;
+            }
+        }
+        if (quote != 0) {
+            return null;
+        }
+        args.add(text.substring(start).trim());
+        return args.contains("") ? null : args;
+    }
+
+    private static boolean isIdentifier(String text) {
+        if (text.isEmpty() || !Character.isJavaIdentifierStart(text.charAt(0)) || text.charAt(0) == '$') {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i)) || text.charAt(i) == '$') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A single string literal or an unsigned integer or decimal number
+    private static boolean isLiteral(String text) {
+        char first = text.charAt(0);
+        if (first == '\'' || first == '"') {
+            for (int i = 1; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == first) {
+                    return i == text.length() - 1;
+                }
+            }
+            return false;
+        }
+        boolean dot = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' && !dot && i > 0) {
+                dot = true;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -8,13 +8,19 @@ package io.github.linuxforhealth.core.exception;
 /**
  * 
  * This exception is thrown if a failure is encountered during data extraction or evaluation.
+ * It is thrown for every value an expression cannot extract, so it does not fill in a stack trace
+ * of its own; the cause has the stack trace of the failure.
  *
  * @author pbhallam
  */
 public class DataExtractionException extends RuntimeException {
 
   public DataExtractionException(String message, Exception e) {
-    super(message, e);
+    super(message, e, true, false);
+  }
+
+  public DataExtractionException(String message, Throwable cause) {
+    super(message, cause, true, false);
   }
 
 
@@ -11,15 +11,24 @@ import io.github.linuxforhealth.api.ResourceValue;
 
 
 public class EvaluationResultFactory {
+  // Has no state, so one instance serves every absent value
+  private static final EvaluationResult EMPTY_RESULT = new EmptyEvaluationResult();
 
   private EvaluationResultFactory() {}
 
+  /**
+   * @return the shared result of an absent value
+   */
+  public static EvaluationResult getEmptyEvaluationResult() {
+    return EMPTY_RESULT;
+  }
+
   public static <V> EvaluationResult getEvaluationResult(V value,
       List<ResourceValue> additionalResources) {
     if (value != null) {
       return new SimpleEvaluationResult<>(value, additionalResources);
     } else {
-      return new EmptyEvaluationResult();
+      return EMPTY_RESULT;
     }
   }
 
@@ -27,7 +36,7 @@ public class EvaluationResultFactory {
     if (value != null) {
       return new SimpleEvaluationResult<>(value);
     } else {
-      return new EmptyEvaluationResult();
+      return EMPTY_RESULT;
     }
   }
 
@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.expression;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import io.github.linuxforhealth.api.EvaluationResult;
+
+/**
+ * Context values of an evaluation scope, layered over the context values of the enclosing scope.
+ *
+ * A scope holds only the values added in the scope, lookups of other names fall through to the
+ * enclosing scope, so creating a scope does not copy the context. Values added to a scope shadow
+ * the values of the same name in the enclosing scopes.
+ *
+ * A scope is frozen when a nested scope is created from it or when it is handed to code that only
+ * reads it, see {@link #freeze(Map)}. Adding values to a frozen scope fails with
+ * {@link UnsupportedOperationException}, the same as adding values to the immutable copies that
+ * were used before, so a nested scope never sees its enclosing scope change.
+ *
+ * Scopes are not thread safe, they are confined to the thread of the conversion.
+ */
+public final class ScopedContextMap extends AbstractMap<String, EvaluationResult> {
+
+    private final Map<String, EvaluationResult> parent;
+    // Values added in this scope, created on the first put
+    private Map<String, EvaluationResult> values;
+    private boolean frozen;
+
+    private ScopedContextMap(Map<String, EvaluationResult> parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Creates a scope over the context values. The context values are frozen if they are a scope.
+     *
+     * @param parent Context values of the enclosing scope
+     * @return new empty scope
+     */
+    public static ScopedContextMap scope(Map<String, EvaluationResult> parent) {
+        Preconditions.checkArgument(parent != null, "parent cannot be null");
+        Map<String, EvaluationResult> enclosing = parent;
+        if (parent instanceof ScopedContextMap) {
+            ScopedContextMap scope = (ScopedContextMap) parent;
+            scope.frozen = true;
+            // An empty frozen scope stays empty, skip it to keep the chain short
+            while (scope.values == null && scope.parent instanceof ScopedContextMap) {
+                scope = (ScopedContextMap) scope.parent;
+            }
+            enclosing = scope.values == null ? scope.parent : scope;
+        }
+        return new ScopedContextMap(enclosing);
+    }
+
+    /**
+     * Returns a read only view of the context values, without copying scopes.
+     *
+     * @param context Context values
+     * @return the context itself, frozen, if it is a scope or an immutable copy otherwise
+     */
+    public static Map<String, EvaluationResult> freeze(Map<String, EvaluationResult> context) {
+        if (context instanceof ScopedContextMap) {
+            ((ScopedContextMap) context).frozen = true;
+            return context;
+        } else if (context instanceof ImmutableMap) {
+            return context;
+        }
+        return ImmutableMap.copyOf(context);
+    }
+
+    @Override
+    public EvaluationResult get(Object key) {
+        Map<String, EvaluationResult> map = this;
+        while (map instanceof ScopedContextMap) {
+            ScopedContextMap scope = (ScopedContextMap) map;
+            if (scope.values != null && scope.values.containsKey(key)) {
+                return scope.values.get(key);
+            }
+            map = scope.parent;
+        }
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Map<String, EvaluationResult> map = this;
+        while (map instanceof ScopedContextMap) {
+            ScopedContextMap scope = (ScopedContextMap) map;
+            if (scope.values != null && scope.values.containsKey(key)) {
+                return true;
+            }
+            map = scope.parent;
+        }
+        return map.containsKey(key);
+    }
+
+    @Override
+    public EvaluationResult put(String key, EvaluationResult value) {
+        if (frozen) {
+            throw new UnsupportedOperationException("Context values of an enclosing scope cannot be changed");
+        }
+        EvaluationResult previous = get(key);
+        if (values == null) {
+            values = new HashMap<>();
+        }
+        values.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Map<String, EvaluationResult> map = this;
+        while (map instanceof ScopedContextMap) {
+            ScopedContextMap scope = (ScopedContextMap) map;
+            if (scope.values != null && !scope.values.isEmpty()) {
+                return false;
+            }
+            map = scope.parent;
+        }
+        return map.isEmpty();
+    }
+
+    /**
+     * Iterating the context values flattens the scopes, iteration should be kept off the hot path.
+     */
+    @Override
+    public Set<Entry<String, EvaluationResult>> entrySet() {
+        Deque<Map<String, EvaluationResult>> layers = new ArrayDeque<>();
+        Map<String, EvaluationResult> map = this;
+        while (map instanceof ScopedContextMap) {
+            ScopedContextMap scope = (ScopedContextMap) map;
+            if (scope.values != null) {
+                layers.push(scope.values);
+            }
+            map = scope.parent;
+        }
+        Map<String, EvaluationResult> flattened = new HashMap<>(map);
+        layers.forEach(flattened::putAll);
+        return Collections.unmodifiableMap(flattened).entrySet();
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics of the conversion of one HL7 message: the time spent in each {@link ConversionPhase},
+ * the message type, the number of resources in the bundle by resource type and the number of
+ * resources that failed to convert.
+ *
+ * The converter creates one instance per message and passes it along the conversion. When no
+ * listener is registered the shared {@link #DISABLED} instance is used; it records nothing and does
+ * not read the clock, so the instrumentation costs a field read per phase.
+ */
+public final class ConversionMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionMetrics.class);
+    private static final ConversionPhase[] PHASES = ConversionPhase.values();
+
+    /**
+     * Records nothing.
+     */
+    public static final ConversionMetrics DISABLED = new ConversionMetrics(null);
+
+    private final ConversionMetricsListener listener;
+    private final boolean enabled;
+    private final long[] phaseNanos;
+    private final long startNanos;
+    private long totalNanos;
+    private String messageType;
+    private int failureCount;
+    private int lookupMissCount;
+    private boolean success;
+    private Map<String, Integer> resourceCounts = Collections.emptyMap();
+    private int resourceCount;
+
+    private ConversionMetrics(ConversionMetricsListener listener) {
+        this.listener = listener;
+        this.enabled = listener != null;
+        this.phaseNanos = enabled ? new long[PHASES.length] : null;
+        this.startNanos = enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Starts the metrics of a message.
+     *
+     * @param listener Listener to notify when the message is converted
+     * @return new metrics, or {@link #DISABLED} if the listener is null or
+     *         {@link ConversionMetricsListener#NO_OP}
+     */
+    public static ConversionMetrics start(ConversionMetricsListener listener) {
+        if (listener == null || listener == ConversionMetricsListener.NO_OP) {
+            return DISABLED;
+        }
+        return new ConversionMetrics(listener);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return start time of a phase, to pass to {@link #stopPhase(ConversionPhase, long)}
+     */
+    public long startPhase() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Adds the time since the start time to the phase. A phase can run several times for one
+     * message, for example once per resource template.
+     *
+     * @param phase {@link ConversionPhase}
+     * @param phaseStart value returned by {@link #startPhase()}
+     */
+    public void stopPhase(ConversionPhase phase, long phaseStart) {
+        if (enabled) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+        }
+    }
+
+    public void setMessageType(String messageType) {
+        if (enabled) {
+            this.messageType = messageType;
+        }
+    }
+
+    /**
+     * Counts a resource that could not be generated or added to the bundle.
+     */
+    public void recordFailure() {
+        if (enabled) {
+            failureCount++;
+        }
+    }
+
+    /**
+     * Counts lookups of segments, fields or components the message structure does not define. They
+     * are counted instead of logged one by one.
+     *
+     * @param count number of lookups that missed
+     */
+    public void recordLookupMisses(int count) {
+        if (enabled) {
+            lookupMissCount += count;
+        }
+    }
+
+    /**
+     * Completes the metrics of the message and notifies the listener.
+     *
+     * @param bundle Bundle of the message or null if the conversion failed
+     * @param success true if the message was converted
+     */
+    public void finish(Bundle bundle, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        this.totalNanos = System.nanoTime() - startNanos;
+        this.success = success && bundle != null;
+        if (bundle != null) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (BundleEntryComponent entry : bundle.getEntry()) {
+                if (entry.getResource() != null) {
+                    counts.merge(entry.getResource().fhirType(), 1, Integer::sum);
+                }
+            }
+            this.resourceCounts = Collections.unmodifiableMap(counts);
+            this.resourceCount = bundle.getEntry().size();
+        }
+        try {
+            listener.onMessageConverted(this);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Conversion metrics listener failed");
+            LOGGER.debug("Conversion metrics listener failed", e);
+        }
+    }
+
+    /**
+     * @return message type, for example ADT_A01, or null if the message could not be parsed
+     */
+    public String getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * @param phase {@link ConversionPhase}
+     * @return time spent in the phase in nanoseconds
+     */
+    public long getPhaseNanos(ConversionPhase phase) {
+        return enabled ? phaseNanos[phase.ordinal()] : 0L;
+    }
+
+    /**
+     * @return time spent in each phase in nanoseconds
+     */
+    public Map<ConversionPhase, Long> getPhaseNanos() {
+        Map<ConversionPhase, Long> phases = new EnumMap<>(ConversionPhase.class);
+        for (ConversionPhase phase : PHASES) {
+            phases.put(phase, getPhaseNanos(phase));
+        }
+        return phases;
+    }
+
+    /**
+     * @return time from the start of the conversion until the listener is notified, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return number of resources in the bundle
+     */
+    public int getResourceCount() {
+        return resourceCount;
+    }
+
+    /**
+     * @return number of resources in the bundle by FHIR resource type
+     */
+    public Map<String, Integer> getResourceCounts() {
+        return resourceCounts;
+    }
+
+    /**
+     * @return number of resources that could not be generated or added to the bundle
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return number of lookups of segments, fields or components the message structure does not
+     *         define
+     */
+    public int getLookupMissCount() {
+        return lookupMissCount;
+    }
+
+    /**
+     * @return true if the message was converted to a bundle
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+}
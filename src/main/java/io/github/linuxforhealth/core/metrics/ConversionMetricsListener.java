@@ -0,0 +1,31 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.metrics;
+
+/**
+ * Receives the metrics of every converted message. Register a listener with
+ * ConverterOptions.Builder#withMetricsListener.
+ *
+ * The listener is called on the thread that converted the message, once per message, whether the
+ * conversion succeeded or not. It can be called from several threads at the same time and should
+ * return quickly, for example by adding the values to a metrics registry. Exceptions thrown by the
+ * listener are logged and ignored.
+ */
+@FunctionalInterface
+public interface ConversionMetricsListener {
+
+    /**
+     * Default listener, no metrics are collected.
+     */
+    ConversionMetricsListener NO_OP = metrics -> {
+    };
+
+    /**
+     * @param metrics Metrics of one message
+     */
+    void onMessageConverted(ConversionMetrics metrics);
+
+}
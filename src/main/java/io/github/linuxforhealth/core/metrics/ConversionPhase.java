@@ -0,0 +1,30 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.metrics;
+
+/**
+ * Phases of the conversion of one HL7 message, in the order they run.
+ */
+public enum ConversionPhase {
+    /** Parsing the HL7 message with HAPI */
+    PARSE,
+    /** Logging the structure of the parsed message */
+    LOG_STRUCTURE,
+    /** Extracting the segments and segment groups of each resource template */
+    SEGMENT_EXTRACTION,
+    /** Evaluating the expressions of the resource templates */
+    EXPRESSION_EVALUATION,
+    /** Evaluating the expressions that are deferred until all resources are generated */
+    PENDING_EXPRESSIONS,
+    /** Binding the evaluated values to FHIR resources and adding them to the bundle */
+    RESOURCE_BINDING,
+    /** Removing duplicate resources from the bundle */
+    DEDUPLICATION,
+    /** FHIR validation of the bundle */
+    VALIDATION,
+    /** Encoding the bundle to JSON */
+    ENCODING
+}
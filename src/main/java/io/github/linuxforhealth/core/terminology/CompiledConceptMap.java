@@ -0,0 +1,318 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.terminology;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import io.github.linuxforhealth.core.ObjectMapperUtil;
+
+/**
+ * Additional concept map compiled to a binary file, for concept maps with too many coding systems
+ * to keep on the heap. The file is memory mapped and a lookup decodes only the coding system it
+ * finds, with a binary search over an index ordered by id.
+ *
+ * Compile the YAML concept map with {@link #compile(InputStream, Path)}, or with the
+ * ConceptMapCompiler tool, and set the compiled file as additional.conceptmap.file. The converter
+ * recognizes the compiled file by its header.
+ *
+ * File layout, big endian:
+ * <ul>
+ * <li>the 8 bytes HL7CMAP1</li>
+ * <li>int: number of coding systems</li>
+ * <li>int for each coding system: position of the coding system in the file, in the order of the
+ * UTF-8 bytes of the ids</li>
+ * <li>each coding system: id, url, description, oid as int length in bytes, -1 for null, followed
+ * by the UTF-8 bytes</li>
+ * </ul>
+ */
+public final class CompiledConceptMap {
+    private static final byte[] MAGIC = "HL7CMAP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int INDEX_START = MAGIC.length + Integer.BYTES;
+    private static final TypeReference<List<CodingSystem>> CODING_SYSTEMS = new TypeReference<List<CodingSystem>>() {
+    };
+
+    // Mapping of each file, replaced when the file changes
+    private static final Map<Path, CompiledConceptMap> MAPPED = new HashMap<>();
+
+    // Only read with absolute gets, which are safe for concurrent readers
+    private final ByteBuffer buffer;
+    private final int size;
+    // The mapped file, null fileKey if the file system has none
+    private final Object fileKey;
+    private final long fileSize;
+    private final FileTime lastModified;
+
+    private CompiledConceptMap(ByteBuffer buffer, BasicFileAttributes attributes) {
+        this.buffer = buffer;
+        this.fileKey = attributes.fileKey();
+        this.fileSize = attributes.size();
+        this.lastModified = attributes.lastModifiedTime();
+        this.size = buffer.getInt(MAGIC.length);
+        if (size < 0 || INDEX_START + (long) size * Integer.BYTES > buffer.limit()) {
+            throw new IllegalArgumentException("Compiled concept map is truncated");
+        }
+    }
+
+    /**
+     * @param file Concept map file
+     * @return true if the file is a compiled concept map, false if it is another file such as a YAML
+     *         concept map
+     * @throws IOException - If the file cannot be read
+     */
+    public static boolean isCompiled(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = new byte[MAGIC.length];
+            return in.readNBytes(header, 0, header.length) == header.length && Arrays.equals(header, MAGIC);
+        }
+    }
+
+    /**
+     * Maps a compiled concept map into memory, or returns the mapping of an earlier call while the
+     * file is unchanged: same file, size and modification time. Registries rebuilt on reload then
+     * share one mapping instead of mapping the file again.
+     *
+     * To change the concept map, write a new file and move it over the old one. The next call maps
+     * the new file. The mapping of the replaced file stays valid for the registries that still use it
+     * and is released when they are garbage collected. Windows does not allow replacing a file that
+     * is mapped, there set additional.conceptmap.file to a new file instead.
+     *
+     * @param file Compiled concept map
+     * @return {@link CompiledConceptMap}
+     * @throws IOException - If the file cannot be read
+     * @throws IllegalArgumentException - If the file is not a compiled concept map
+     */
+    public static synchronized CompiledConceptMap open(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        CompiledConceptMap mapped = MAPPED.get(path);
+        if (mapped == null || !mapped.isMappingOf(attributes)) {
+            mapped = map(path, attributes);
+            MAPPED.put(path, mapped);
+        }
+        return mapped;
+    }
+
+    private static CompiledConceptMap map(Path file, BasicFileAttributes attributes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Compiled concept map is larger than 2GB: " + file);
+            }
+            if (!isCompiled(file) || channel.size() < INDEX_START) {
+                throw new IllegalArgumentException("Not a compiled concept map: " + file);
+            }
+            return new CompiledConceptMap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    attributes);
+        }
+    }
+
+    private boolean isMappingOf(BasicFileAttributes attributes) {
+        return Objects.equals(fileKey, attributes.fileKey()) && fileSize == attributes.size()
+                && lastModified.equals(attributes.lastModifiedTime());
+    }
+
+    /**
+     * Compiles a YAML concept map, the format of additional.conceptmap.file.
+     *
+     * @param yaml YAML concept map
+     * @param file Compiled concept map to write
+     * @throws IOException - If the concept map cannot be read or written
+     * @throws IllegalArgumentException - If two coding systems have the same id
+     */
+    public static void compile(InputStream yaml, Path file) throws IOException {
+        write(ObjectMapperUtil.getYAMLInstance().readValue(yaml, CODING_SYSTEMS), file);
+    }
+
+    /**
+     * Writes coding systems as compiled concept map.
+     *
+     * @param codingSystems Coding systems
+     * @param file Compiled concept map to write
+     * @throws IOException - If the file cannot be written
+     * @throws IllegalArgumentException - If two coding systems have the same id
+     */
+    public static void write(Collection<CodingSystem> codingSystems, Path file) throws IOException {
+        // Ordered as the binary search compares the ids
+        Map<byte[], CodingSystem> byId = new TreeMap<>(Arrays::compareUnsigned);
+        for (CodingSystem system : codingSystems) {
+            if (byId.put(system.getId().getBytes(StandardCharsets.UTF_8), system) != null) {
+                throw new IllegalArgumentException("Duplicate coding system id " + system.getId());
+            }
+        }
+
+        List<byte[][]> entries = new ArrayList<>(byId.size());
+        int[] positions = new int[byId.size()];
+        int position = INDEX_START + byId.size() * Integer.BYTES;
+        for (Map.Entry<byte[], CodingSystem> system : byId.entrySet()) {
+            byte[][] entry = { system.getKey(), utf8(system.getValue().getUrl()),
+                    utf8(system.getValue().getDescription()), utf8(system.getValue().getOid()) };
+            positions[entries.size()] = position;
+            for (byte[] value : entry) {
+                position = Math.addExact(position, Integer.BYTES + (value == null ? 0 : value.length));
+            }
+            entries.add(entry);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeInt(entries.size());
+            for (int p : positions) {
+                out.writeInt(p);
+            }
+            for (byte[][] entry : entries) {
+                for (byte[] value : entry) {
+                    if (value == null) {
+                        out.writeInt(-1);
+                    } else {
+                        out.writeInt(value.length);
+                        out.write(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param id Coding system id in upper case
+     * @return the coding system or null if the concept map does not have the id
+     */
+    public CodingSystem get(String id) {
+        if (id == null) {
+            return null;
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = buffer.getInt(INDEX_START + mid * Integer.BYTES);
+            int comparison = compareId(position, key);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return read(position);
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Coding systems of the concept map in front of other coding systems, as the additional concept
+     * map overrides the default coding systems. The map is read only; lookups read the compiled
+     * concept map, iterating decodes all of it.
+     *
+     * @param defaults Coding systems by upper case id
+     * @return Coding systems by upper case id
+     */
+    public Map<String, CodingSystem> overlay(Map<String, CodingSystem> defaults) {
+        return new Overlay(this, defaults);
+    }
+
+    private int compareId(int position, byte[] key) {
+        int length = buffer.getInt(position);
+        int start = position + Integer.BYTES;
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int comparison = Integer.compare(Byte.toUnsignedInt(buffer.get(start + i)), Byte.toUnsignedInt(key[i]));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private CodingSystem read(int position) {
+        String[] values = new String[4];
+        int pos = position;
+        for (int i = 0; i < values.length; i++) {
+            int length = buffer.getInt(pos);
+            pos += Integer.BYTES;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                for (int b = 0; b < length; b++) {
+                    bytes[b] = buffer.get(pos + b);
+                }
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+                pos += length;
+            }
+        }
+        return new CodingSystem(values[0], values[2], values[1], values[3]);
+    }
+
+    private Map<String, CodingSystem> readAll() {
+        Map<String, CodingSystem> all = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            CodingSystem system = read(buffer.getInt(INDEX_START + i * Integer.BYTES));
+            all.put(system.getId(), system);
+        }
+        return all;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Overlay extends AbstractMap<String, CodingSystem> {
+        private final CompiledConceptMap compiled;
+        private final Map<String, CodingSystem> defaults;
+
+        private Overlay(CompiledConceptMap compiled, Map<String, CodingSystem> defaults) {
+            this.compiled = compiled;
+            this.defaults = defaults;
+        }
+
+        @Override
+        public CodingSystem get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            CodingSystem system = compiled.get((String) key);
+            return system != null ? system : defaults.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, CodingSystem>> entrySet() {
+            Map<String, CodingSystem> all = new LinkedHashMap<>(defaults);
+            all.putAll(compiled.readAll());
+            return Collections.unmodifiableMap(all).entrySet();
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.terminology;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+
+/**
+ * Bounded cache of the {@link SimpleCode} found by {@link TerminologyLookup}, keyed by the system url
+ * and the code. Codes that are not found are cached as well, the lookup returns a code with no
+ * display for them.
+ *
+ * The cache belongs to the {@link ConverterRegistry}: reloading the registry, and with it the
+ * additional concept map that maps the systems to urls, drops the cache and starts a new one.
+ */
+public final class TerminologyCache {
+
+    // Null if caching is switched off
+    private final Cache<Key, SimpleCode> cache;
+
+    /**
+     * @param maximumSize Maximum number of codes, the least recently used codes are evicted first. 0
+     *        switches caching off.
+     * @param expireAfterSeconds Seconds after which a cached code is looked up again, 0 to keep it
+     *        until it is evicted
+     */
+    public TerminologyCache(long maximumSize, long expireAfterSeconds) {
+        if (maximumSize > 0) {
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+            if (expireAfterSeconds > 0) {
+                builder.expireAfterWrite(expireAfterSeconds, TimeUnit.SECONDS);
+            }
+            this.cache = builder.build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Returns the cached code or looks it up.
+     *
+     * @param systemUrl Url of the coding system
+     * @param code The code
+     * @param lookup Looks the code up when it is not cached
+     * @return a copy of the code, so a caller changing it does not change the cached code
+     */
+    SimpleCode get(String systemUrl, String code, Supplier<SimpleCode> lookup) {
+        if (cache == null) {
+            return lookup.get();
+        }
+        Key key = new Key(systemUrl, code);
+        SimpleCode cached = cache.getIfPresent(key);
+        if (cached == null) {
+            cached = lookup.get();
+            if (cached == null) {
+                return null;
+            }
+            cache.put(key, cached);
+        }
+        return new SimpleCode(cached.getCode(), cached.getSystem(), cached.getDisplay(), cached.getVersion());
+    }
+
+    /**
+     * @return the hits, misses and evictions since the cache was created, all 0 if caching is switched
+     *         off
+     */
+    public TerminologyCacheStats getStats() {
+        if (cache == null) {
+            return new TerminologyCacheStats(0, 0, 0);
+        }
+        CacheStats stats = cache.stats();
+        return new TerminologyCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    private static final class Key {
+        private final String systemUrl;
+        private final String code;
+
+        private Key(String systemUrl, String code) {
+            this.systemUrl = systemUrl;
+            this.code = code;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return systemUrl.equals(other.systemUrl) && Objects.equals(code, other.code);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * systemUrl.hashCode() + Objects.hashCode(code);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.terminology;
+
+/**
+ * Counters of the {@link TerminologyCache}.
+ */
+public final class TerminologyCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    public TerminologyCacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of lookups passed to the terminology service
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of codes evicted because the cache was full or the code expired
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return ratio of lookups answered from the cache, 1.0 if there was no lookup
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TerminologyCacheStats[hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount="
+                + evictionCount + "]";
+    }
+
+}
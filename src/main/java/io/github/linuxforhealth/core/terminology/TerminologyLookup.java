@@ -1,11 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package io.github.linuxforhealth.core.terminology;
 
 import java.util.Map;
+
 import com.google.common.collect.ImmutableMap;
 import com.ibm.fhir.model.resource.CodeSystem;
 import com.ibm.fhir.model.type.Code;
@@ -14,6 +15,8 @@ import com.ibm.fhir.registry.FHIRRegistry;
 import com.ibm.fhir.term.service.FHIRTermService;
 import com.ibm.fhir.term.service.LookupOutcome;
 
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+
 public class TerminologyLookup {
 
     private static final FHIRRegistry REGISTRY = FHIRRegistry.getInstance();
@@ -25,36 +28,52 @@ public class TerminologyLookup {
     private TerminologyLookup() {
     }
 
+    /**
+     * Looks the code up in the terminology service. The result is cached, see
+     * {@link TerminologyCache}.
+     *
+     * @param system Coding system id or url
+     * @param value The code
+     * @return the code with its display, the code with a null display if the system is registered
+     *         but does not have the code, the code with an empty display if the system is not
+     *         registered, or null if the system is unknown
+     */
     public static SimpleCode lookup(String system, String value) {
         String codingSystemName = system;
         if (alternativeCodingSystemMapping.containsKey(system)) {
             codingSystemName = alternativeCodingSystemMapping.get(system);
         }
-        Uri url = getSystemUrl(codingSystemName);
+        String url = UrlLookup.getSystemUrl(codingSystemName);
+        if (url == null) {
+            return null;
+        }
+        return ConverterRegistry.getInstance().getTerminologyCache().get(url, value,
+                () -> lookup(Uri.uri(url), value));
+    }
 
-        if (url != null) {
-            Code c = Code.of(value);
-            LookupOutcome outcome = TERMINOLOGY_SEVICE.lookup(url, null, c);
-            if (outcome != null && outcome.getDisplay() != null) {
-                return new SimpleCode(value, url.getValue(), outcome.getDisplay().getValue());
-            } else {
-                // Failed to find the code. Is it a registered URL?
-                CodeSystem s = null;
-                s = REGISTRY.getResource(url.getValue(), CodeSystem.class);
-                if (s != null && s.getUrl() != null) {
-                    // If registered system, then it was a bad code 
-                    return new SimpleCode(value, url.getValue(), null);
-                }
-                // Else system known to us but not registered, so we can't tell goodness of code
-                return new SimpleCode(value, url.getValue(), "");
+    private static SimpleCode lookup(Uri url, String value) {
+        Code c = Code.of(value);
+        LookupOutcome outcome = TERMINOLOGY_SEVICE.lookup(url, null, c);
+        if (outcome != null && outcome.getDisplay() != null) {
+            return new SimpleCode(value, url.getValue(), outcome.getDisplay().getValue());
+        } else {
+            // Failed to find the code. Is it a registered URL?
+            CodeSystem s = null;
+            s = REGISTRY.getResource(url.getValue(), CodeSystem.class);
+            if (s != null && s.getUrl() != null) {
+                // If registered system, then it was a bad code 
+                return new SimpleCode(value, url.getValue(), null);
             }
+            // Else system known to us but not registered, so we can't tell goodness of code
+            return new SimpleCode(value, url.getValue(), "");
         }
-        return null;
     }
 
-    private static Uri getSystemUrl(String value) {
-        String sys = UrlLookup.getSystemUrl(value);
-        return (sys != null) ? Uri.uri(sys) : null;
+    /**
+     * @return counters of the cache of the current {@link ConverterRegistry}
+     */
+    public static TerminologyCacheStats getCacheStats() {
+        return ConverterRegistry.getInstance().getTerminologyCache().getStats();
     }
 
     public static void init() {
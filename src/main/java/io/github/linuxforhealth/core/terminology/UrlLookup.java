@@ -1,42 +1,25 @@
 /*
- * (C) Copyright IBM Corp. 2020, 2021
+ * (C) Copyright IBM Corp. 2020, 2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package io.github.linuxforhealth.core.terminology;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-
 import io.github.linuxforhealth.core.Constants;
-import io.github.linuxforhealth.core.ObjectMapperUtil;
-import io.github.linuxforhealth.core.config.ConverterConfiguration;
-import io.github.linuxforhealth.hl7.resource.ResourceReader;
+import io.github.linuxforhealth.core.config.ConverterRegistry;
 
 /**
  * Utility class for mapping HL7 codes from tables
  * 
- * Load tables from files into a cache; provides lookup capability.
+ * The tables are loaded from files with the {@link ConverterRegistry}; provides lookup capability.
  * Use Constants (EXTENSION_URL_MAPPING, CODING_SYSTEM_MAPPING) for urlType.
  */
 public class UrlLookup {
 
-    static Map<String, Map<String, CodingSystem>> urlMaps = new HashMap<>(); // key is urlType
-    static Map<String, String> urlMappingPaths; // key=urlType, value=resource mapping path
-    static {
-        urlMappingPaths = new HashMap<>();
-        urlMappingPaths.put(Constants.CODING_SYSTEM_MAPPING, Constants.CODING_SYSTEM_MAPPING_PATH);
-        urlMappingPaths.put(Constants.EXTENSION_URL_MAPPING, Constants.EXTENSION_URL_MAPPING_PATH);
-    }
-
     /**
      * Get the extension URL
      * 
@@ -83,7 +66,7 @@ public class UrlLookup {
         if (StringUtils.startsWith(value, "http://") || StringUtils.startsWith(value, "https://")
                 || StringUtils.startsWith(value, "urn")) {
             return value;
-        } else if (value != null) {
+        } else if (value != null && urlMap != null) {
             CodingSystem system = urlMap.get(StringUtils.upperCase(value));
             if (system != null) {
                 return system.getUrl();
@@ -93,62 +76,30 @@ public class UrlLookup {
     }
 
     /**
-     * Reloads the urls from the file.
+     * Reloads the urls from the files, see {@link ConverterRegistry#reset()}.
      */
     public static void reset() {
-        urlMaps.clear();
-        getUrlMap(Constants.CODING_SYSTEM_MAPPING);
-        getUrlMap(Constants.EXTENSION_URL_MAPPING);
+        ConverterRegistry.reset();
     }
 
+    /**
+     * Loads the urls if they are not loaded yet.
+     */
     public static void init() {
-        getUrlMap(Constants.CODING_SYSTEM_MAPPING);
-        getUrlMap(Constants.EXTENSION_URL_MAPPING);
+        ConverterRegistry.getInstance();
     }
 
+    /**
+     * Reloads the urls of one url type from the files, see {@link ConverterRegistry#reloadUrlMap(String)}.
+     * 
+     * @param urlType Which mapping type to reload
+     */
     public static void reset(String urlType) {
-        urlMaps.remove(urlType);
-        getUrlMap(urlType);
+        ConverterRegistry.reloadUrlMap(urlType);
     }
 
     private static Map<String, CodingSystem> getUrlMap(String urlKey) {
-        if (urlMaps.get(urlKey) == null) {
-            Map<String, CodingSystem> urls = loadFromFile(urlKey);
-            urls.putAll(loadAdditionalFromFile());
-            urlMaps.put(urlKey, urls);
-        }
-        return urlMaps.get(urlKey);
-    }
-
-    // ConverterConfiguration
-    private static Map<String, CodingSystem> loadFromFile(String urlKey) {
-        TypeReference<List<CodingSystem>> typeRef = new TypeReference<List<CodingSystem>>() {
-        };
-        try {
-            String content = ResourceReader.getInstance().getResourceInHl7Folder(urlMappingPaths.get(urlKey));
-            List<CodingSystem> systems = ObjectMapperUtil.getYAMLInstance().readValue(content, typeRef);
-            return systems.stream().collect(Collectors.toMap(CodingSystem::getId, codeSystem -> codeSystem));
-
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Cannot read extension/ExtensionUrlMapping.yml", e);
-        }
-    }
-
-    private static Map<String, CodingSystem> loadAdditionalFromFile() {
-        TypeReference<List<CodingSystem>> typeRef = new TypeReference<List<CodingSystem>>() {
-        };
-        String filePath = ConverterConfiguration.getInstance().getAdditionalConceptmapFile();
-        if (StringUtils.isNotBlank(filePath)) {
-            try {
-                FileInputStream fis = new FileInputStream(filePath);
-                List<CodingSystem> systems = ObjectMapperUtil.getYAMLInstance().readValue(fis, typeRef);
-                return systems.stream().collect(Collectors.toMap(CodingSystem::getId, codeSystem -> codeSystem));
-
-            } catch (IOException e) {
-                throw new IllegalArgumentException(filePath, e);
-            }
-        }
-        return new HashMap<>();
+        return ConverterRegistry.getInstance().getUrlMap(urlKey);
     }
 
 }
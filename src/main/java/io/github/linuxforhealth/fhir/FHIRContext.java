@@ -9,14 +9,20 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
 import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.IValidatorModule;
@@ -24,13 +30,21 @@ import ca.uhn.fhir.validation.ResultSeverityEnum;
 import ca.uhn.fhir.validation.SingleValidationMessage;
 import ca.uhn.fhir.validation.ValidationResult;
 import io.github.linuxforhealth.core.Constants;
+import io.github.linuxforhealth.core.ObjectMapperUtil;
 
+/**
+ * FHIR context used for the conversion. The context can be shared across threads. HAPI parsers are
+ * not thread safe and are cheap to create, so every use gets a new JSON parser and the context keeps
+ * no per-thread state.
+ *
+ */
 public class FHIRContext {
     private static final Logger LOGGER = LoggerFactory.getLogger(FHIRContext.class);
 
     private static final FhirContext CTX = FhirContext.forR4();
-    private IParser parser;
-    private static FhirValidator validator;
+    private final boolean prettyPrint;
+    // Resource classes the values could not be bound to directly
+    private final Set<Class<?>> jsonBoundClasses = ConcurrentHashMap.newKeySet();
     private boolean validateResource;
     private HashMap<String, String> properties;
     private String zoneIdText;
@@ -45,8 +59,7 @@ public class FHIRContext {
      * 
      */
     public FHIRContext(boolean isPrettyPrint, boolean validateResource, Map<String,String> properties, String zoneIdText) {
-        parser = CTX.newJsonParser();
-        parser.setPrettyPrint(isPrettyPrint);
+        this.prettyPrint = isPrettyPrint;
         this.validateResource = validateResource;
         this.properties = (HashMap<String, String>) properties;
         this.zoneIdText = zoneIdText;
@@ -69,7 +82,7 @@ public class FHIRContext {
     }
 
     public IParser getParser() {
-        return parser;
+        return CTX.newJsonParser().setPrettyPrint(prettyPrint);
     }
 
     public FhirContext getCtx() {
@@ -77,8 +90,7 @@ public class FHIRContext {
     }
 
     public static FhirValidator getValidator() {
-        initValidator();
-        return validator;
+        return ValidatorHolder.VALIDATOR;
     }
 
     public Map<String, String> getProperties() {
@@ -90,7 +102,55 @@ public class FHIRContext {
     }
 
     public String encodeResourceToString(Bundle bundle){
-        return this.parser.encodeResourceToString(bundle);
+        return getParser().encodeResourceToString(bundle);
+    }
+
+    /**
+     * Binds the evaluated resource values to a FHIR resource. The values are bound directly to the
+     * FHIR model. If the direct binding fails the values are serialized to JSON and parsed, and
+     * later resources of the same class are parsed from JSON right away.
+     *
+     * @param resourceClass FHIR resource class
+     * @param values Evaluated resource values
+     * @return FHIR resource
+     */
+    public <T extends Resource> T bindResource(Class<T> resourceClass, Map<String, Object> values) {
+        if (jsonBoundClasses.contains(resourceClass)) {
+            return parseResource(resourceClass, values);
+        }
+        try {
+            return bindDirectly(resourceClass, values);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            // Throws if the values cannot be parsed either, the class is then still bound directly
+            T resource = parseResource(resourceClass, values);
+            if (jsonBoundClasses.add(resourceClass)) {
+                LOGGER.debug("Direct binding failed for resource {}, parsing it from JSON from now on",
+                        resourceClass.getSimpleName(), e);
+            }
+            return resource;
+        }
+    }
+
+    <T extends Resource> T bindDirectly(Class<T> resourceClass, Map<String, Object> values) {
+        return FHIRResourceBinder.bind(getParser(), resourceClass, values);
+    }
+
+    /**
+     * Serializes the evaluated resource values to JSON and parses the JSON to a FHIR resource.
+     *
+     * @param resourceClass FHIR resource class
+     * @param values Evaluated resource values
+     * @return FHIR resource
+     * @throws IllegalArgumentException - if the values cannot be serialized to JSON
+     */
+    public <T extends Resource> T parseResource(Class<T> resourceClass, Map<String, Object> values) {
+        try {
+            String json = ObjectMapperUtil.getJSONInstance().writeValueAsString(values);
+            LOGGER.debug("Parsing resource {} from {}", resourceClass.getSimpleName(), json);
+            return getParser().parseResource(resourceClass, json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Processing exception when serialization", e);
+        }
     }
 
     public void validate(Bundle bundle) {
@@ -120,14 +180,17 @@ public class FHIRContext {
 
     }
 
-    private static void initValidator() {
-        if (validator == null) {
-            validator = CTX.newValidator();
+    // Created on first use, the class initialization publishes the validator to all threads.
+    private static final class ValidatorHolder {
+        private static final FhirValidator VALIDATOR = createValidator();
+
+        private static FhirValidator createValidator() {
+            FhirValidator validator = CTX.newValidator();
             // Create a validation module and register it
             IValidatorModule module = new FhirInstanceValidator(CTX);
             validator.registerValidatorModule(module);
+            return validator;
         }
-
     }
 
 }
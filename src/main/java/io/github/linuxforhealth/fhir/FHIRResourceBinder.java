@@ -0,0 +1,102 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.fhir;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.IJsonLikeParser;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
+import io.github.linuxforhealth.core.ObjectMapperUtil;
+
+/**
+ * Binds the evaluated resource map directly to a HAPI FHIR model object. The map is converted to
+ * a Jackson tree with the same serializers that are used for the JSON text and the tree is handed
+ * to the HAPI JSON parser, so no intermediate JSON string is written or tokenized.
+ *
+ */
+public class FHIRResourceBinder {
+
+    private static final ObjectMapper OBJ_MAPPER = ObjectMapperUtil.getJSONInstance();
+
+    private FHIRResourceBinder() {}
+
+    /**
+     * Binds the resource values to an instance of the resource class.
+     *
+     * @param parser JSON parser of the FHIR context
+     * @param resourceClass FHIR resource class to bind to
+     * @param values Evaluated resource values
+     * @return FHIR resource
+     * @throws DataFormatException - if the values cannot be bound to the resource class
+     * @throws IllegalArgumentException - if the values cannot be converted to a JSON tree
+     */
+    public static <T extends IBaseResource> T bind(IParser parser, Class<T> resourceClass,
+            Map<String, Object> values) {
+        Preconditions.checkArgument(parser instanceof IJsonLikeParser,
+                "Direct binding requires a JSON parser");
+        Preconditions.checkArgument(resourceClass != null, "resourceClass cannot be null");
+        Preconditions.checkArgument(values != null, "values cannot be null");
+
+        JacksonStructure structure = new JacksonStructure();
+        structure.setNativeObject(toTree(values));
+        return ((IJsonLikeParser) parser).parseResource(resourceClass, structure);
+    }
+
+    static ObjectNode toTree(Map<String, Object> values) {
+        ObjectNode tree = OBJ_MAPPER.valueToTree(values);
+        normalizeFloatingPoint(tree);
+        return tree;
+    }
+
+    // The JSON text path writes float and double values with their shortest decimal representation
+    // and HAPI reads them back as BigDecimal. Replace binary floating point nodes the same way so that
+    // for example 0.1f is bound as 0.1 and not as 0.100000001490116.
+    private static void normalizeFloatingPoint(JsonNode node) {
+        if (node instanceof ObjectNode) {
+            ObjectNode objectNode = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (isBinaryFloatingPoint(field.getValue())) {
+                    field.setValue(toDecimalNode(field.getValue()));
+                } else {
+                    normalizeFloatingPoint(field.getValue());
+                }
+            }
+        } else if (node instanceof ArrayNode) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = 0; i < arrayNode.size(); i++) {
+                if (isBinaryFloatingPoint(arrayNode.get(i))) {
+                    arrayNode.set(i, toDecimalNode(arrayNode.get(i)));
+                } else {
+                    normalizeFloatingPoint(arrayNode.get(i));
+                }
+            }
+        }
+    }
+
+    private static boolean isBinaryFloatingPoint(JsonNode node) {
+        return (node.isFloat() || node.isDouble()) && Double.isFinite(node.doubleValue());
+    }
+
+    private static DecimalNode toDecimalNode(JsonNode node) {
+        return new DecimalNode(new BigDecimal(node.numberValue().toString()));
+    }
+
+}
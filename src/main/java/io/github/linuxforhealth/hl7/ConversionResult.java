@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.github.linuxforhealth.hl7;
+
+import org.hl7.fhir.r4.model.Bundle;
+
+import com.google.common.base.Preconditions;
+
+import io.github.linuxforhealth.fhir.FHIRContext;
+
+/**
+ * Result of converting one HL7 message of a stream. Holds either the FHIR bundle or the exception
+ * that stopped the conversion of the message.
+ *
+ */
+public class ConversionResult {
+
+    private final long messageIndex;
+    private final Bundle bundle;
+    private final RuntimeException exception;
+    private final FHIRContext context;
+
+    private ConversionResult(long messageIndex, Bundle bundle, RuntimeException exception,
+            FHIRContext context) {
+        this.messageIndex = messageIndex;
+        this.bundle = bundle;
+        this.exception = exception;
+        this.context = context;
+    }
+
+    static ConversionResult success(long messageIndex, Bundle bundle, FHIRContext context) {
+        Preconditions.checkArgument(bundle != null, "bundle cannot be null");
+        return new ConversionResult(messageIndex, bundle, null, context);
+    }
+
+    static ConversionResult failure(long messageIndex, RuntimeException exception) {
+        Preconditions.checkArgument(exception != null, "exception cannot be null");
+        return new ConversionResult(messageIndex, null, exception, null);
+    }
+
+    /**
+     * Position of the message in the stream, starting with 0.
+     *
+     * @return index of the message
+     */
+    public long getMessageIndex() {
+        return messageIndex;
+    }
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+
+    /**
+     * @return FHIR {@link Bundle} resource or null if the conversion failed
+     */
+    public Bundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * @return exception that stopped the conversion of the message or null if the conversion
+     *         succeeded
+     */
+    public RuntimeException getException() {
+        return exception;
+    }
+
+    /**
+     * Encodes the bundle with the options used for the conversion.
+     *
+     * @return JSON representation of FHIR {@link Bundle} resource or null if the conversion failed
+     */
+    public String getBundleAsJson() {
+        return isSuccess() ? context.encodeResourceToString(bundle) : null;
+    }
+
+}
@@ -13,6 +13,8 @@ import java.util.Map;
 
 import com.google.common.base.Preconditions;
 import io.github.linuxforhealth.core.Constants;
+import io.github.linuxforhealth.core.metrics.ConversionMetricsListener;
+import io.github.linuxforhealth.hl7.expression.ExpressionProfiler;
 
 /**
  * Converts HL7 message to FHIR bundle resource based on the customizable templates.
@@ -28,6 +30,8 @@ public class ConverterOptions {
     private boolean validateResource;
     private String zoneIdText;
     private HashMap<String, String> properties;
+    private ConversionMetricsListener metricsListener;
+    private ExpressionProfiler expressionProfiler;
 
     private ConverterOptions(Builder builder) {
         if (builder.bundleType != null) {
@@ -39,6 +43,8 @@ public class ConverterOptions {
         this.properties = builder.properties;
         this.prettyPrint = builder.prettyPrint;
         this.validateResource = builder.validateResource;
+        this.metricsListener = builder.metricsListener;
+        this.expressionProfiler = builder.expressionProfiler;
     }
 
     public static class Builder {
@@ -47,6 +53,8 @@ public class ConverterOptions {
         private boolean validateResource;
         private String zoneIdText;
         private HashMap<String, String> properties = new HashMap<>();
+        private ConversionMetricsListener metricsListener = ConversionMetricsListener.NO_OP;
+        private ExpressionProfiler expressionProfiler;
 
         public Builder withBundleType(BundleType bundleType) {
             Preconditions.checkArgument(bundleType != null, "Bundle type cannot be null");
@@ -77,6 +85,32 @@ public class ConverterOptions {
             return this;
         }
 
+        /**
+         * Registers a listener that receives the phase timings, resource counts and failure counts of
+         * every converted message.
+         * 
+         * @param metricsListener {@link ConversionMetricsListener}
+         * @return the builder
+         */
+        public Builder withMetricsListener(ConversionMetricsListener metricsListener) {
+            Preconditions.checkArgument(metricsListener != null, "metricsListener cannot be null");
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Records the evaluation count, time and empty results of every template expression into the
+         * profiler. Intended for finding slow templates, expressions are not timed by default.
+         * 
+         * @param expressionProfiler {@link ExpressionProfiler}
+         * @return the builder
+         */
+        public Builder withExpressionProfiler(ExpressionProfiler expressionProfiler) {
+            Preconditions.checkArgument(expressionProfiler != null, "expressionProfiler cannot be null");
+            this.expressionProfiler = expressionProfiler;
+            return this;
+        }
+
         public ConverterOptions build() {
             return new ConverterOptions(this);
         }
@@ -117,4 +151,12 @@ public class ConverterOptions {
         return properties;
     }
 
+    public ConversionMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public ExpressionProfiler getExpressionProfiler() {
+        return expressionProfiler;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.github.linuxforhealth.hl7;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hl7.fhir.r4.model.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+import io.github.linuxforhealth.core.metrics.ConversionMetrics;
+import io.github.linuxforhealth.core.metrics.ConversionPhase;
+import io.github.linuxforhealth.hl7.expression.ExpressionProfiler;
+import io.github.linuxforhealth.hl7.message.HL7MessageEngine;
+
+/**
+ * Converts HL7 messages to FHIR bundle resources on a pool of worker threads.
+ *
+ * The workers share the templates of the {@link ConverterRegistry}. The templates keep no
+ * per-conversion state, so several workers can use a template at the same time. Each worker thread
+ * parses with its own HL7 parser and message engines are shared through the engine cache of the
+ * converter. Close the service to stop the worker threads.
+ *
+ */
+public class HL7ToFHIRConversionService implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HL7ToFHIRConversionService.class);
+    private static final AtomicInteger SERVICE_COUNT = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final BlockingQueue<Worker> workers;
+    private final int poolSize;
+
+    /**
+     * Creates the service with one worker per available processor.
+     *
+     * @throws IllegalStateException - If any issues are encountered when loading the templates.
+     */
+    public HL7ToFHIRConversionService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates the service with the given number of workers.
+     *
+     * @param poolSize Number of worker threads
+     * @throws IllegalStateException - If any issues are encountered when loading the templates.
+     */
+    public HL7ToFHIRConversionService(int poolSize) {
+        Preconditions.checkArgument(poolSize > 0, "poolSize must be greater than 0");
+        this.poolSize = poolSize;
+        this.workers = new ArrayBlockingQueue<>(poolSize);
+        // Created sequentially on the calling thread, the converter initializes shared lookups.
+        for (int i = 0; i < poolSize; i++) {
+            workers.add(new Worker());
+        }
+        this.executor = Executors.newFixedThreadPool(poolSize, new WorkerThreadFactory());
+        LOGGER.info("Started conversion service with {} workers", poolSize);
+    }
+
+    /**
+     * Submits the HL7 message (String data) for conversion into FHIR bundle resource.
+     *
+     * @param hl7MessageData HL7 message to convert
+     * @param options Options for conversion
+     * @return future completed with the JSON representation of FHIR {@link Bundle} resource, or
+     *         completed exceptionally with the conversion failure
+     */
+    public CompletableFuture<String> submit(String hl7MessageData, ConverterOptions options) {
+        return submit(hl7MessageData, options,
+                (engine, bundle) -> engine.getFHIRContext().encodeResourceToString(bundle));
+    }
+
+    /**
+     * Submits the HL7 message (String data) for conversion into FHIR bundle resource.
+     *
+     * @param hl7MessageData HL7 message to convert
+     * @param options Options for conversion
+     * @return future completed with the FHIR {@link Bundle} resource, or completed exceptionally with
+     *         the conversion failure
+     */
+    public CompletableFuture<Bundle> submitToBundle(String hl7MessageData, ConverterOptions options) {
+        return submit(hl7MessageData, options, (engine, bundle) -> bundle);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    private <T> CompletableFuture<T> submit(String hl7MessageData, ConverterOptions options,
+            BiFunction<HL7MessageEngine, Bundle, T> output) {
+        Preconditions.checkArgument(StringUtils.isNotBlank(hl7MessageData),
+                "Input HL7 message cannot be blank");
+        Preconditions.checkArgument(options != null, "options cannot be null.");
+        return CompletableFuture.supplyAsync(() -> {
+            // There are as many workers as threads, a worker is always available.
+            Worker worker = workers.poll();
+            Preconditions.checkState(worker != null, "No conversion worker available");
+            ConversionMetrics metrics = ConversionMetrics.start(options.getMetricsListener());
+            Bundle bundle = null;
+            boolean success = false;
+            try (ExpressionProfiler.Scope profiling = ExpressionProfiler.activate(options.getExpressionProfiler())) {
+                HL7MessageEngine engine = HL7ToFHIRConverter.getMessageEngine(options);
+                bundle = worker.converter.convertToBundle(hl7MessageData, engine, metrics);
+                if (bundle == null) {
+                    throw new IllegalStateException("Error transforming HL7 message.");
+                }
+                long start = metrics.startPhase();
+                T result = output.apply(engine, bundle);
+                metrics.stopPhase(ConversionPhase.ENCODING, start);
+                success = true;
+                return result;
+            } finally {
+                workers.add(worker);
+                metrics.finish(bundle, success);
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops accepting new messages and waits for the submitted messages to complete. The parsers of
+     * the worker threads are released with the threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Worker {
+        private final HL7ToFHIRConverter converter = new HL7ToFHIRConverter();
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final int serviceId = SERVICE_COUNT.incrementAndGet();
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "hl7-fhir-converter-" + serviceId + "-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+}
@@ -9,9 +9,9 @@ package io.github.linuxforhealth.hl7;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -25,14 +25,17 @@ import com.google.common.base.Preconditions;
 import ca.uhn.hl7v2.HL7Exception;
 import ca.uhn.hl7v2.model.Message;
 import ca.uhn.hl7v2.util.Hl7InputStreamMessageStringIterator;
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+import io.github.linuxforhealth.core.metrics.ConversionMetrics;
+import io.github.linuxforhealth.core.metrics.ConversionPhase;
 import io.github.linuxforhealth.core.terminology.TerminologyLookup;
 import io.github.linuxforhealth.core.terminology.UrlLookup;
-import io.github.linuxforhealth.fhir.FHIRContext;
+import io.github.linuxforhealth.hl7.expression.ExpressionProfiler;
 import io.github.linuxforhealth.hl7.message.HL7MessageEngine;
 import io.github.linuxforhealth.hl7.message.HL7MessageModel;
 import io.github.linuxforhealth.hl7.parsing.HL7DataExtractor;
 import io.github.linuxforhealth.hl7.parsing.HL7HapiParser;
-import io.github.linuxforhealth.hl7.resource.ResourceReader;
+import io.github.linuxforhealth.hl7.parsing.ReferencedSegmentFilter;
 
 /**
  * Converts HL7 message to FHIR bundle resource based on the customizable templates.
@@ -40,19 +43,22 @@ import io.github.linuxforhealth.hl7.resource.ResourceReader;
  * @author pbhallam
  */
 public class HL7ToFHIRConverter {
-    private static HL7HapiParser hparser = new HL7HapiParser();
+    private static final MessageEngineCache engines = new MessageEngineCache();
     private static final Logger LOGGER = LoggerFactory.getLogger(HL7ToFHIRConverter.class);
-    private Map<String, HL7MessageModel> messagetemplates = new HashMap<>();
 
     /**
      * Constructor initialized all the templates used for converting the HL7 to FHIR bundle resource.
+     * With template.loading set to lazy each template is initialized on the first conversion of a
+     * message of its type instead. The templates belong to the {@link ConverterRegistry}, each
+     * conversion uses the templates of the registry published when it starts, so a converter picks
+     * up reloaded templates.
      * 
      * @throws IllegalStateException - If any issues are encountered when loading the templates.
      */
     public HL7ToFHIRConverter() {
 
         try {
-            messagetemplates.putAll(ResourceReader.getInstance().getMessageTemplates());
+            ConverterRegistry.getInstance().getMessageTemplates();
             TerminologyLookup.init();
             UrlLookup.init();
         } catch (IllegalArgumentException e) {
@@ -116,10 +122,21 @@ public class HL7ToFHIRConverter {
      * @throws UnsupportedOperationException - if message type is not supported
      */
     public String convert(String hl7MessageData, ConverterOptions options) {
-
+        Preconditions.checkArgument(StringUtils.isNotBlank(hl7MessageData),
+                "Input HL7 message cannot be blank");
         HL7MessageEngine engine = getMessageEngine(options);
-        Bundle bundle = convertToBundle(hl7MessageData, options, engine);
-        return engine.getFHIRContext().encodeResourceToString(bundle);
+        ConversionMetrics metrics = ConversionMetrics.start(options.getMetricsListener());
+        Bundle bundle = null;
+        String json = null;
+        try (ExpressionProfiler.Scope profiling = ExpressionProfiler.activate(options.getExpressionProfiler())) {
+            bundle = convertToBundle(hl7MessageData, engine, metrics);
+            long start = metrics.startPhase();
+            json = engine.getFHIRContext().encodeResourceToString(bundle);
+            metrics.stopPhase(ConversionPhase.ENCODING, start);
+            return json;
+        } finally {
+            metrics.finish(bundle, json != null);
+        }
     }
 
     /**
@@ -138,76 +155,169 @@ public class HL7ToFHIRConverter {
             engine = getMessageEngine(options);
         }
 
+        ConversionMetrics metrics = ConversionMetrics
+                .start(options != null ? options.getMetricsListener() : null);
+        Bundle bundle = null;
+        try (ExpressionProfiler.Scope profiling = ExpressionProfiler
+                .activate(options != null ? options.getExpressionProfiler() : null)) {
+            bundle = convertToBundle(hl7MessageData, engine, metrics);
+            return bundle;
+        } finally {
+            metrics.finish(bundle, bundle != null);
+        }
+    }
 
-        Message hl7message = getHl7Message(hl7MessageData);
-        if (hl7message != null) {
-            String messageType = HL7DataExtractor.getMessageType(hl7message);
-            HL7MessageModel hl7MessageTemplateModel = messagetemplates.get(messageType);
+    // Converts the first message of the data, recording the phases in the metrics.
+    Bundle convertToBundle(String hl7MessageData, HL7MessageEngine engine, ConversionMetrics metrics) {
+        // The message is parsed for the template it is converted with
+        try (ConverterRegistry.Scope scope = ConverterRegistry.getInstance().pin()) {
+            Message hl7message = getHl7Message(HL7HapiParser.forCurrentThread(), hl7MessageData, metrics);
+            if (hl7message != null) {
+                return convertToBundle(hl7message, engine, metrics);
+            } else {
+                throw new IllegalArgumentException("Parsed HL7 message was null.");
+            }
+        }
+    }
+
+    /**
+     * Converts every HL7 message in the input stream into a FHIR bundle resource. The messages are
+     * read, converted and passed to the consumer one at a time, so the stream is never held in memory
+     * as a whole. The HL7 parser of the current thread and one message engine are reused for all the
+     * messages of the stream.
+     * A message that cannot be converted results in a failed {@link ConversionResult} and the
+     * conversion continues with the next message.
+     *
+     * @param hl7MessageStream Stream of concatenated HL7 messages, UTF-8 encoded
+     * @param options Options for conversion
+     * @param resultConsumer Consumer of the result of each message, in stream order
+     * @return number of messages read from the stream
+     */
+    public long convertAll(InputStream hl7MessageStream, ConverterOptions options,
+            Consumer<ConversionResult> resultConsumer) {
+        Preconditions.checkArgument(hl7MessageStream != null, "Input HL7 message stream cannot be null.");
+        Preconditions.checkArgument(resultConsumer != null, "resultConsumer cannot be null.");
+        HL7MessageEngine engine = getMessageEngine(options);
+        HL7HapiParser parser = HL7HapiParser.forCurrentThread();
+        long messageIndex = 0;
+        try (ExpressionProfiler.Scope profiling = ExpressionProfiler.activate(options.getExpressionProfiler())) {
+            Hl7InputStreamMessageStringIterator iterator = new Hl7InputStreamMessageStringIterator(
+                    new InputStreamReader(hl7MessageStream, StandardCharsets.UTF_8));
+            while (iterator.hasNext()) {
+                String hl7MessageData = iterator.next();
+                ConversionMetrics metrics = ConversionMetrics.start(options.getMetricsListener());
+                ConversionResult result;
+                Bundle bundle = null;
+                try (ConverterRegistry.Scope scope = ConverterRegistry.getInstance().pin()) {
+                    Message hl7message = parse(parser, hl7MessageData, metrics);
+                    logMessageStructure(hl7message, metrics);
+                    bundle = convertToBundle(hl7message, engine, metrics);
+                    if (bundle == null) {
+                        throw new IllegalStateException("Error transforming HL7 message.");
+                    }
+                    result = ConversionResult.success(messageIndex, bundle, engine.getFHIRContext());
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failure to convert message {} of the stream", messageIndex);
+                    LOGGER.debug("Failure to convert message {} of the stream", messageIndex, e);
+                    result = ConversionResult.failure(messageIndex, e);
+                }
+                metrics.finish(bundle, result.isSuccess());
+                resultConsumer.accept(result);
+                messageIndex++;
+            }
+        }
+        return messageIndex;
+    }
+
+    private Bundle convertToBundle(Message hl7message, HL7MessageEngine engine, ConversionMetrics metrics) {
+        String messageType = HL7DataExtractor.getMessageType(hl7message);
+        metrics.setMessageType(messageType);
+        // The whole conversion uses one registry, even if a reload publishes a new one meanwhile
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        try (ConverterRegistry.Scope scope = registry.pin()) {
+            HL7MessageModel hl7MessageTemplateModel = registry.getMessageTemplates().get(messageType);
             if (hl7MessageTemplateModel != null) {
-                return hl7MessageTemplateModel.convert(hl7message, engine);
+                return hl7MessageTemplateModel.convert(hl7message, engine, metrics);
             } else {
                 throw new UnsupportedOperationException("Message type not yet supported " + messageType);
             }
-        } else {
-            throw new IllegalArgumentException("Parsed HL7 message was null.");
         }
     }
 
-    private HL7MessageEngine getMessageEngine(ConverterOptions options){
-        Preconditions.checkArgument(options != null, "options cannot be null.");
-        FHIRContext context = new FHIRContext(options.isPrettyPrint(), options.isValidateResource(), options.getProperties(), options.getZoneIdText());
-
-        return new HL7MessageEngine(context, options.getBundleType());
+    static HL7MessageEngine getMessageEngine(ConverterOptions options){
+        // Engines are shared by all converters and reused for equal options
+        return engines.get(options);
     }
 
-    private static Message getHl7Message(String data) {
+    private static Message getHl7Message(HL7HapiParser parser, String data, ConversionMetrics metrics) {
         Message hl7message = null;
         try (InputStream ins = IOUtils.toInputStream(data, StandardCharsets.UTF_8)) {
             Hl7InputStreamMessageStringIterator iterator = new Hl7InputStreamMessageStringIterator(ins);
             // only supports single message conversion.
             if (iterator.hasNext()) {
 
-                hl7message = hparser.getParser().parse(iterator.next());
+                hl7message = parse(parser, iterator.next(), metrics);
             }
-        } catch (HL7Exception e) {
-            throw new IllegalArgumentException("Cannot parse the message.", e);
         } catch (IOException ioe) {
             throw new IllegalArgumentException("IOException encountered.", ioe);
         }
 
+        if (hl7message != null) {
+            logMessageStructure(hl7message, metrics);
+        }
+        return hl7message;
+    }
+
+    private static Message parse(HL7HapiParser parser, String hl7MessageData, ConversionMetrics metrics) {
+        long start = metrics.startPhase();
         try {
-            if (hl7message != null) {
-                String messageStructureInfo = hl7message.printStructure();
-                StringBuilder output = new StringBuilder();
-                String[] messageStructureInfoLines = messageStructureInfo.split(System.getProperty("line.separator"));
-                for (String line : messageStructureInfoLines) {
-                    if (!line.contains("|")) {
-                        output.append(line);
-                    } else {
-                        int firstDash = line.indexOf("-");
-                        // Added fail-safe check if the content after "-" is less than 5 characters
-                        int lastContentIndex = Math.min(firstDash + 5, line.length());
-                        output.append(line.substring(0, lastContentIndex));
-                    }
-                    output.append("\n");
-                }
-                if (output.length() > 0) {
-                    LOGGER.info("HL7_MESSAGE_STRUCTURE=\n{}", output);
-                }
-            }
+            return parser.getParser().parse(filterSegments(hl7MessageData));
         } catch (HL7Exception e) {
-            throw new IllegalArgumentException("Error printing message structure.", e);
+            throw new IllegalArgumentException("Cannot parse the message.", e);
+        } finally {
+            metrics.stopPhase(ConversionPhase.PARSE, start);
         }
-        return hl7message;
     }
 
-    private static void close(HL7HapiParser hparser) {
-        if (hparser != null) {
-            try {
-                hparser.getContext().close();
-            } catch (IOException e) {
-                throw new IllegalStateException("Failure to close HL7 parser.", e);
+    // With parse.referenced.segments.only, HAPI parses only the fields of the segments the template of
+    // the message type reads
+    private static String filterSegments(String hl7MessageData) {
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        if (!registry.getConfiguration().isParseReferencedSegmentsOnly()) {
+            return hl7MessageData;
+        }
+        HL7MessageModel template = registry.getMessageTemplates()
+                .get(ReferencedSegmentFilter.getMessageType(hl7MessageData));
+        if (template == null) {
+            return hl7MessageData;
+        }
+        return ReferencedSegmentFilter.filter(hl7MessageData, template.getReferencedSegments());
+    }
+
+    private static void logMessageStructure(Message hl7message, ConversionMetrics metrics) {
+        long start = metrics.startPhase();
+        try {
+            String messageStructureInfo = hl7message.printStructure();
+            StringBuilder output = new StringBuilder();
+            String[] messageStructureInfoLines = messageStructureInfo.split(System.getProperty("line.separator"));
+            for (String line : messageStructureInfoLines) {
+                if (!line.contains("|")) {
+                    output.append(line);
+                } else {
+                    int firstDash = line.indexOf("-");
+                    // Added fail-safe check if the content after "-" is less than 5 characters
+                    int lastContentIndex = Math.min(firstDash + 5, line.length());
+                    output.append(line.substring(0, lastContentIndex));
+                }
+                output.append("\n");
             }
+            if (output.length() > 0) {
+                LOGGER.info("HL7_MESSAGE_STRUCTURE=\n{}", output);
+            }
+        } catch (HL7Exception e) {
+            throw new IllegalArgumentException("Error printing message structure.", e);
+        } finally {
+            metrics.stopPhase(ConversionPhase.LOG_STRUCTURE, start);
         }
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.github.linuxforhealth.hl7;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.github.linuxforhealth.fhir.FHIRContext;
+import io.github.linuxforhealth.hl7.message.HL7MessageEngine;
+
+/**
+ * Bounded cache of {@link HL7MessageEngine} instances keyed by the effective {@link ConverterOptions}
+ * (bundle type, pretty print, validate, zone id and properties). Options that are equal but are
+ * different instances share the same engine. The engines are safe to share across threads and the
+ * cache itself is thread safe. When the maximum size is reached the least recently used engine is
+ * evicted.
+ *
+ */
+class MessageEngineCache {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 32;
+
+    private final Cache<Key, HL7MessageEngine> engines;
+
+    MessageEngineCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    MessageEngineCache(int maximumSize) {
+        Preconditions.checkArgument(maximumSize > 0, "maximumSize must be greater than 0");
+        this.engines = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Returns the engine for the options, creating it if there is no engine for equal options yet.
+     *
+     * @param options Options for conversion
+     * @return HL7MessageEngine
+     */
+    HL7MessageEngine get(ConverterOptions options) {
+        Preconditions.checkArgument(options != null, "options cannot be null.");
+        Key key = new Key(options);
+        try {
+            return engines.get(key, () -> createEngine(key));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException("Failure to create the message engine.", e.getCause());
+        }
+    }
+
+    long size() {
+        engines.cleanUp();
+        return engines.size();
+    }
+
+    void invalidateAll() {
+        engines.invalidateAll();
+    }
+
+    private static HL7MessageEngine createEngine(Key key) {
+        FHIRContext context = new FHIRContext(key.prettyPrint, key.validateResource,
+                new HashMap<>(key.properties), key.zoneIdText);
+        return new HL7MessageEngine(context, key.bundleType);
+    }
+
+    // Snapshot of the options, the properties of ConverterOptions are mutable.
+    private static final class Key {
+        private final BundleType bundleType;
+        private final boolean prettyPrint;
+        private final boolean validateResource;
+        private final String zoneIdText;
+        private final Map<String, String> properties;
+
+        private Key(ConverterOptions options) {
+            this.bundleType = options.getBundleType();
+            this.prettyPrint = options.isPrettyPrint();
+            this.validateResource = options.isValidateResource();
+            this.zoneIdText = options.getZoneIdText();
+            this.properties = ImmutableMap.copyOf(options.getProperties());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return prettyPrint == other.prettyPrint && validateResource == other.validateResource
+                    && bundleType == other.bundleType && Objects.equals(zoneIdText, other.zoneIdText)
+                    && properties.equals(other.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bundleType, prettyPrint, validateResource, zoneIdText, properties);
+        }
+    }
+
+}
@@ -5,7 +5,10 @@
  */
 package io.github.linuxforhealth.hl7.data;
 
-import org.apache.commons.lang3.EnumUtils;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
 
 
 public enum SimpleDataTypeMapper {
@@ -80,6 +83,16 @@ public enum SimpleDataTypeMapper {
   CONTACT_POINT_SYSTEM(SimpleDataValueResolver.CONTACT_POINT_SYSTEM),
   CONTACT_POINT_USE(SimpleDataValueResolver.CONTACT_POINT_USE);
 
+  // Lookup by upper case name, built once instead of scanning the constants on every lookup
+  private static final Map<String, SimpleDataTypeMapper> MAPPERS;
+  static {
+    ImmutableMap.Builder<String, SimpleDataTypeMapper> builder = ImmutableMap.builder();
+    for (SimpleDataTypeMapper mapper : values()) {
+      builder.put(mapper.name(), mapper);
+    }
+    MAPPERS = builder.build();
+  }
+
   private ValueExtractor<Object, ?> valueResolver;
 
   SimpleDataTypeMapper(ValueExtractor<Object, ?> valueResolver) {
@@ -90,7 +103,8 @@ public enum SimpleDataTypeMapper {
   public static ValueExtractor<Object, ?> getValueResolver(String enumName) {
 
 
-    SimpleDataTypeMapper mapper = EnumUtils.getEnumIgnoreCase(SimpleDataTypeMapper.class, enumName);
+    SimpleDataTypeMapper mapper =
+        enumName != null ? MAPPERS.get(enumName.toUpperCase(Locale.ROOT)) : null;
     if (mapper != null) {
       return mapper.valueResolver;
     }
@@ -16,8 +16,10 @@ import java.time.format.DateTimeParseException;
 import java.time.temporal.Temporal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TimeZone;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
@@ -27,11 +29,26 @@ import io.github.linuxforhealth.core.config.ConverterConfiguration;
 
 public class DateUtil {
     private static final Logger LOGGER = LoggerFactory.getLogger(DateUtil.class);
+    private static final Map<String, Optional<ZoneId>> ZONE_IDS = new ConcurrentHashMap<>();
 
     private DateUtil() {
     }
 
     public static String formatToDate(String input) {
+        DtmScanner dtm = DtmScanner.scan(input);
+        if (dtm == null) {
+            return formatToDateWithFormatter(input);
+        }
+        String date = dtm.formatDate();
+        if (date == null) {
+            LOGGER.warn("Input value cannot be formatted to LocalDate.");
+            LOGGER.debug("Input value cannot be formatted to LocalDate {}", input);
+        }
+        return date;
+    }
+
+    // Formats a value outside of the DTM format with the formatter of DateFormats.
+    static String formatToDateWithFormatter(String input) {
         DateTimeFormatter format = null;
         for (Entry<Pattern, DateTimeFormatter> pattern : DateFormats.getDatePatternsInstance()
                 .entrySet()) {
@@ -64,6 +81,29 @@ public class DateUtil {
     // If it has no ZoneId, and not RTO, and no config ZoneId, use the local timezone (of the server).
     // This method is often called with zoneId of null or empty ""
     public static String formatToDateTimeWithZone(String input, String zoneId) {
+        DtmScanner dtm = DtmScanner.scan(input);
+        if (dtm == null) {
+            return formatToDateTimeWithFormatter(input, zoneId);
+        }
+        ZoneId zone = null;
+        if (dtm.needsZone()) {
+            zone = getZoneId(zoneId);
+            if (zone == null) {
+                LOGGER.warn("No default zone set, cannot convert LocalDateTime to ZonedDateTime");
+                LOGGER.debug("No default zone set, cannot convert LocalDateTime to ZonedDateTime, input {} ", input);
+                return null;
+            }
+        }
+        String dateTime = dtm.formatDateTime(zone);
+        if (dateTime == null) {
+            LOGGER.warn("Date parsing failure for value.");
+            LOGGER.debug("Date parsing failure for value {}", input);
+        }
+        return dateTime;
+    }
+
+    // Formats a value outside of the DTM format with the formatter of DateFormats.
+    static String formatToDateTimeWithFormatter(String input, String zoneId) {
         String returnValue = getLocalDate(input);
         if (returnValue == null) {
             returnValue = getZonedDate(input);
@@ -78,22 +118,8 @@ public class DateUtil {
     private static String getLocalDateTimeWithZone(String input, String zoneIdText) {
         try {
             LocalDateTime ldt = LocalDateTime.parse(input, DateFormats.getFormatterInstance());
-            // Attempt to recognize the input zoneIdText, if it is not null
-            ZoneId zone = zoneIdText != null ? getZoneIdFromText(zoneIdText) : null;
-            // Warn if we've got a non-null non-empty string that we can't convert
-            if (zoneIdText != null && (!zoneIdText.isEmpty() && zone == null)){
-                LOGGER.warn("Input zoneId not recognized.  Using default Zone.");
-                LOGGER.debug("Input zoneId '{}' not recognized.  Using default Zone.", zoneIdText);
-            }
-            // If there is no valid input zoneId, use the config.properties zoneId
-            if (zone == null) {
-                zone = ConverterConfiguration.getInstance().getZoneId();
-            }
-            // If there is no Configured ZoneId, use the default of the server.
-            if (zone == null) {
-                zone = getZoneIdFromText(TimeZone.getDefault().getID());
-            }
-            // One of the above should have provided a zone.
+            ZoneId zone = getZoneId(zoneIdText);
+            // One of the zones should have been provided.
             if (zone != null) {
                 return ldt.atZone(zone).format(DateFormats.FHIR_ZONE_DATE_TIME_FORMAT);
             } else {
@@ -108,15 +134,38 @@ public class DateUtil {
         }
     }
 
-    private static ZoneId getZoneIdFromText(String zoneIdText){
+    private static ZoneId getZoneId(String zoneIdText) {
+        // Attempt to recognize the input zoneIdText, if it is not null
+        ZoneId zone = zoneIdText != null ? getZoneIdFromText(zoneIdText) : null;
+        // Warn if we've got a non-null non-empty string that we can't convert
+        if (zoneIdText != null && (!zoneIdText.isEmpty() && zone == null)){
+            LOGGER.warn("Input zoneId not recognized.  Using default Zone.");
+            LOGGER.debug("Input zoneId '{}' not recognized.  Using default Zone.", zoneIdText);
+        }
+        // If there is no valid input zoneId, use the config.properties zoneId
+        if (zone == null) {
+            zone = ConverterConfiguration.getInstance().getZoneId();
+        }
+        // If there is no Configured ZoneId, use the default of the server.
+        if (zone == null) {
+            zone = getZoneIdFromText(TimeZone.getDefault().getID());
+        }
+        return zone;
+    }
+
+    // The same few zone ids are looked up for every date time, the text is parsed and reported once.
+    private static ZoneId getZoneIdFromText(String zoneIdText) {
+        return ZONE_IDS.computeIfAbsent(zoneIdText, DateUtil::createZoneId).orElse(null);
+    }
+
+    private static Optional<ZoneId> createZoneId(String zoneIdText) {
         try {
-            return ZoneId.of(zoneIdText);
-          } catch (DateTimeException e) {
+            return Optional.of(ZoneId.of(zoneIdText));
+        } catch (DateTimeException e) {
             LOGGER.warn("Cannot create ZoneId");
             LOGGER.debug("Cannot create ZoneId from :" + zoneIdText, e);
-            // Leave zoneId as it was.
-          }
-        return null;
+        }
+        return Optional.empty();
     }
 
     // Matches an input string to a local date using the known patterns
@@ -0,0 +1,253 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.data.date;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Single pass scanner of the HL7 DTM format YYYY[MM[DD[HH[MM[SS[.S[S[S[S]]]]]]]]][+/-ZZZZ].
+ *
+ * The scanner reads the precision, the fraction and the offset of the value in one pass over the
+ * characters and formats the FHIR date or dateTime directly, without regular expressions or parse
+ * exceptions. Field values are resolved the way the formatter of {@link DateFormats} resolves
+ * them: a day past the end of the month is the last day of the month and the hour 24 with no
+ * minutes or seconds is midnight of the next day.
+ *
+ * A value outside of the DTM format, for instance an odd number of digits, is not scanned and
+ * stays with the formatter of {@link DateFormats}.
+ */
+final class DtmScanner {
+    // Number of digits of each precision
+    private static final int YEAR = 4;
+    private static final int MONTH = 6;
+    private static final int DAY = 8;
+    private static final int HOUR = 10;
+    private static final int MINUTE = 12;
+    private static final int SECOND = 14;
+
+    private static final int MAX_FRACTION = 4;
+    private static final int OFFSET_LENGTH = 5;
+    // Range of ZoneOffset
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+
+    private final int precision;
+    // Null if a field is out of range
+    private final LocalDateTime dateTime;
+    private final boolean hasOffset;
+    // False if the offset hours are over 23 or the minutes over 59, the formatter does not read them
+    private final boolean offsetReadable;
+    // Null if there is no offset or it is out of the range of ZoneOffset
+    private final ZoneOffset offset;
+
+    private DtmScanner(int precision, LocalDateTime dateTime, boolean hasOffset, boolean offsetReadable,
+            ZoneOffset offset) {
+        this.precision = precision;
+        this.dateTime = dateTime;
+        this.hasOffset = hasOffset;
+        this.offsetReadable = offsetReadable;
+        this.offset = offset;
+    }
+
+    /**
+     * Scans a DTM value.
+     *
+     * @param input The HL7 value
+     * @return the scanned value, which may have fields out of range, or null if the input is not in
+     *         the DTM format
+     */
+    static DtmScanner scan(String input) {
+        if (input == null) {
+            return null;
+        }
+        int length = input.length();
+        int digits = countDigits(input, 0);
+        if (digits < YEAR || digits > SECOND || digits % 2 != 0) {
+            return null;
+        }
+        int pos = digits;
+        int nano = 0;
+        if (pos < length && input.charAt(pos) == '.') {
+            int fraction = countDigits(input, pos + 1);
+            if (digits != SECOND || fraction == 0 || fraction > MAX_FRACTION) {
+                return null;
+            }
+            nano = readNumber(input, pos + 1, fraction);
+            for (int i = fraction; i < 9; i++) {
+                nano *= 10;
+            }
+            pos += fraction + 1;
+        }
+        boolean hasOffset = pos < length;
+        boolean offsetReadable = false;
+        ZoneOffset offset = null;
+        if (hasOffset) {
+            char sign = input.charAt(pos);
+            // Offsets of values with no day are left to the formatter
+            if ((sign != '+' && sign != '-') || digits < DAY || length - pos != OFFSET_LENGTH
+                    || countDigits(input, pos + 1) != OFFSET_LENGTH - 1) {
+                return null;
+            }
+            int hours = readNumber(input, pos + 1, 2);
+            int minutes = readNumber(input, pos + 3, 2);
+            offsetReadable = hours <= 23 && minutes <= 59;
+            int seconds = hours * 3600 + minutes * 60;
+            if (offsetReadable && seconds <= MAX_OFFSET_SECONDS) {
+                offset = ZoneOffset.ofTotalSeconds(sign == '-' ? -seconds : seconds);
+            }
+        }
+        return new DtmScanner(digits, resolve(input, digits, nano), hasOffset, offsetReadable, offset);
+    }
+
+    /**
+     * @return true if the value is a valid date time with no offset, formatted in the zone passed
+     *         to {@link #formatDateTime(ZoneId)}
+     */
+    boolean needsZone() {
+        return dateTime != null && precision >= HOUR && !hasOffset;
+    }
+
+    /**
+     * Formats the value as FHIR date or dateTime with the precision of the value.
+     *
+     * @param zone The zone of a date time with no offset, see {@link #needsZone()}
+     * @return the formatted value or null if the value is not a valid date or date time
+     */
+    String formatDateTime(ZoneId zone) {
+        if (dateTime == null) {
+            return null;
+        } else if (precision < HOUR) {
+            return hasOffset ? null : formatDate(precision);
+        } else if (hasOffset) {
+            return offset == null ? null : formatDateTime(dateTime, offset);
+        }
+        ZonedDateTime zoned = dateTime.atZone(zone);
+        return formatDateTime(zoned.toLocalDateTime(), zoned.getOffset());
+    }
+
+    /**
+     * Formats the date of the value as FHIR date, with the precision of the value up to the day. The
+     * range of the offset is only checked when the value has a time.
+     *
+     * @return the formatted value or null if the value is not a valid date or date time
+     */
+    String formatDate() {
+        if (dateTime == null || hasOffset && (!offsetReadable || precision >= HOUR && offset == null)) {
+            return null;
+        }
+        return formatDate(precision);
+    }
+
+    private String formatDate(int datePrecision) {
+        StringBuilder text = new StringBuilder(10);
+        appendDate(text, dateTime.toLocalDate(), datePrecision);
+        return text.toString();
+    }
+
+    // ISO_OFFSET_DATE_TIME
+    private static String formatDateTime(LocalDateTime dateTime, ZoneOffset offset) {
+        StringBuilder text = new StringBuilder(35);
+        appendDate(text, dateTime.toLocalDate(), DAY);
+        text.append('T');
+        appendTwoDigits(text, dateTime.getHour());
+        text.append(':');
+        appendTwoDigits(text, dateTime.getMinute());
+        text.append(':');
+        appendTwoDigits(text, dateTime.getSecond());
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            text.append('.');
+            String fraction = Integer.toString(nano);
+            for (int i = fraction.length(); i < digits; i++) {
+                text.append('0');
+            }
+            text.append(fraction);
+        }
+        int seconds = offset.getTotalSeconds();
+        if (seconds == 0) {
+            return text.append('Z').toString();
+        }
+        text.append(seconds < 0 ? '-' : '+');
+        seconds = Math.abs(seconds);
+        appendTwoDigits(text, seconds / 3600);
+        text.append(':');
+        appendTwoDigits(text, seconds / 60 % 60);
+        if (seconds % 60 != 0) {
+            text.append(':');
+            appendTwoDigits(text, seconds % 60);
+        }
+        return text.toString();
+    }
+
+    private static void appendDate(StringBuilder text, LocalDate date, int datePrecision) {
+        int year = date.getYear();
+        if (year > 9999) {
+            text.append('+').append(year);
+        } else {
+            appendTwoDigits(text, year / 100);
+            appendTwoDigits(text, year % 100);
+        }
+        if (datePrecision >= MONTH) {
+            text.append('-');
+            appendTwoDigits(text, date.getMonthValue());
+        }
+        if (datePrecision >= DAY) {
+            text.append('-');
+            appendTwoDigits(text, date.getDayOfMonth());
+        }
+    }
+
+    private static void appendTwoDigits(StringBuilder text, int value) {
+        text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // Null if a field is out of range
+    private static LocalDateTime resolve(String input, int digits, int nano) {
+        int year = readNumber(input, 0, 4);
+        int month = digits >= MONTH ? readNumber(input, 4, 2) : 1;
+        int day = digits >= DAY ? readNumber(input, 6, 2) : 1;
+        int hour = digits >= HOUR ? readNumber(input, 8, 2) : 0;
+        int minute = digits >= MINUTE ? readNumber(input, 10, 2) : 0;
+        int second = digits >= SECOND ? readNumber(input, 12, 2) : 0;
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31 || hour > 24 || minute > 59
+                || second > 59 || hour == 24 && (minute != 0 || second != 0 || nano != 0)) {
+            return null;
+        }
+        LocalDate date = LocalDate.of(year, month,
+                Math.min(day, Month.of(month).length(Year.isLeap(year))));
+        if (hour == 24) {
+            return date.plusDays(1).atStartOfDay();
+        }
+        return LocalDateTime.of(year, month, date.getDayOfMonth(), hour, minute, second, nano);
+    }
+
+    private static int countDigits(String input, int start) {
+        int pos = start;
+        while (pos < input.length() && input.charAt(pos) >= '0' && input.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    private static int readNumber(String input, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = value * 10 + input.charAt(i) - '0';
+        }
+        return value;
+    }
+
+}
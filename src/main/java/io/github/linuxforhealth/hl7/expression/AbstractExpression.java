@@ -6,7 +6,9 @@
 package io.github.linuxforhealth.hl7.expression;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -15,7 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.Expression;
 import io.github.linuxforhealth.api.InputDataExtractor;
@@ -28,20 +30,51 @@ import io.github.linuxforhealth.core.exception.DataExtractionException;
 import io.github.linuxforhealth.core.exception.RequiredConstraintFailureException;
 import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.core.expression.VariableUtils;
+import io.github.linuxforhealth.hl7.data.SimpleDataTypeMapper;
+import io.github.linuxforhealth.hl7.data.ValueExtractor;
 import io.github.linuxforhealth.hl7.expression.specification.SpecificationUtil;
 
+/**
+ * Base class of the expressions. An expression is created once per template and shared by every
+ * conversion that uses the template, possibly on several threads at the same time. The expression
+ * only holds the immutable attributes from the template, the state of a single evaluation is kept in
+ * an {@link EvaluationFrame} that is created by {@link #evaluate} and passed along the evaluation
+ * steps. Subclasses must not keep per evaluation state in instance fields either.
+ *
+ */
 public abstract class AbstractExpression implements Expression {
     private static final String RESOURCE = "Resource";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractExpression.class);
 
-    private ExpressionAttributes attr;
-    private String originalContext;
-    private boolean conditionSatisfiedState;
+    private final ExpressionAttributes attr;
+    // Name of the expression in the profiler paths, nested expressions have no name of their own
+    private final String profileName;
+
+    // Resolved once when the template is loaded, see resolveVariables
+    private final List<String> variableNames;
+    private final Map<String, EvaluationResult> constantValues;
 
     public AbstractExpression(ExpressionAttributes attr) {
         this.attr = attr;
+        if (attr != null && attr.getName() == null) {
+            this.profileName = "(" + attr.getExpressionType() + ")";
+        } else {
+            this.profileName = attr != null ? attr.getName() : null;
+        }
+        List<String> names = new ArrayList<>();
+        Map<String, EvaluationResult> constants = new LinkedHashMap<>();
+        if (attr != null) {
+            for (Variable var : attr.getVariables()) {
+                names.add(VariableUtils.getVarName(var.getVariableName()));
+            }
+            attr.getConstants().forEach(
+                    (key, value) -> constants.put(key, EvaluationResultFactory.getEvaluationResult(value)));
+        }
+        this.variableNames = ImmutableList.copyOf(names);
+        this.constantValues = Collections.unmodifiableMap(constants);
     }
 
     @Override
@@ -92,24 +125,26 @@ public abstract class AbstractExpression implements Expression {
         Preconditions.checkArgument(dataSource != null, "dataSource cannot be null");
         Preconditions.checkArgument(contextValues != null, "contextValues cannot be null");
         Preconditions.checkArgument(baseValue != null, "baseValue cannot be null");
-        EvaluationResult result;
+        EvaluationResult result = null;
+        EvaluationFrame frame = new EvaluationFrame(MDC.get(RESOURCE));
+        ExpressionProfiler.Frame profile = ExpressionProfiler.enter(this.profileName);
         try {
-            setLoggingContext();
+            MDC.put(RESOURCE, frame.originalLoggingContext + "-> Field:" + this.getExpressionAttr().getName());
 
             LOGGER.debug("Started Evaluating with baseValue {} expression {} ", baseValue, this);
 
-            Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+            Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(contextValues);
 
             if (!baseValue.isEmpty()) {
                 localContextValues.put(baseValue.getIdentifier(), baseValue);
                 localContextValues.put(Constants.BASE_VALUE_NAME, baseValue);
             }
 
-            result = evaluateValueOfExpression(dataSource, localContextValues, baseValue);
+            result = evaluateValueOfExpression(frame, dataSource, localContextValues, baseValue);
 
             LOGGER.debug("Completed Evaluating returned value  {} ----  for  expression {} ", result, this);
 
-            if (this.conditionSatisfiedState && this.isRequired()
+            if (frame.conditionSatisfied && this.isRequired()
                     && (result == null || result.isEmpty())) {
 
                 String stringRep = this.toString();
@@ -124,20 +159,12 @@ public abstract class AbstractExpression implements Expression {
                     this.attr.getName());
             return null;
         } finally {
-            resetLoggingContext();
+            MDC.put(RESOURCE, frame.originalLoggingContext);
+            ExpressionProfiler.exit(profile, result);
         }
     }
 
-    private void setLoggingContext() {
-        originalContext = MDC.get(RESOURCE);
-        MDC.put(RESOURCE, originalContext + "-> Field:" + this.getExpressionAttr().getName());
-    }
-
-    private void resetLoggingContext() {
-        MDC.put(RESOURCE, originalContext);
-    }
-
-    private EvaluationResult evaluateValueOfExpression(InputDataExtractor dataSource,
+    private EvaluationResult evaluateValueOfExpression(EvaluationFrame frame, InputDataExtractor dataSource,
             Map<String, EvaluationResult> localContextValues, EvaluationResult baseinputValue) {
         /**
          * Steps:
@@ -154,8 +181,7 @@ public abstract class AbstractExpression implements Expression {
          */
 
         // Add constants to the context map
-        this.attr.getConstants().entrySet().forEach(e -> localContextValues.put(e.getKey(),
-                EvaluationResultFactory.getEvaluationResult(e.getValue())));
+        localContextValues.putAll(this.constantValues);
 
         List<Object> result = new ArrayList<>();
         List<ResourceValue> additionalresourcesresult = new ArrayList<>();
@@ -164,11 +190,11 @@ public abstract class AbstractExpression implements Expression {
 
         if (!baseSpecvalues.isEmpty()) {
             for (Object o : baseSpecvalues) {
-                Map<String, EvaluationResult> localContextValuesSpec = new HashMap<>(localContextValues);
+                Map<String, EvaluationResult> localContextValuesSpec = ScopedContextMap.scope(localContextValues);
                 localContextValuesSpec.put(Constants.BASE_VALUE_NAME,
                         EvaluationResultFactory.getEvaluationResult(o));
 
-                EvaluationResult gen = generateValue(dataSource, localContextValuesSpec,
+                EvaluationResult gen = generateValue(frame, dataSource, localContextValuesSpec,
                         EvaluationResultFactory.getEvaluationResult(o));
 
                 if (gen != null && gen.getValue() != null && !gen.isEmpty()) {
@@ -186,7 +212,7 @@ public abstract class AbstractExpression implements Expression {
 
             }
         } else {
-            EvaluationResult gen = generateValue(dataSource, localContextValues, baseinputValue);
+            EvaluationResult gen = generateValue(frame, dataSource, localContextValues, baseinputValue);
             if (gen != null && gen.getValue() != null && !gen.isEmpty()) {
                 if (gen.getValue() instanceof List) {
                     result.addAll(gen.getValue());
@@ -226,7 +252,7 @@ public abstract class AbstractExpression implements Expression {
             specValues = baseinputValue;
         } else {
             specValues = SpecificationUtil.extractMultipleValuesForSpec(specs, dataSource,
-                    ImmutableMap.copyOf(contextValues));
+                    ScopedContextMap.freeze(contextValues));
         }
 
         if (specValues != null && specValues.getValue() instanceof List) {
@@ -238,41 +264,44 @@ public abstract class AbstractExpression implements Expression {
         return baseHl7Specvalues;
     }
 
-    private EvaluationResult generateValue(InputDataExtractor dataSource,
+    private EvaluationResult generateValue(EvaluationFrame frame, InputDataExtractor dataSource,
             Map<String, EvaluationResult> contextValues, EvaluationResult baseValue) {
 
         // resolve variables
-        Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+        Map<String, EvaluationResult> baseContextValues = ScopedContextMap.scope(contextValues);
         if (baseValue != null && baseValue.getValue() != null) {
-            localContextValues.put(DataTypeUtil.getDataType(baseValue.getValue()), baseValue);
+            baseContextValues.put(DataTypeUtil.getDataType(baseValue.getValue()), baseValue);
         }
+        // The variables are resolved against the enclosing values only, then layered over them
+        Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(baseContextValues);
         localContextValues.putAll(
-                resolveVariables(this.getVariables(), ImmutableMap.copyOf(localContextValues), dataSource));
+                resolveVariables(ScopedContextMap.freeze(baseContextValues), dataSource));
 
         if (this.isConditionSatisfied(localContextValues)) {
-            conditionSatisfiedState = true;
-            return evaluateExpression(dataSource, ImmutableMap.copyOf(localContextValues), baseValue);
+            frame.conditionSatisfied = true;
+            return evaluateExpression(dataSource, ScopedContextMap.freeze(localContextValues), baseValue);
 
         }
         return null;
     }
 
-    private static Map<String, EvaluationResult> resolveVariables(List<Variable> variables,
-            Map<String, EvaluationResult> contextValues, InputDataExtractor dataSource) {
+    private Map<String, EvaluationResult> resolveVariables(Map<String, EvaluationResult> contextValues,
+            InputDataExtractor dataSource) {
 
         Map<String, EvaluationResult> localVariables = new HashMap<>();
+        List<Variable> variables = this.getVariables();
 
-        for (Variable var : variables) {
+        for (int i = 0; i < variables.size(); i++) {
+            Variable var = variables.get(i);
             try {
-                EvaluationResult value = var.extractVariableValue(ImmutableMap.copyOf(contextValues), dataSource);
+                EvaluationResult value = var.extractVariableValue(contextValues, dataSource);
                 if (value != null) {
 
-                    localVariables.put(VariableUtils.getVarName(var.getVariableName()),
+                    localVariables.put(this.variableNames.get(i),
                             EvaluationResultFactory.getEvaluationResult(value.getValue()));
                 } else {
                     // enclose null in GenericParsingResult
-                    localVariables.put(VariableUtils.getVarName(var.getVariableName()),
-                            new EmptyEvaluationResult());
+                    localVariables.put(this.variableNames.get(i), new EmptyEvaluationResult());
                 }
             } catch (DataExtractionException e) {
                 LOGGER.error("Cannot extract value for variable {} ", var.getVariableName());
@@ -299,6 +328,29 @@ public abstract class AbstractExpression implements Expression {
         return this.attr.getConstants();
     }
 
+    /**
+     * Looks up the value resolver of the type when the template is loaded. An unknown type only fails
+     * the evaluations that need the resolver, as it did when the resolver was looked up on every
+     * evaluation.
+     * 
+     * @param type Value type of the expression
+     * @return the resolver or null if the type has none
+     */
+    protected static ValueExtractor<Object, ?> findValueResolver(String type) {
+        try {
+            return SimpleDataTypeMapper.getValueResolver(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    protected ValueExtractor<Object, ?> requireValueResolver(ValueExtractor<Object, ?> resolver) {
+        if (resolver == null) {
+            throw new IllegalArgumentException("Cannot find data resolver" + this.getType());
+        }
+        return resolver;
+    }
+
     protected static String getGroupId(Map<String, EvaluationResult> localContext) {
         EvaluationResult result = localContext.get(Constants.GROUP_ID);
         if (result != null) {
@@ -307,6 +359,20 @@ public abstract class AbstractExpression implements Expression {
         return null;
     }
 
+    /**
+     * State of a single evaluation of the expression.
+     */
+    private static final class EvaluationFrame {
+        // Logging context of the caller, restored when the evaluation completes
+        private final String originalLoggingContext;
+        // True if the condition of the expression was satisfied for at least one value
+        private boolean conditionSatisfied;
+
+        private EvaluationFrame(String originalLoggingContext) {
+            this.originalLoggingContext = originalLoggingContext;
+        }
+    }
+
     @Override
     public String toString() {
         ToStringBuilder.setDefaultStyle(ToStringStyle.SIMPLE_STYLE);
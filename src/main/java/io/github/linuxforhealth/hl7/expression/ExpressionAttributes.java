@@ -7,7 +7,6 @@
 package io.github.linuxforhealth.hl7.expression;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -73,24 +72,26 @@ public class ExpressionAttributes {
 
         this.generateMultiple = exBuilder.generateList;
 
-        this.specs = getSpecList(exBuilder.rawSpecs, exBuilder.useGroup, this.generateMultiple);
+        this.specs = ImmutableList.copyOf(getSpecList(exBuilder.rawSpecs, exBuilder.useGroup, this.generateMultiple));
         if (StringUtils.isNotBlank(exBuilder.rawCondition)) {
             this.condition = ConditionUtil.createCondition(exBuilder.rawCondition, exBuilder.useGroup);
         } else {
             this.condition = null;
         }
 
-        this.constants = new HashMap<>();
         if (exBuilder.constants != null && !exBuilder.constants.isEmpty()) {
-            this.constants.putAll(exBuilder.constants);
+            this.constants = ImmutableMap.copyOf(exBuilder.constants);
+        } else {
+            this.constants = ImmutableMap.of();
         }
 
-        this.variables = new ArrayList<>();
+        List<Variable> vars = new ArrayList<>();
         if (exBuilder.rawVariables != null) {
             for (Entry<String, String> e : exBuilder.rawVariables.entrySet()) {
-                this.variables.add(VariableGenerator.parse(e.getKey(), e.getValue()));
+                vars.add(VariableGenerator.parse(e.getKey(), e.getValue()));
             }
         }
+        this.variables = ImmutableList.copyOf(vars);
 
         this.value = exBuilder.value;
         this.valueOf = exBuilder.valueOf;
@@ -137,11 +138,11 @@ public class ExpressionAttributes {
     }
 
     public List<Specification> getSpecs() {
-        return ImmutableList.copyOf(specs);
+        return specs;
     }
 
     public List<Variable> getVariables() {
-        return ImmutableList.copyOf(variables);
+        return variables;
     }
 
     public Condition getFilter() {
@@ -149,7 +150,7 @@ public class ExpressionAttributes {
     }
 
     public Map<String, String> getConstants() {
-        return ImmutableMap.copyOf(constants);
+        return constants;
     }
 
     public boolean isGenerateMultiple() {
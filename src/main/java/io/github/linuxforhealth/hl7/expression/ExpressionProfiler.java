@@ -0,0 +1,227 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.expression;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+import io.github.linuxforhealth.api.EvaluationResult;
+
+/**
+ * Opt-in profiler of the template expressions. Records, for every field of every template, the
+ * number of evaluations, the time spent and how often the result was empty.
+ *
+ * Entries are keyed by the path of the evaluation: the resource template followed by the fields and
+ * the nested resource templates that led to the expression, for example
+ * <code>Patient &gt; identifier_1 &gt; datatype/Identifier_SystemID &gt; system</code>. Nested
+ * expressions without a name of their own appear by type, for example <code>(JEXL)</code>.
+ * The total time of an entry includes the nested entries, the self time excludes them, so the times
+ * roll up along the path.
+ *
+ * Register the profiler with ConverterOptions.Builder#withExpressionProfiler, convert a batch of
+ * messages and print {@link #report()}. One profiler can be shared by conversions running on several
+ * threads. Expressions are not timed when no profiler is active.
+ */
+public final class ExpressionProfiler {
+    private static final String PATH_SEPARATOR = " > ";
+
+    // Number of conversions running with a profiler, checked before the thread local
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    private static final ThreadLocal<Frame> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Profiles the expressions evaluated by the current thread until the returned scope is closed.
+     *
+     * @param profiler Profiler to record into, if null nothing is profiled
+     * @return scope to close when the conversion completes
+     */
+    public static Scope activate(ExpressionProfiler profiler) {
+        if (profiler == null || CURRENT.get() != null) {
+            return Scope.NONE;
+        }
+        CURRENT.set(new Frame(profiler, null, "", 0L));
+        ACTIVE.incrementAndGet();
+        return new Scope(true);
+    }
+
+    /**
+     * Marks the start of the evaluation of a template or field.
+     *
+     * @param name Template or field name
+     * @return frame to pass to {@link #exit(Frame, EvaluationResult)}, null if nothing is profiled
+     */
+    public static Frame enter(String name) {
+        if (ACTIVE.get() == 0) {
+            return null;
+        }
+        Frame parent = CURRENT.get();
+        if (parent == null) {
+            return null;
+        }
+        String path = parent.path.isEmpty() ? name : parent.path + PATH_SEPARATOR + name;
+        Frame frame = new Frame(parent.profiler, parent, path, System.nanoTime());
+        CURRENT.set(frame);
+        return frame;
+    }
+
+    /**
+     * Marks the end of the evaluation started with {@link #enter(String)}.
+     *
+     * @param frame Frame returned by enter, may be null
+     * @param result Result of the evaluation, null or empty results are counted as empty
+     */
+    public static void exit(Frame frame, EvaluationResult result) {
+        exit(frame, result == null || result.isEmpty());
+    }
+
+    /**
+     * Marks the end of the evaluation started with {@link #enter(String)}.
+     *
+     * @param frame Frame returned by enter, may be null
+     * @param empty true if the evaluation produced no value
+     */
+    public static void exit(Frame frame, boolean empty) {
+        if (frame == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - frame.start;
+        frame.parent.childNanos += elapsed;
+        CURRENT.set(frame.parent);
+        frame.profiler.entries.computeIfAbsent(frame.path, Entry::new).add(elapsed, elapsed - frame.childNanos,
+                empty);
+    }
+
+    /**
+     * @return recorded entries, sorted by self time, highest first
+     */
+    public List<Entry> getEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong(Entry::getSelfNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Clears the recorded entries.
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * @return report of all the entries, sorted by self time, highest first
+     */
+    public String report() {
+        return report(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param limit Maximum number of entries in the report
+     * @return report of the entries with the highest self time
+     */
+    public String report(int limit) {
+        Preconditions.checkArgument(limit > 0, "limit must be greater than 0");
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%10s %12s %12s %10s %7s  %s%n",
+                "calls", "total ms", "self ms", "avg us", "empty%", "path"));
+        getEntries().stream().limit(limit).forEach(e -> report.append(String.format(Locale.ROOT,
+                "%10d %12.3f %12.3f %10.2f %6.1f%%  %s%n", e.getCalls(), e.getTotalNanos() / 1e6,
+                e.getSelfNanos() / 1e6, e.getTotalNanos() / 1e3 / Math.max(1, e.getCalls()),
+                100.0 * e.getEmptyCount() / Math.max(1, e.getCalls()), e.getPath())));
+        return report.toString();
+    }
+
+    /**
+     * Closes the profiling of the current thread.
+     */
+    public static final class Scope implements AutoCloseable {
+        private static final Scope NONE = new Scope(false);
+        private final boolean active;
+
+        private Scope(boolean active) {
+            this.active = active;
+        }
+
+        @Override
+        public void close() {
+            if (active) {
+                CURRENT.remove();
+                ACTIVE.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Statistics of one evaluation path.
+     */
+    public static final class Entry {
+        private final String path;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder selfNanos = new LongAdder();
+        private final LongAdder emptyCount = new LongAdder();
+
+        private Entry(String path) {
+            this.path = path;
+        }
+
+        private void add(long total, long self, boolean empty) {
+            calls.increment();
+            totalNanos.add(total);
+            selfNanos.add(self);
+            if (empty) {
+                emptyCount.increment();
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getSelfNanos() {
+            return selfNanos.sum();
+        }
+
+        public long getEmptyCount() {
+            return emptyCount.sum();
+        }
+    }
+
+    /**
+     * Evaluation in progress on the current thread.
+     */
+    public static final class Frame {
+        private final ExpressionProfiler profiler;
+        private final Frame parent;
+        private final String path;
+        private final long start;
+        private long childNanos;
+
+        private Frame(ExpressionProfiler profiler, Frame parent, String path, long start) {
+            this.profiler = profiler;
+            this.parent = parent;
+            this.path = path;
+            this.start = start;
+        }
+    }
+
+}
@@ -15,11 +15,11 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.api.Specification;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
-import io.github.linuxforhealth.hl7.data.SimpleDataTypeMapper;
 import io.github.linuxforhealth.hl7.data.ValueExtractor;
 
 
@@ -36,13 +36,17 @@ public class Hl7Expression extends AbstractExpression {
   private static final Logger LOGGER = LoggerFactory.getLogger(Hl7Expression.class);
 
 
-  private List<Specification> valueof;
+  private final List<Specification> valueof;
+  private final ValueExtractor<Object, ?> resolver;
+  private final boolean stringAll;
 
   @JsonCreator
   public Hl7Expression(ExpressionAttributes expAttr) {
     super(expAttr);
-    this.valueof = ExpressionAttributes.getSpecList(expAttr.getValueOf(), expAttr.isUseGroup(),
-    expAttr.isGenerateMultiple());
+    this.valueof = ImmutableList.copyOf(ExpressionAttributes.getSpecList(expAttr.getValueOf(),
+        expAttr.isUseGroup(), expAttr.isGenerateMultiple()));
+    this.resolver = findValueResolver(expAttr.getType());
+    this.stringAll = StringUtils.equalsIgnoreCase("STRING_ALL", expAttr.getType());
 
   }
 
@@ -70,10 +74,10 @@ public class Hl7Expression extends AbstractExpression {
   private List<Object> generateValue(List<Object> baseSpecvalues) {
     List<Object> resolvedValues = new ArrayList<>();
     if (baseSpecvalues != null && !baseSpecvalues.isEmpty()) {
-      ValueExtractor<Object, ?> resolver = SimpleDataTypeMapper.getValueResolver(this.getType());
-      if (resolver != null && StringUtils.equalsIgnoreCase("STRING_ALL", this.getType())) {
+      ValueExtractor<Object, ?> resolver = requireValueResolver(this.resolver);
+      if (stringAll) {
         resolvedValues.add(resolver.apply(baseSpecvalues));
-      } else if (resolver != null) {
+      } else {
 
         for (Object hl7Value : baseSpecvalues) {
           Object data = resolver.apply(hl7Value);
@@ -94,4 +98,8 @@ public class Hl7Expression extends AbstractExpression {
   }
 
 
+  List<Specification> getValueOf() {
+    return this.valueof;
+  }
+
 }
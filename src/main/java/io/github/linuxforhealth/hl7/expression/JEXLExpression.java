@@ -5,25 +5,31 @@
  */
 package io.github.linuxforhealth.hl7.expression;
 
-import java.util.HashMap;
 import java.util.Map;
+import org.apache.commons.jexl3.JexlExpression;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
-import io.github.linuxforhealth.api.Variable;
-import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
+import io.github.linuxforhealth.hl7.message.HL7MessageData;
 
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JEXLExpression extends AbstractExpression {
   private static final Logger LOGGER = LoggerFactory.getLogger(JEXLExpression.class);
 
+  // Compiled when the template is loaded, null if the expression is not valid
+  private final JexlExpression compiled;
+
   @JsonCreator
   public JEXLExpression(ExpressionAttributes expAttr) {
     super(expAttr);
+    this.compiled = StringUtils.isNotBlank(expAttr.getValueOf())
+        ? HL7MessageData.compileJexlExpression(expAttr.getValueOf())
+        : null;
 
   }
 
@@ -32,14 +38,11 @@ public class JEXLExpression extends AbstractExpression {
   @Override
   public EvaluationResult evaluateExpression(InputDataExtractor dataSource,
       Map<String, EvaluationResult> contextValues, EvaluationResult baseValue) {
-    Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
-    for (Variable v : this.getVariables()) {
-      if (!localContextValues.containsKey(v.getVariableName())) {
-        localContextValues.put(v.getVariableName(), new EmptyEvaluationResult());
-      }
-    }
     LOGGER.info("Evaluating expression");
     LOGGER.debug("Evaluating value of {}", this.getExpressionAttr().getValueOf());
+    if (compiled != null) {
+      return HL7MessageData.evaluateCompiledJexlExpression(dataSource, compiled, contextValues);
+    }
     return dataSource.evaluateJexlExpression(this.getExpressionAttr().getValueOf(), contextValues);
   }
 
@@ -97,4 +97,9 @@ public class NestedExpression extends AbstractExpression {
     }
   }
 
+
+  Map<String, Expression> getChildExpressions() {
+    return this.childexpressions;
+  }
+
 }
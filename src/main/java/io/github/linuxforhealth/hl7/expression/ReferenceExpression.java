@@ -6,7 +6,6 @@
 package io.github.linuxforhealth.hl7.expression;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -14,11 +13,11 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.api.ResourceValue;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.core.resource.ResourceResult;
 import io.github.linuxforhealth.hl7.resource.HL7DataBasedResourceModel;
 import io.github.linuxforhealth.hl7.resource.ResourceReader;
@@ -72,10 +71,8 @@ public class ReferenceExpression extends AbstractExpression {
       EvaluationResult genBaseValue = EvaluationResultFactory
           .getEvaluationResult(primaryResourceResult.getValue().getResource());
 
-      Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
-
       ResourceResult result = this.referenceModel.evaluate(dataSource,
-          ImmutableMap.copyOf(localContextValues), genBaseValue);
+          ScopedContextMap.freeze(contextValues), genBaseValue);
       if (result != null && result.getValue() != null) {
         ResourceValue resolvedvalues = result.getValue();
 
@@ -96,7 +93,7 @@ public class ReferenceExpression extends AbstractExpression {
   private ResourceResult evaluateResource(InputDataExtractor dataSource,
       Map<String, EvaluationResult> contextValues, EvaluationResult hl7SpecValue) {
     ResourceResult result =
-        this.data.evaluate(dataSource, ImmutableMap.copyOf(contextValues), hl7SpecValue);
+        this.data.evaluate(dataSource, ScopedContextMap.freeze(contextValues), hl7SpecValue);
     if (result != null && result.getValue() != null) {
       return result;
     }
@@ -112,4 +109,15 @@ public class ReferenceExpression extends AbstractExpression {
 
 
 
+  HL7DataBasedResourceModel getData() {
+    return this.data;
+  }
+
+
+  HL7DataBasedResourceModel getReferenceModel() {
+    return this.referenceModel;
+  }
+
+
+
 }
@@ -0,0 +1,93 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.expression;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.linuxforhealth.api.Expression;
+import io.github.linuxforhealth.api.ResourceModel;
+import io.github.linuxforhealth.api.Specification;
+import io.github.linuxforhealth.api.Variable;
+import io.github.linuxforhealth.core.expression.VariableUtils;
+import io.github.linuxforhealth.hl7.expression.specification.HL7Specification;
+import io.github.linuxforhealth.hl7.expression.specification.SpecificationParser;
+
+/**
+ * Segments a resource model reads by name. Besides the segment and additional segments of a
+ * resource, expressions read segments of the message directly, e.g. PD1.4 in Patient or EVN.6 in
+ * Encounter. The segments are collected from the specs and valueOf of every expression, from the
+ * specs of its variables, from nested expressions and from the models of resource and reference
+ * expressions.
+ */
+public final class ReferencedSegments {
+
+    private final Set<String> segments = new TreeSet<>();
+    // Models are shared between expressions, each is walked once
+    private final Set<ResourceModel> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ReferencedSegments() {
+    }
+
+    /**
+     * @param model Resource model
+     * @return names of the segments read by the expressions of the model and of the models it uses
+     */
+    public static Set<String> of(ResourceModel model) {
+        ReferencedSegments referenced = new ReferencedSegments();
+        referenced.add(model);
+        return Collections.unmodifiableSet(referenced.segments);
+    }
+
+    private void add(ResourceModel model) {
+        if (model == null || !visited.add(model) || model.getExpressions() == null) {
+            return;
+        }
+        model.getExpressions().values().forEach(this::add);
+    }
+
+    private void add(Expression expression) {
+        if (expression == null) {
+            return;
+        }
+        if (expression.getspecs() != null) {
+            expression.getspecs().forEach(this::add);
+        }
+        if (expression.getVariables() != null) {
+            for (Variable variable : expression.getVariables()) {
+                for (String spec : variable.getSpec()) {
+                    if (!VariableUtils.isVar(spec)) {
+                        add(SpecificationParser.parse(spec, false, false));
+                    }
+                }
+            }
+        }
+        if (expression instanceof Hl7Expression) {
+            ((Hl7Expression) expression).getValueOf().forEach(this::add);
+        } else if (expression instanceof NestedExpression) {
+            ((NestedExpression) expression).getChildExpressions().values().forEach(this::add);
+        } else if (expression instanceof ResourceExpression) {
+            add(((ResourceExpression) expression).getData());
+        } else if (expression instanceof ReferenceExpression) {
+            add(((ReferenceExpression) expression).getData());
+            add(((ReferenceExpression) expression).getReferenceModel());
+        }
+    }
+
+    private void add(Specification spec) {
+        if (spec instanceof HL7Specification) {
+            String segment = ((HL7Specification) spec).getSegment();
+            if (StringUtils.isNotBlank(segment)) {
+                segments.add(segment);
+            }
+        }
+    }
+
+}
@@ -5,7 +5,6 @@
  */
 package io.github.linuxforhealth.hl7.expression;
 
-import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -14,14 +13,13 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.core.Constants;
 import io.github.linuxforhealth.core.expression.ContextValueUtils;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.core.expression.VariableUtils;
-import io.github.linuxforhealth.hl7.data.SimpleDataTypeMapper;
 import io.github.linuxforhealth.hl7.data.ValueExtractor;
 import io.github.linuxforhealth.hl7.util.ExpressionUtility;
 
@@ -32,6 +30,11 @@ public class SimpleExpression extends AbstractExpression {
 
   private String value;
   private ImmutablePair<String, String> fetch;
+  // Resolved once when the template is loaded
+  private final boolean isVar;
+  private final boolean fuzzyMatch;
+  private final boolean fetchFuzzyMatch;
+  private final ValueExtractor<Object, ?> resolver;
 
 
   @JsonCreator
@@ -45,7 +48,10 @@ public class SimpleExpression extends AbstractExpression {
       String[] tokens = StringUtils.split(this.value, ":", 2);
       this.fetch = ImmutablePair.of(tokens[0], tokens[1]);
     }
-
+    this.isVar = VariableUtils.isVar(this.value);
+    this.fuzzyMatch = VariableUtils.isFuzzyMatch(this.value);
+    this.fetchFuzzyMatch = this.fetch != null && VariableUtils.isFuzzyMatch(this.fetch.getKey());
+    this.resolver = findValueResolver(expAttr.getType());
 
   }
 
@@ -56,7 +62,7 @@ public class SimpleExpression extends AbstractExpression {
       Map<String, EvaluationResult> contextValues, EvaluationResult baseValue) {
 
     Preconditions.checkArgument(contextValues != null, "contextValues cannot be null");
-    Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+    Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(contextValues);
     if (baseValue != null && !baseValue.isEmpty()) {
       localContextValues.put(baseValue.getIdentifier(), baseValue);
       localContextValues.put(Constants.BASE_VALUE_NAME, baseValue);
@@ -71,11 +77,10 @@ public class SimpleExpression extends AbstractExpression {
     
     
     Object resolvedValue = null;
-    if (VariableUtils.isVar(value)) {
-      boolean fuzzyMatch = VariableUtils.isFuzzyMatch(value);
+    if (isVar) {
       EvaluationResult obj =
           ContextValueUtils.getVariableValuesFromVariableContextMap(value,
-              ImmutableMap.copyOf(localContextValues),
+              ScopedContextMap.freeze(localContextValues),
               this.getExpressionAttr().isUseGroup(), fuzzyMatch);
       if (obj != null && !obj.isEmpty()) {
         resolvedValue = obj.getValue();
@@ -115,9 +120,8 @@ public class SimpleExpression extends AbstractExpression {
     if (Constants.BASE_VALUE_NAME.equals(fetch.getKey())) {
       resource = basevalue;
     } else {
-      boolean fuzzyMatch = VariableUtils.isFuzzyMatch(fetch.getKey());
       resource = ContextValueUtils.getVariableValuesFromVariableContextMap(fetch.getKey(),
-          contextValues, this.getExpressionAttr().isUseGroup(), fuzzyMatch);
+          contextValues, this.getExpressionAttr().isUseGroup(), fetchFuzzyMatch);
     }
     return ExpressionUtility.extractComponent(fetch, resource);
 
@@ -127,8 +131,7 @@ public class SimpleExpression extends AbstractExpression {
   private EvaluationResult getValueOfSpecifiedType(Object obj) {
     if (obj != null) {
       LOGGER.debug("Evaluated value {} to {} type {} ", this.value, obj, obj.getClass());
-      ValueExtractor<Object, ?> resolver = SimpleDataTypeMapper.getValueResolver(this.getType());
-      return EvaluationResultFactory.getEvaluationResult(resolver.apply(obj));
+      return EvaluationResultFactory.getEvaluationResult(requireValueResolver(resolver).apply(obj));
     } else {
       LOGGER.debug("Evaluated {} returning null", this.value);
       return null;
@@ -5,13 +5,13 @@
  */
 package io.github.linuxforhealth.hl7.expression.specification;
 
-import java.util.HashMap;
 import java.util.Map;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.api.Specification;
 import io.github.linuxforhealth.core.Constants;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.core.expression.VariableUtils;
 
 
@@ -58,7 +58,7 @@ public class SimpleSpecification implements Specification {
   @Override
   public EvaluationResult extractValueForSpec(InputDataExtractor dataSource,
       Map<String, EvaluationResult> contextValues) {
-    Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+    Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(contextValues);
     localContextValues.put(Constants.USE_GROUP,
         EvaluationResultFactory.getEvaluationResult(useGroup));
     return primaryDataSource.extractValueForSpec(this, localContextValues);
@@ -68,7 +68,7 @@ public class SimpleSpecification implements Specification {
   @Override
   public EvaluationResult extractMultipleValuesForSpec(InputDataExtractor dataSource,
       Map<String, EvaluationResult> contextValues) {
-    Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+    Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(contextValues);
     localContextValues.put(Constants.USE_GROUP,
         EvaluationResultFactory.getEvaluationResult(useGroup));
     return primaryDataSource.extractMultipleValuesForSpec(this, localContextValues);
@@ -5,13 +5,17 @@
  */
 package io.github.linuxforhealth.hl7.expression.variable;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.jexl3.JexlExpression;
+import org.apache.commons.lang3.StringUtils;
+
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
+import io.github.linuxforhealth.hl7.message.HL7MessageData;
 
 /**
  * Defines Variable object that can be used during the expression evaluation.
@@ -22,6 +26,8 @@ import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
 public class ExpressionVariable extends SimpleVariable {
 
     private String expression;
+    // Compiled when the template is loaded, null if the expression is not valid
+    private final JexlExpression compiled;
 
     /**
      * Constructor for Variable with default type: Object
@@ -33,14 +39,15 @@ public class ExpressionVariable extends SimpleVariable {
      */
     public ExpressionVariable(String name, String expression, List<String> spec,
             boolean extractMultiple) {
-        super(name, spec, extractMultiple, false);
-        this.expression = expression;
+        this(name, expression, spec, extractMultiple, false);
     }
 
     public ExpressionVariable(String name, String expression, List<String> spec,
             boolean extractMultiple, boolean retainEmpty) {
         super(name, spec, extractMultiple, false, retainEmpty);
         this.expression = expression;
+        this.compiled = StringUtils.isNotBlank(expression) ? HL7MessageData.compileJexlExpression(expression)
+                : null;
     }
 
     // resolve variable value
@@ -48,7 +55,7 @@ public class ExpressionVariable extends SimpleVariable {
     public EvaluationResult extractVariableValue(Map<String, EvaluationResult> contextValues,
             InputDataExtractor dataSource) {
         EvaluationResult result = null;
-        if (!this.getSpec().isEmpty()) {
+        if (this.hasSpecs()) {
             result = getValueFromSpecs(contextValues, dataSource);
         }
         if (result == null) {
@@ -57,11 +64,16 @@ public class ExpressionVariable extends SimpleVariable {
 
         if (this.expression != null) {
             // resolve expression
-            Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+            Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(contextValues);
 
             localContextValues.put(this.getName(), result);
 
-            result = dataSource.evaluateJexlExpression(expression, localContextValues);
+            if (compiled != null) {
+                result = HL7MessageData.evaluateCompiledJexlExpression(dataSource, compiled,
+                        localContextValues);
+            } else {
+                result = dataSource.evaluateJexlExpression(expression, localContextValues);
+            }
         }
         return result;
 
@@ -8,13 +8,13 @@ package io.github.linuxforhealth.hl7.expression.variable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import com.google.common.collect.ImmutableMap;
 import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.api.Specification;
 import io.github.linuxforhealth.api.Variable;
 import io.github.linuxforhealth.core.expression.ContextValueUtils;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.core.expression.VariableUtils;
 import io.github.linuxforhealth.hl7.data.SimpleDataTypeMapper;
 import io.github.linuxforhealth.hl7.expression.specification.SpecificationParser;
@@ -33,6 +33,9 @@ public class SimpleVariable implements Variable {
   private boolean extractMultiple;
   private boolean combineMultiple;
   private boolean retainEmpty;
+  // Specs and name resolved once when the template is loaded
+  private final List<CompiledSpec> compiledSpecs;
+  private final String variableName;
 
 
   public SimpleVariable(String name, List<String> spec) {
@@ -51,6 +54,11 @@ public class SimpleVariable implements Variable {
     this.extractMultiple = extractMultiple;
     this.combineMultiple = combineMultiple;
     this.retainEmpty = retainEmpty;
+    this.compiledSpecs = new ArrayList<>();
+    for (String specValue : this.spec) {
+      this.compiledSpecs.add(new CompiledSpec(specValue, extractMultiple, retainEmpty));
+    }
+    this.variableName = VariableUtils.getVarName(name);
   }
 
   @Override
@@ -74,7 +82,7 @@ public class SimpleVariable implements Variable {
   public EvaluationResult extractVariableValue(Map<String, EvaluationResult> contextValues,
       InputDataExtractor dataSource) {
     EvaluationResult result;
-    if (!this.spec.isEmpty()) {
+    if (!this.compiledSpecs.isEmpty()) {
       List<EvaluationResult> values =
           getValuesFromSpecs(contextValues, dataSource, combineMultiple);
       if (values.isEmpty()) {
@@ -114,20 +122,16 @@ public class SimpleVariable implements Variable {
   protected List<EvaluationResult> getValuesFromSpecs(Map<String, EvaluationResult> contextValues,
       InputDataExtractor dataSource, boolean fetchAll) {
     List<EvaluationResult> combineValue = new ArrayList<>();
-    for (String specValue : this.spec) {
+    for (CompiledSpec compiledSpec : this.compiledSpecs) {
       EvaluationResult fetchedValue = null;
-      if (VariableUtils.isVar(specValue)) {
-        boolean fuzzyMatch = VariableUtils.isFuzzyMatch(specValue);
+      if (compiledSpec.specification == null) {
         fetchedValue =
-            ContextValueUtils.getVariableValuesFromVariableContextMap(specValue,
-                ImmutableMap.copyOf(contextValues),
-                false, fuzzyMatch);
+            ContextValueUtils.getVariableValuesFromVariableContextMap(compiledSpec.rawSpec,
+                ScopedContextMap.freeze(contextValues),
+                false, compiledSpec.fuzzyMatch);
       } else {
         EvaluationResult gen;
-        Specification spec =
-            SpecificationParser.parse(specValue, this.extractMultiple, false, this.retainEmpty);
-
-        gen = spec.extractValueForSpec(dataSource, contextValues);
+        gen = compiledSpec.specification.extractValueForSpec(dataSource, contextValues);
 
         if (gen != null && !gen.isEmpty()) {
           fetchedValue = gen;
@@ -150,7 +154,16 @@ public class SimpleVariable implements Variable {
 
   @Override
   public String getVariableName() {
-    return VariableUtils.getVarName(this.name);
+    return this.variableName;
+  }
+
+  /**
+   * Returns true if the variable has specs to extract the value from, without copying the specs.
+   * 
+   * @return boolean
+   */
+  protected boolean hasSpecs() {
+    return !this.compiledSpecs.isEmpty();
   }
 
   /**
@@ -166,4 +179,26 @@ public class SimpleVariable implements Variable {
 	return this.retainEmpty;
   }
 
+
+  /**
+   * Spec of the variable, either the name of a context value or a parsed specification.
+   */
+  private static final class CompiledSpec {
+    private final String rawSpec;
+    private final boolean fuzzyMatch;
+    // null if the spec is a context value
+    private final Specification specification;
+
+    private CompiledSpec(String rawSpec, boolean extractMultiple, boolean retainEmpty) {
+      this.rawSpec = rawSpec;
+      this.fuzzyMatch = VariableUtils.isFuzzyMatch(rawSpec);
+      if (VariableUtils.isVar(rawSpec)) {
+        this.specification = null;
+      } else {
+        this.specification =
+            SpecificationParser.parse(rawSpec, extractMultiple, false, retainEmpty);
+      }
+    }
+  }
+
 }
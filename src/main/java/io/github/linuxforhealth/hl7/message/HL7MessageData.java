@@ -6,10 +6,11 @@
 package io.github.linuxforhealth.hl7.message;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
+import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlExpression;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
@@ -22,16 +23,18 @@ import io.github.linuxforhealth.api.InputDataExtractor;
 import io.github.linuxforhealth.api.Specification;
 import io.github.linuxforhealth.core.data.JexlEngineUtil;
 import io.github.linuxforhealth.core.exception.DataExtractionException;
-import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
 import io.github.linuxforhealth.core.expression.SimpleEvaluationResult;
 import io.github.linuxforhealth.hl7.data.Hl7RelatedGeneralUtils;
 import io.github.linuxforhealth.hl7.expression.specification.HL7Specification;
+import io.github.linuxforhealth.hl7.message.util.SegmentExtractionMemo;
 import io.github.linuxforhealth.hl7.parsing.HL7DataExtractor;
 import io.github.linuxforhealth.hl7.parsing.result.ParsingResult;
 
 public class HL7MessageData implements InputDataExtractor {
   private HL7DataExtractor hde;
+  private final SegmentExtractionMemo segmentExtractionMemo = new SegmentExtractionMemo();
+  private int missCount;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HL7MessageData.class);
   protected static final Pattern HL7_SPEC_SPLITTER = Pattern.compile(".");
@@ -96,7 +99,8 @@ public class HL7MessageData implements InputDataExtractor {
         res = extractSpecValues(hl7spec);
       }
     } catch (DataExtractionException e) {
-      LOGGER.warn("cannot extract value for variable {} ", hl7spec);
+      // Counted, not logged at warn level for every variable of every message
+      missCount++;
       LOGGER.debug("cannot extract value for variable {} ", hl7spec, e);
     }
     if (res != null) {
@@ -121,7 +125,7 @@ public class HL7MessageData implements InputDataExtractor {
         return EvaluationResultFactory.getEvaluationResult(res.getValue());
       }
     }
-    return new EmptyEvaluationResult();
+    return EvaluationResultFactory.getEmptyEvaluationResult();
   }
 
 
@@ -168,20 +172,71 @@ public class HL7MessageData implements InputDataExtractor {
     return hde;
   }
 
+  /**
+   * @return groups and additional segments already resolved in the message, shared by its resource
+   *         templates
+   */
+  public SegmentExtractionMemo getSegmentExtractionMemo() {
+    return segmentExtractionMemo;
+  }
+
+  /**
+   * @return number of lookups in the message that missed, see {@link HL7DataExtractor#getMissCount()}
+   */
+  public int getMissCount() {
+    return missCount + hde.getMissCount();
+  }
+
 
   @Override
   public EvaluationResult evaluateJexlExpression(String expression,
       Map<String, EvaluationResult> contextValues) {
     Preconditions.checkArgument(StringUtils.isNotBlank(expression), "jexlExp cannot be blank");
     Preconditions.checkArgument(contextValues != null, "context cannot be null");
-    String trimedJexlExp = StringUtils.trim(expression);
-    Map<String, Object> localContext = new HashMap<>();
-    Map<String, EvaluationResult> resolvedVariables = new HashMap<>(contextValues);
-    resolvedVariables.forEach((key, value) -> localContext.put(key, value.getValue()));
-    Object obj = JEXL.evaluate(trimedJexlExp, localContext);
+    return evaluateJexlExpression(JEXL.compile(expression), contextValues);
+  }
+
+  private EvaluationResult evaluateJexlExpression(JexlExpression expression,
+      Map<String, EvaluationResult> contextValues) {
+    Preconditions.checkArgument(expression != null, "jexlExp cannot be null");
+    Preconditions.checkArgument(contextValues != null, "context cannot be null");
+    Object obj = JEXL.evaluate(expression, contextValues);
     return EvaluationResultFactory.getEvaluationResult(obj);
   }
 
+  /**
+   * Evaluates a JEXL expression compiled by {@link #compileJexlExpression(String)}. HL7 message data
+   * evaluates the compiled expression, other data sources the source text of the expression.
+   * 
+   * @param dataSource Data source to evaluate the expression with
+   * @param expression Compiled expression
+   * @param contextValues Context values
+   * @return {@link EvaluationResult}
+   */
+  public static EvaluationResult evaluateCompiledJexlExpression(InputDataExtractor dataSource,
+      JexlExpression expression, Map<String, EvaluationResult> contextValues) {
+    if (dataSource instanceof HL7MessageData) {
+      return ((HL7MessageData) dataSource).evaluateJexlExpression(expression, contextValues);
+    }
+    return dataSource.evaluateJexlExpression(expression.getSourceText(), contextValues);
+  }
+
+  /**
+   * Compiles a JEXL expression of a template with the functions available to HL7 messages.
+   * 
+   * @param expression JEXL expression
+   * @return compiled expression or null if the expression is not valid, evaluating the source text
+   *         of the expression then reports the error
+   */
+  public static JexlExpression compileJexlExpression(String expression) {
+    try {
+      return JEXL.compile(expression);
+    } catch (IllegalArgumentException | JexlException e) {
+      LOGGER.debug("Cannot compile expression {}", expression, e);
+      return null;
+    }
+  }
+
 
   @Override
   public String getName() {
@@ -202,7 +257,7 @@ public class HL7MessageData implements InputDataExtractor {
     if (fetchedValue != null && !fetchedValue.isEmpty()) {
       return EvaluationResultFactory.getEvaluationResult(getSingleValue(fetchedValue.getValue()));
     } else {
-      return new EmptyEvaluationResult();
+      return EvaluationResultFactory.getEmptyEvaluationResult();
     }
   }
 
@@ -21,10 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import ca.uhn.hl7v2.model.Structure;
@@ -35,10 +32,12 @@ import io.github.linuxforhealth.api.MessageEngine;
 import io.github.linuxforhealth.api.ResourceModel;
 import io.github.linuxforhealth.api.ResourceValue;
 import io.github.linuxforhealth.core.Constants;
-import io.github.linuxforhealth.core.ObjectMapperUtil;
 import io.github.linuxforhealth.core.exception.RequiredConstraintFailureException;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.core.expression.SimpleEvaluationResult;
+import io.github.linuxforhealth.core.metrics.ConversionMetrics;
+import io.github.linuxforhealth.core.metrics.ConversionPhase;
 import io.github.linuxforhealth.core.resource.ResourceResult;
 import io.github.linuxforhealth.core.resource.SimpleResourceValue;
 import io.github.linuxforhealth.fhir.FHIRContext;
@@ -50,7 +49,8 @@ import io.github.linuxforhealth.hl7.resource.ResourceEvaluationResult;
 import io.github.linuxforhealth.hl7.util.ExpressionUtility;
 
 /**
- * Implements Message engine for HL7 message data
+ * Implements Message engine for HL7 message data. The engine holds no per-message state and can be
+ * shared across threads.
  * 
  *
  * @author pbhallam
@@ -59,9 +59,8 @@ public class HL7MessageEngine implements MessageEngine {
 
     private static final String RESOURCE = "Resource";
     private static final Logger LOGGER = LoggerFactory.getLogger(HL7MessageEngine.class);
-    private static final ObjectMapper OBJ_MAPPER = ObjectMapperUtil.getJSONInstance();
-    private FHIRContext context;
-    private BundleType bundleType;
+    private final FHIRContext context;
+    private final BundleType bundleType;
 
     /**
      * 
@@ -91,6 +90,22 @@ public class HL7MessageEngine implements MessageEngine {
     public Bundle transform(final InputDataExtractor dataInput,
             final Iterable<FHIRResourceTemplate> resources,
             final Map<String, EvaluationResult> contextValues) {
+        return transform(dataInput, resources, contextValues, ConversionMetrics.DISABLED);
+    }
+
+    /**
+     * Converts a HL7 message to a FHIR bundle with the list of resources specified and records the
+     * time of each phase of the conversion.
+     *
+     * @param dataInput {@link InputDataExtractor}
+     * @param resources {@link FHIRResourceTemplate}
+     * @param contextValues Map of context values
+     * @param metrics {@link ConversionMetrics} of the message
+     * @return FHIR {@link Bundle}
+     */
+    public Bundle transform(final InputDataExtractor dataInput,
+            final Iterable<FHIRResourceTemplate> resources,
+            final Map<String, EvaluationResult> contextValues, final ConversionMetrics metrics) {
         Preconditions.checkArgument(dataInput != null, "dataInput cannot be null");
         Preconditions.checkArgument(contextValues != null, "contextValues cannot be null");
         Preconditions.checkArgument(resources != null, "resources cannot be null");
@@ -115,7 +130,8 @@ public class HL7MessageEngine implements MessageEngine {
             List<ResourceResult> resourceResults = new ArrayList<>();
             try {
                 MDC.put(RESOURCE, rs.getName());
-                List<ResourceResult> results = generateResources(hl7DataInput, hl7ResourceTemplate, localContextValues);
+                List<ResourceResult> results = generateResources(hl7DataInput, hl7ResourceTemplate, localContextValues,
+                        metrics);
                 if (results != null) {
                     resourceResults.addAll(results);
                     results.stream()
@@ -127,15 +143,21 @@ public class HL7MessageEngine implements MessageEngine {
                                     r -> (r.getPendingExpressions() == null || r.getPendingExpressions().isEmpty()))
                             .collect(Collectors.toList());
 
-                    addResourceToBundle(bundle, resultsToAddToBundle);
+                    addResourceToBundle(bundle, resultsToAddToBundle, metrics);
 
                 }
 
                 resourceResults.removeIf(isEmpty());
                 Map<String, EvaluationResult> newContextValues = getContextValuesFromResource(hl7ResourceTemplate,
                         resourceResults);
-                localContextValues.putAll(newContextValues);
+                if (!newContextValues.isEmpty()) {
+                    // Copy on write, the scopes of the resources generated so far keep seeing their
+                    // values, and lookups stay on one flat map for all the resources of the message
+                    localContextValues = new HashMap<>(localContextValues);
+                    localContextValues.putAll(newContextValues);
+                }
             } catch (IllegalArgumentException | IllegalStateException e) {
+                metrics.recordFailure();
                 LOGGER.error("Exception during resource {} generation", rs.getName());
                 LOGGER.debug("Exception during resource {} generation", rs.getName(), e);
 
@@ -146,11 +168,14 @@ public class HL7MessageEngine implements MessageEngine {
         for (ResourceResult r : resourceResultsWithEvalLater) {
             MDC.put(RESOURCE, "PendingExpressions");
             try {
-                Map<String, EvaluationResult> primaryContextValues = new HashMap<>(localContextValues);
-                r.getPendingExpressions().getContextValues().entrySet()
-                        .forEach(e -> primaryContextValues.putIfAbsent(e.getKey(), e.getValue()));
+                // Values of the message take precedence over the values pending from the resource
+                Map<String, EvaluationResult> primaryContextValues = ScopedContextMap
+                        .scope(r.getPendingExpressions().getContextValues());
+                primaryContextValues.putAll(localContextValues);
+                long start = metrics.startPhase();
                 ResourceEvaluationResult res = ExpressionUtility.evaluate(hl7DataInput, primaryContextValues,
                         r.getPendingExpressions().getExpressions());
+                metrics.stopPhase(ConversionPhase.PENDING_EXPRESSIONS, start);
 
                 Map<String, Object> resolvedValues = new HashMap<>();
                 resolvedValues.putAll(r.getValue().getResource());
@@ -162,8 +187,9 @@ public class HL7MessageEngine implements MessageEngine {
                         new SimpleResourceValue(resolvedValues, r.getValue().getFHIRResourceType()),
                         additionalResources, r.getGroupId());
 
-                addResourceToBundle(bundle, Lists.newArrayList(updatedResourceResult));
+                addResourceToBundle(bundle, Lists.newArrayList(updatedResourceResult), metrics);
             } catch (IllegalArgumentException | IllegalStateException e) {
+                metrics.recordFailure();
                 LOGGER.error("Exception during resource PendingExpressions generation");
                 LOGGER.debug("Exception during resource PendingExpressions generation", e);
 
@@ -179,27 +205,32 @@ public class HL7MessageEngine implements MessageEngine {
     }
 
     private List<ResourceResult> generateResources(HL7MessageData hl7DataInput,
-            HL7FHIRResourceTemplate template, Map<String, EvaluationResult> contextValues) {
+            HL7FHIRResourceTemplate template, Map<String, EvaluationResult> contextValues, ConversionMetrics metrics) {
 
         ResourceModel resourceModel = template.getResource();
         List<String> segmentGroup = template.getAttributes().getSegment().getGroup();
         String segment = template.getAttributes().getSegment().getSegment();
         List<ResourceResult> resourceResults = null;
+        long start = metrics.startPhase();
         List<SegmentGroup> multipleSegments = getMultipleSegments(hl7DataInput, template, segmentGroup, segment);
+        metrics.stopPhase(ConversionPhase.SEGMENT_EXTRACTION, start);
         if (!multipleSegments.isEmpty()) {
-
+            start = metrics.startPhase();
             resourceResults = generateMultipleResources(hl7DataInput, resourceModel, contextValues,
-                    multipleSegments, template.isGenerateMultiple());
+                    multipleSegments, template.isGenerateMultiple(), metrics);
+            metrics.stopPhase(ConversionPhase.EXPRESSION_EVALUATION, start);
         }
         return resourceResults;
     }
 
-    private void addResourceToBundle(Bundle bundle, List<ResourceResult> resourceResults) {
+    private void addResourceToBundle(Bundle bundle, List<ResourceResult> resourceResults, ConversionMetrics metrics) {
         if (resourceResults != null && !resourceResults.isEmpty()) {
+            long start = metrics.startPhase();
             for (ResourceResult resReult : resourceResults) {
-                addToBundle(bundle, Lists.newArrayList(resReult.getValue()));
-                addToBundle(bundle, resReult.getAdditionalResources());
+                addToBundle(bundle, Lists.newArrayList(resReult.getValue()), metrics);
+                addToBundle(bundle, resReult.getAdditionalResources(), metrics);
             }
+            metrics.stopPhase(ConversionPhase.RESOURCE_BINDING, start);
         }
     }
 
@@ -272,11 +303,12 @@ public class HL7MessageEngine implements MessageEngine {
         if (segmentGroup != null && !segmentGroup.isEmpty()) {
             multipleSegments = SegmentExtractorUtil.extractSegmentGroups(segmentGroup, segment,
                     template.getAttributes().getAdditionalSegments(), hl7DataInput.getHL7DataParser(),
-                    template.getAttributes().getGroup());
+                    template.getAttributes().getGroup(), hl7DataInput.getSegmentExtractionMemo());
 
         } else {
             multipleSegments = SegmentExtractorUtil.extractSegmentNonGroups(segment,
-                    template.getAttributes().getAdditionalSegments(), hl7DataInput.getHL7DataParser());
+                    template.getAttributes().getAdditionalSegments(), hl7DataInput.getHL7DataParser(),
+                    hl7DataInput.getSegmentExtractionMemo());
 
         }
         return multipleSegments;
@@ -284,11 +316,11 @@ public class HL7MessageEngine implements MessageEngine {
 
     private static List<ResourceResult> generateMultipleResources(final HL7MessageData hl7DataInput,
             final ResourceModel rs, final Map<String, EvaluationResult> contextValues,
-            final List<SegmentGroup> multipleSegments, boolean generateMultiple) {
+            final List<SegmentGroup> multipleSegments, boolean generateMultiple, ConversionMetrics metrics) {
         List<ResourceResult> resourceResults = new ArrayList<>();
         for (SegmentGroup currentGroup : multipleSegments) {
 
-            Map<String, EvaluationResult> localContextValues = new HashMap<>(contextValues);
+            Map<String, EvaluationResult> localContextValues = ScopedContextMap.scope(contextValues);
             localContextValues.put(Constants.GROUP_ID,
                     EvaluationResultFactory.getEvaluationResult(currentGroup.getGroupId()));
             // Resource needs to be generated for each base value in the group
@@ -300,7 +332,7 @@ public class HL7MessageEngine implements MessageEngine {
 
             for (EvaluationResult baseValue : baseValues) {
                 try {
-                    ResourceResult result = rs.evaluate(hl7DataInput, ImmutableMap.copyOf(localContextValues),
+                    ResourceResult result = rs.evaluate(hl7DataInput, ScopedContextMap.freeze(localContextValues),
                             baseValue);
                     if (result != null && result.getValue() != null) {
                         resourceResults.add(result);
@@ -311,6 +343,7 @@ public class HL7MessageEngine implements MessageEngine {
                     }
                 } catch (RequiredConstraintFailureException | IllegalArgumentException
                         | IllegalStateException e) {
+                    metrics.recordFailure();
                     LOGGER.warn("generateMultipleResources - Exception encountered");
                     LOGGER.debug("generateMultipleResources - Exception encountered", e);
                 }
@@ -319,27 +352,24 @@ public class HL7MessageEngine implements MessageEngine {
         return resourceResults;
     }
 
-    private void addToBundle(Bundle bundle, List<ResourceValue> objects) {
+    private void addToBundle(Bundle bundle, List<ResourceValue> objects, ConversionMetrics metrics) {
         if (objects != null && !objects.isEmpty()) {
-            objects.forEach(obj -> addEntry(obj.getFHIRResourceType(), obj, bundle));
+            objects.forEach(obj -> addEntry(obj.getFHIRResourceType(), obj, bundle, metrics));
         }
     }
 
-    private void addEntry(String resourceClass, ResourceValue obj, Bundle bundle) {
+    private void addEntry(String resourceClass, ResourceValue obj, Bundle bundle, ConversionMetrics metrics) {
 
         try {
             if (obj != null) {
                 LOGGER.debug("Converting resourceName {} to FHIR {}", resourceClass, obj.getResource());
-                String json = OBJ_MAPPER.writeValueAsString(obj.getResource());
-                LOGGER.debug("Adding resourceName {} to FHIR {}", resourceClass, json);
-                if (json != null) {
-                    org.hl7.fhir.r4.model.Resource parsed = context.getParser()
-                            .parseResource(FHIRResourceMapper.getResourceClass(resourceClass), json);
+                org.hl7.fhir.r4.model.Resource parsed = context
+                        .bindResource(FHIRResourceMapper.getResourceClass(resourceClass), obj.getResource());
 
-                    bundle.addEntry().setResource(parsed).setFullUrl(parsed.getId());
-                }
+                bundle.addEntry().setResource(parsed).setFullUrl(parsed.getId());
             }
-        } catch (JsonProcessingException e) {
+        } catch (IllegalArgumentException e) {
+            metrics.recordFailure();
             LOGGER.error("Processing exception when serialization");
             LOGGER.debug("Processing exception when serialization", e);
         }
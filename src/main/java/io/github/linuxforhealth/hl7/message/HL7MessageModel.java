@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.r4.model.Bundle;
@@ -18,11 +19,15 @@ import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import ca.uhn.hl7v2.HL7Exception;
 import ca.uhn.hl7v2.model.Message;
 import io.github.linuxforhealth.api.FHIRResourceTemplate;
 import io.github.linuxforhealth.api.MessageEngine;
 import io.github.linuxforhealth.api.MessageTemplate;
+import io.github.linuxforhealth.core.metrics.ConversionMetrics;
+import io.github.linuxforhealth.core.metrics.ConversionPhase;
+import io.github.linuxforhealth.hl7.expression.ReferencedSegments;
 import io.github.linuxforhealth.hl7.parsing.HL7DataExtractor;
 import io.github.linuxforhealth.hl7.parsing.HL7HapiParser;
 
@@ -33,6 +38,7 @@ public class HL7MessageModel implements MessageTemplate<Message> {
 
     private List<FHIRResourceTemplate> resources;
     private String messageName;
+    private final Set<String> referencedSegments;
     private static final Logger LOGGER = LoggerFactory.getLogger(HL7MessageModel.class);
 
     @JsonCreator
@@ -43,7 +49,22 @@ public class HL7MessageModel implements MessageTemplate<Message> {
         if (resources != null && !resources.isEmpty()) {
             this.resources.addAll(resources);
         }
+        this.referencedSegments = referencedSegments(resources);
+    }
 
+    // MSH is read for the message type and id, the other segments as segment or additional segment
+    // of a resource or by name in the specs of its expressions, e.g. PD1.4 or EVN.6
+    private static Set<String> referencedSegments(List<HL7FHIRResourceTemplate> resources) {
+        ImmutableSet.Builder<String> segments = ImmutableSet.builder();
+        segments.add("MSH");
+        if (resources != null) {
+            for (HL7FHIRResourceTemplate resource : resources) {
+                segments.add(resource.getAttributes().getSegment().getSegment());
+                resource.getAttributes().getAdditionalSegments().forEach(s -> segments.add(s.getSegment()));
+                segments.addAll(ReferencedSegments.of(resource.getResource()));
+            }
+        }
+        return segments.build();
     }
 
     private void handleException(Exception e) {
@@ -59,26 +80,31 @@ public class HL7MessageModel implements MessageTemplate<Message> {
     public String convert(String message, MessageEngine engine) throws IOException {
         Preconditions.checkArgument(StringUtils.isNotBlank(message),
                 "Input Hl7 message cannot be blank");
-        HL7HapiParser hparser = null;
         try {
-            hparser = new HL7HapiParser();
-
-            Message hl7message = hparser.getParser().parse(message);
+            Message hl7message = HL7HapiParser.forCurrentThread().getParser().parse(message);
             Bundle bundle = convert(hl7message, engine);
             return engine.getFHIRContext().encodeResourceToString(bundle);
 
         } catch (HL7Exception e) {
             throw new IllegalArgumentException("Cannot parse the message.", e);
-        } finally {
-            if (hparser != null) {
-                hparser.getContext().close();
-            }
         }
 
     }
 
     @Override
     public Bundle convert(Message message, MessageEngine engine) {
+        return convert(message, engine, ConversionMetrics.DISABLED);
+    }
+
+    /**
+     * Converts the message and records the time of each phase of the conversion.
+     *
+     * @param message HL7 message
+     * @param engine {@link MessageEngine}
+     * @param metrics {@link ConversionMetrics} of the message
+     * @return FHIR {@link Bundle} or null if the conversion failed
+     */
+    public Bundle convert(Message message, MessageEngine engine, ConversionMetrics metrics) {
         Preconditions.checkArgument(message != null, "Input Hl7 message cannot be null");
         Preconditions.checkArgument(engine != null, "MessageEngine cannot be null");
 
@@ -90,14 +116,24 @@ public class HL7MessageModel implements MessageTemplate<Message> {
         // Catch any exceptions and log them without the message.
         // NOTE: We have seen PHI in these exception messages.
         try {
-            bundle = engine.transform(dataSource, this.getResources(), new HashMap<>());
+            if (engine instanceof HL7MessageEngine) {
+                bundle = ((HL7MessageEngine) engine).transform(dataSource, this.getResources(), new HashMap<>(),
+                        metrics);
+            } else {
+                bundle = engine.transform(dataSource, this.getResources(), new HashMap<>());
+            }
+            long start = metrics.startPhase();
             deduplicate(bundle);  // Bundle is passed by reference and may be modified
+            metrics.stopPhase(ConversionPhase.DEDUPLICATION, start);
+            start = metrics.startPhase();
             engine.getFHIRContext().validate(bundle);
+            metrics.stopPhase(ConversionPhase.VALIDATION, start);
 
         } catch (Exception e) {
             // Print stack class and trace without the error message.
             handleException(e);
         }
+        metrics.recordLookupMisses(dataSource.getMissCount());
 
         return bundle;
     }
@@ -116,6 +152,14 @@ public class HL7MessageModel implements MessageTemplate<Message> {
         return new ArrayList<>(resources);
     }
 
+    /**
+     * @return names of the segments the resources of the template read, the other segments of a
+     *         message do not change its conversion
+     */
+    public Set<String> getReferencedSegments() {
+        return referencedSegments;
+    }
+
     // General deduplication utility. Currently only Organizations.
     // Bundle is passed by reference and may be modified
     private void deduplicate(Bundle bundle) {
@@ -0,0 +1,95 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.github.linuxforhealth.hl7.message;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+
+import io.github.linuxforhealth.core.config.ConverterConfiguration.TemplateLoading;
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+import io.github.linuxforhealth.hl7.resource.ResourceReader;
+
+/**
+ * Message templates of a {@link ConverterRegistry} by message type. Depending on the
+ * {@link TemplateLoading} the templates are all loaded up front, or each template is loaded on the
+ * first conversion of a message of its type. A lazily loaded template is loaded once even when
+ * several threads convert the first messages of its type at the same time; a template that fails
+ * to load is tried again on the next message.
+ *
+ * Templates are always loaded with the resources of their registry, also when another registry has
+ * been published in the meantime.
+ */
+public final class MessageTemplates {
+
+    private final Map<String, Supplier<HL7MessageModel>> templates;
+
+    private MessageTemplates(Map<String, Supplier<HL7MessageModel>> templates) {
+        this.templates = templates;
+    }
+
+    /**
+     * @param registry Registry of the templates
+     * @param loading How to load the templates
+     * @return the templates of supported.hl7.messages
+     * @throws IllegalArgumentException - If a template cannot be loaded, lazy loading only checks
+     *         that the templates are listed
+     */
+    public static MessageTemplates load(ConverterRegistry registry, TemplateLoading loading) {
+        ResourceReader reader = registry.getResourceReader();
+        ImmutableMap.Builder<String, Supplier<HL7MessageModel>> builder = ImmutableMap.builder();
+        if (loading == TemplateLoading.LAZY) {
+            Map<String, String> templateNames = new HashMap<>();
+            // The last template of a message type wins, as with the eager loading
+            reader.getMessageTemplateNames()
+                    .forEach(name -> templateNames.put(ResourceReader.getMessageType(name), name));
+            templateNames.forEach((messageType, name) -> builder.put(messageType,
+                    Suppliers.memoize(() -> loadTemplate(registry, name))));
+        } else {
+            Map<String, HL7MessageModel> loaded;
+            try (ConverterRegistry.Scope scope = registry.pin()) {
+                loaded = reader.getMessageTemplates();
+            }
+            loaded.forEach((messageType, template) -> builder.put(messageType, Suppliers.ofInstance(template)));
+        }
+        return new MessageTemplates(builder.build());
+    }
+
+    private static HL7MessageModel loadTemplate(ConverterRegistry registry, String name) {
+        try (ConverterRegistry.Scope scope = registry.pin()) {
+            return registry.getResourceReader().getMessageTemplate(name);
+        }
+    }
+
+    /**
+     * @param messageType Message type such as ADT_A01
+     * @return the template or null if the message type is not supported
+     * @throws IllegalStateException - If a lazily loaded template cannot be loaded
+     */
+    public HL7MessageModel get(String messageType) {
+        Supplier<HL7MessageModel> template = messageType != null ? templates.get(messageType) : null;
+        if (template == null) {
+            return null;
+        }
+        try {
+            return template.get();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Failure to initialize the template for " + messageType, e);
+        }
+    }
+
+    /**
+     * @return number of supported message types, loaded or not
+     */
+    public int size() {
+        return templates.size();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.message.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.uhn.hl7v2.model.Structure;
+import io.github.linuxforhealth.hl7.message.HL7Segment;
+
+/**
+ * Structures {@link SegmentExtractorUtil} has already resolved in a message. The resource templates
+ * of a message often read the same groups, such as PATIENT_RESULT.ORDER_OBSERVATION in ORU_R01, and
+ * the same additional segments of a primary segment; with a memo shared by the templates each of
+ * these is resolved once per message.
+ *
+ * A memo belongs to one message and is used by one conversion at a time.
+ */
+public final class SegmentExtractionMemo {
+
+    private final Map<List<String>, List<Structure>> groupStructures = new HashMap<>();
+    private final Map<AdditionalSegmentKey, List<Structure>> additionalSegments = new HashMap<>();
+
+    /**
+     * @param groupPath Groups from the message down, e.g. PATIENT_RESULT, ORDER_OBSERVATION
+     * @param resolve Resolves the repetitions of the last group if they are not in the memo yet
+     * @return the repetitions of the last group, not to be modified
+     */
+    List<Structure> getGroupStructures(List<String> groupPath, Supplier<List<Structure>> resolve) {
+        List<Structure> structures = groupStructures.get(groupPath);
+        if (structures == null) {
+            structures = Collections.unmodifiableList(new ArrayList<>(resolve.get()));
+            groupStructures.put(ImmutableList.copyOf(groupPath), structures);
+        }
+        return structures;
+    }
+
+    /**
+     * @param primary Primary segment of a resource
+     * @param primaryGroups Groups of the primary segment
+     * @param segment Additional segment of the resource
+     * @param resolve Resolves the additional segments if they are not in the memo yet
+     * @return the additional segments related to the primary segment
+     */
+    List<Structure> getAdditionalSegments(Structure primary, List<String> primaryGroups, HL7Segment segment,
+            Supplier<List<Structure>> resolve) {
+        AdditionalSegmentKey key = new AdditionalSegmentKey(primary, primaryGroups, segment);
+        List<Structure> structures = additionalSegments.get(key);
+        if (structures == null) {
+            List<Structure> resolved = resolve.get();
+            structures = resolved != null ? new ArrayList<>(resolved) : new ArrayList<>();
+            additionalSegments.put(key, structures);
+        }
+        // Each template gets its own list
+        return new ArrayList<>(structures);
+    }
+
+    private static final class AdditionalSegmentKey {
+        // Compared by identity, repetitions of a segment can be equal
+        private final Structure primary;
+        private final List<String> primaryGroups;
+        private final List<String> groups;
+        private final String segment;
+
+        private AdditionalSegmentKey(Structure primary, List<String> primaryGroups, HL7Segment segment) {
+            this.primary = primary;
+            this.primaryGroups = ImmutableList.copyOf(primaryGroups);
+            this.groups = ImmutableList.copyOf(segment.getGroup());
+            this.segment = segment.getSegment();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof AdditionalSegmentKey)) {
+                return false;
+            }
+            AdditionalSegmentKey other = (AdditionalSegmentKey) obj;
+            return primary == other.primary && primaryGroups.equals(other.primaryGroups)
+                    && groups.equals(other.groups) && Objects.equals(segment, other.segment);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(primary), primaryGroups, groups, segment);
+        }
+    }
+
+}
@@ -42,6 +42,20 @@ public class SegmentExtractorUtil {
      */
     public static List<SegmentGroup> extractSegmentNonGroups(String segment,
             List<HL7Segment> additionalSegments, HL7DataExtractor dataExtractor) {
+        return extractSegmentNonGroups(segment, additionalSegments, dataExtractor, new SegmentExtractionMemo());
+    }
+
+    /**
+     * Returns list of segments and additional segments without group constraint.
+     *
+     * @param segment Segment to be extracted
+     * @param additionalSegments Additional segments to be tracked
+     * @param dataExtractor HL7 Data extractor to use
+     * @param memo Structures already resolved in the message of the data extractor
+     * @return List of {@link SegmentGroup}
+     */
+    public static List<SegmentGroup> extractSegmentNonGroups(String segment,
+            List<HL7Segment> additionalSegments, HL7DataExtractor dataExtractor, SegmentExtractionMemo memo) {
         LOGGER.debug("Extracting segment name {}", segment);
 
         List<SegmentGroup> returnValues = new ArrayList<>();
@@ -50,7 +64,7 @@ public class SegmentExtractorUtil {
 
         if (segments != null && !segments.isEmpty()) {
             Map<String, List<Structure>> additionalSegmentValues = extractAdditionalSegmentValueNonGroup(
-                    additionalSegments, dataExtractor);
+                    additionalSegments, dataExtractor, memo);
             returnValues.add(new SegmentGroup(segments, additionalSegmentValues));
         }
 
@@ -72,6 +86,26 @@ public class SegmentExtractorUtil {
     public static List<SegmentGroup> extractSegmentGroups(List<String> primaryGroup,
             String primarySegment, List<HL7Segment> additionalSegments, HL7DataExtractor dataExtractor,
             List<String> parentGroup) {
+        return extractSegmentGroups(primaryGroup, primarySegment, additionalSegments, dataExtractor, parentGroup,
+                new SegmentExtractionMemo());
+    }
+
+    /**
+     * Returns list of segments from all the repetitions of the group with a group name included in
+     * groupId
+     * 
+     * @param primaryGroup Group the segment is to be extracted from
+     * @param primarySegment Segment to be extracted
+     * @param additionalSegments Additional segments to be tracked
+     * @param dataExtractor HL7 Data extractor to use
+     * @param parentGroup Parent group
+     * @param memo Structures already resolved in the message of the data extractor
+     * 
+     * @return List of {@link SegmentGroup}
+     */
+    public static List<SegmentGroup> extractSegmentGroups(List<String> primaryGroup,
+            String primarySegment, List<HL7Segment> additionalSegments, HL7DataExtractor dataExtractor,
+            List<String> parentGroup, SegmentExtractionMemo memo) {
         Preconditions.checkArgument(primaryGroup != null,
                 "Groups list for segment to be extracted cannot be null");
         Preconditions.checkArgument(StringUtils.isNotBlank(primarySegment),
@@ -79,22 +113,22 @@ public class SegmentExtractorUtil {
         LOGGER.debug("Extracting segment from group {} segment name {}", primaryGroup, primarySegment);
 
         if (parentGroup == null || parentGroup.isEmpty()) {
-            List<Structure> parentSegments = getChildStructures(primaryGroup, dataExtractor);
+            List<Structure> parentSegments = getChildStructures(primaryGroup, dataExtractor, memo);
             return generateSegmentGroup(primarySegment, primaryGroup, additionalSegments, dataExtractor,
-                    parentSegments, primaryGroup);
+                    parentSegments, primaryGroup, memo);
         } else { // if parentGroup is not null then fetch parent group.
 
-            List<Structure> parentSegments = getChildStructures(parentGroup, dataExtractor);
+            List<Structure> parentSegments = getChildStructures(parentGroup, dataExtractor, memo);
 
             return generateSegmentGroup(primarySegment, primaryGroup, additionalSegments, dataExtractor,
-                    parentSegments, parentGroup);
+                    parentSegments, parentGroup, memo);
         }
     }
 
     private static List<SegmentGroup> generateSegmentGroup(String primarySegment,
             List<String> primaryGroup, List<HL7Segment> additionalSegments,
             HL7DataExtractor dataExtractor, List<Structure> parentSegments,
-            List<String> parentGroupUsedForParentSegment) {
+            List<String> parentGroupUsedForParentSegment, SegmentExtractionMemo memo) {
         List<SegmentGroup> returnValues = new ArrayList<>();
         List<String> relativePrimaryGroups = null;
 
@@ -105,13 +139,13 @@ public class SegmentExtractorUtil {
 
             List<Structure> primarySegments = getChildStructures(parent, relativePrimaryGroups, primarySegment,
                     dataExtractor);
+            String groupId = generateGroupId(parent, parentGroupUsedForParentSegment);
 
             for (Structure primary : primarySegments) {
                 // Extract additional structures
                 Map<String, List<Structure>> additionalSegmentValues = extractAdditionalSegmentValue(primary,
-                        primaryGroup, additionalSegments, dataExtractor);
+                        primaryGroup, additionalSegments, dataExtractor, memo);
 
-                String groupId = generateGroupId(parent, parentGroupUsedForParentSegment);
                 if (primarySegments != null && !primarySegments.isEmpty()) {
                     returnValues
                             .add(new SegmentGroup(Lists.newArrayList(primary), additionalSegmentValues, groupId));
@@ -141,6 +175,14 @@ public class SegmentExtractorUtil {
 
     }
 
+    private static List<Structure> getChildStructures(List<String> parentGroup,
+            HL7DataExtractor dataExtractor, SegmentExtractionMemo memo) {
+        if (parentGroup.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return memo.getGroupStructures(parentGroup, () -> getChildStructures(parentGroup, dataExtractor));
+    }
+
     private static List<Structure> getChildStructures(List<String> parentGroup,
             HL7DataExtractor dataExtractor) {
 
@@ -186,11 +228,12 @@ public class SegmentExtractorUtil {
 
     private static Map<String, List<Structure>> extractAdditionalSegmentValue(Structure primaryStruct,
             List<String> primaryGroups, List<HL7Segment> additionalSegments,
-            HL7DataExtractor dataExtractor) {
+            HL7DataExtractor dataExtractor, SegmentExtractionMemo memo) {
         Map<String, List<Structure>> additionalSegmentValues = new HashMap<>();
         for (HL7Segment seg : additionalSegments) {
 
-            List<Structure> values = extractEachAdditionalSegment(primaryStruct, primaryGroups, seg, dataExtractor);
+            List<Structure> values = memo.getAdditionalSegments(primaryStruct, primaryGroups, seg,
+                    () -> extractEachAdditionalSegment(primaryStruct, primaryGroups, seg, dataExtractor, memo));
             if (values != null && !values.isEmpty()) {
                 additionalSegmentValues.put(seg.getSegment(), values);
             }
@@ -199,7 +242,7 @@ public class SegmentExtractorUtil {
     }
 
     private static List<Structure> extractEachAdditionalSegment(Structure primaryStruct,
-            List<String> primaryGroups, HL7Segment seg, HL7DataExtractor dataExtractor) {
+            List<String> primaryGroups, HL7Segment seg, HL7DataExtractor dataExtractor, SegmentExtractionMemo memo) {
 
         List<Structure> values = null;
         List<String> groups = seg.getGroup();
@@ -208,7 +251,7 @@ public class SegmentExtractorUtil {
             values = getStructures(seg.getSegment(), dataExtractor);
         } else if (primaryGroups.isEmpty()) {
             // extract without parent
-            List<Structure> parentSegments = getChildStructures(seg.getGroup(), dataExtractor);
+            List<Structure> parentSegments = getChildStructures(seg.getGroup(), dataExtractor, memo);
             values = new ArrayList<>();
             for (Structure par : parentSegments) {
                 values.addAll(getStructures(par, seg.getSegment(), dataExtractor));
@@ -231,7 +274,7 @@ public class SegmentExtractorUtil {
 
         } else {
             //extracts data from segment that is in a group outside of the primary group for that specific resource
-            List<Structure> parentSegments = getChildStructures(seg.getGroup(), dataExtractor);
+            List<Structure> parentSegments = getChildStructures(seg.getGroup(), dataExtractor, memo);
             values = new ArrayList<>();
             for (Structure par : parentSegments) {
                 values.addAll(getStructures(par, seg.getSegment(), dataExtractor));
@@ -250,7 +293,7 @@ public class SegmentExtractorUtil {
     }
 
     private static Map<String, List<Structure>> extractAdditionalSegmentValueNonGroup(
-            List<HL7Segment> additionalSegments, HL7DataExtractor dataExtractor) {
+            List<HL7Segment> additionalSegments, HL7DataExtractor dataExtractor, SegmentExtractionMemo memo) {
         Map<String, List<Structure>> additionalSegmentValues = new HashMap<>();
         for (HL7Segment seg : additionalSegments) {
             List<Structure> values = null;
@@ -260,7 +303,7 @@ public class SegmentExtractorUtil {
 
             } else if (!seg.getGroup().isEmpty()) {
                 //extracts data from segment that is in a group outside of the primary group for that specific resource
-                List<Structure> parentSegments = getChildStructures(seg.getGroup(), dataExtractor);
+                List<Structure> parentSegments = getChildStructures(seg.getGroup(), dataExtractor, memo);
                 values = new ArrayList<>();
                 for (Structure par : parentSegments) {
                     values.addAll(getStructures(par, seg.getSegment(), dataExtractor));
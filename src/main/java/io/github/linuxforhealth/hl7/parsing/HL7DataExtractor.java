@@ -10,14 +10,15 @@ import java.util.List;
 import java.util.function.Predicate;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import ca.uhn.hl7v2.HL7Exception;
 import ca.uhn.hl7v2.model.Composite;
+import ca.uhn.hl7v2.model.GenericComposite;
 import ca.uhn.hl7v2.model.Group;
 import ca.uhn.hl7v2.model.Message;
 import ca.uhn.hl7v2.model.Primitive;
@@ -33,21 +34,41 @@ import io.github.linuxforhealth.hl7.parsing.result.Hl7ParsingStructureResult;
 import io.github.linuxforhealth.hl7.parsing.result.Hl7ParsingTypeResult;
 import io.github.linuxforhealth.hl7.parsing.result.ParsingResult;
 
+/**
+ * Reads the structures and values of a parsed message. A value the message does not have is
+ * returned as an empty result. Lookups of a segment, field or component the message structure
+ * does not define are checked before HAPI is asked, so they do not throw; they are counted as
+ * misses, see {@link #getMissCount()}, and logged at debug level only.
+ */
 public class HL7DataExtractor {
     private static final String CANNOT_EXTRACT_VALUE_FOR_REP_REASON = "Cannot extract value for {} rep {}";
 
-    private static final String SEGMENT_CANNOT_BE_NULL_OR_EMPTY = "segment cannot be null or empty";
-
-    private static final String REP_CANNOT_BE_NEGATIVE = "rep cannot be negative";
-
     private static final Logger LOGGER = LoggerFactory.getLogger(HL7DataExtractor.class);
 
+    // Results hold their values in private lists and return copies, so empty ones can be shared
+    private static final ParsingResult<Structure> NO_STRUCTURE = new Hl7ParsingStructureResult(new ArrayList<>());
+    private static final ParsingResult<Type> NO_TYPE = new Hl7ParsingTypeResult(new ArrayList<>());
+    private static final ParsingResult<String> NO_STRING = new Hl7ParsingStringResult(null);
+
     private final Message message;
+    // Built on first lookup, the message is read by one conversion at a time
+    private StructureIndex index;
+    private boolean indexBuilt;
+    private Terser terser;
+    private int missCount;
 
     public HL7DataExtractor(Message message) {
         this.message = message;
     }
 
+    /**
+     * @return number of lookups of a segment, field or component the message structure does not
+     *         define, or that HAPI failed to answer
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
     private static Predicate<Structure> isEmpty() {
         return (Structure p) -> {
             try {
@@ -63,34 +84,34 @@ public class HL7DataExtractor {
             int rep) {
 
         LOGGER.debug("Fetching segment: {} {} {} {}", group, groupRep, segment, rep);
+        if (StringUtils.isBlank(group) || StringUtils.isBlank(segment) || groupRep < 0 || rep < 0) {
+            return miss("Invalid segment {} {} {} rep {}", group, groupRep, segment, rep);
+        }
         try {
-            ParsingResult<Structure> parsingResult = null;
-
-            Preconditions.checkArgument(StringUtils.isNotBlank(group), "group cannot be null or empty");
-            Preconditions.checkArgument(StringUtils.isNotBlank(segment), SEGMENT_CANNOT_BE_NULL_OR_EMPTY);
-            Preconditions.checkArgument(groupRep >= 0, "groupRep should be greater than or equal to 0");
-            Preconditions.checkArgument(rep >= 0, "Segment rep cannot be less than 0");
+            Structure[] groups = getIndexed(message, group);
+            if (groups != null) {
+                Structure[] segments = groupRep < groups.length && groups[groupRep] instanceof Group
+                        ? getIndexed((Group) groups[groupRep], segment) : null;
+                Structure s = segments != null && rep < segments.length ? segments[rep] : null;
+                return index.isEmpty(s) ? NO_STRUCTURE : new Hl7ParsingStructureResult(s);
+            } else if (isIndexed(message)) {
+                return miss("Message has no group {}", group);
+            }
 
             Structure groupStr = message.get(group, groupRep);
             if (groupStr instanceof Group) {
                 Group gp = (Group) groupStr;
                 Structure s = gp.get(segment, rep);
                 if (s != null && !s.isEmpty()) {
-                    parsingResult = new Hl7ParsingStructureResult(s);
-                } else {
-                    parsingResult = new Hl7ParsingStructureResult(new ArrayList<>());
+                    return new Hl7ParsingStructureResult(s);
                 }
-
-            } else {
-                parsingResult = new Hl7ParsingStructureResult(new ArrayList<>());
             }
-
-            return parsingResult;
+            return NO_STRUCTURE;
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             String spec = group + " " + groupRep + " " + segment;
             LOGGER.debug(CANNOT_EXTRACT_VALUE_FOR_REP_REASON, spec, rep, e);
-            LOGGER.warn(CANNOT_EXTRACT_VALUE_FOR_REP_REASON, spec, rep);
-            return new Hl7ParsingStructureResult(new ArrayList<>());
+            missCount++;
+            return NO_STRUCTURE;
 
         }
     }
@@ -98,12 +119,18 @@ public class HL7DataExtractor {
     public ParsingResult<Structure> getAllStructures(String group, int groupRep, String segment) {
 
         LOGGER.debug("Fetching segment: {} {} {} ", group, groupRep, segment);
+        if (StringUtils.isBlank(group) || StringUtils.isBlank(segment) || groupRep < 0) {
+            return miss("Invalid segment {} {} {}", group, groupRep, segment);
+        }
         try {
-            ParsingResult<Structure> parsingResult = null;
-
-            Preconditions.checkArgument(StringUtils.isNotBlank(group), "group cannot be null or empty");
-            Preconditions.checkArgument(StringUtils.isNotBlank(segment), SEGMENT_CANNOT_BE_NULL_OR_EMPTY);
-            Preconditions.checkArgument(groupRep >= 0, "groupRep should be greater than or equal to 0");
+            Structure[] groups = getIndexed(message, group);
+            if (groups != null) {
+                Structure[] segments = groupRep < groups.length && groups[groupRep] instanceof Group
+                        ? getIndexed((Group) groups[groupRep], segment) : null;
+                return nonEmpty(segments);
+            } else if (isIndexed(message)) {
+                return miss("Message has no group {}", group);
+            }
 
             Structure groupStr = message.get(group, groupRep);
             if (groupStr instanceof Group) {
@@ -111,127 +138,129 @@ public class HL7DataExtractor {
                 Structure[] s = gp.getAll(segment);
                 List<Structure> list = Lists.newArrayList(s);
                 list.removeIf(isEmpty());
-                parsingResult = new Hl7ParsingStructureResult(Lists.newArrayList(list));
-            } else {
-                parsingResult = new Hl7ParsingStructureResult(new ArrayList<>());
+                return new Hl7ParsingStructureResult(list);
             }
-
-            return parsingResult;
+            return NO_STRUCTURE;
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             String spec = group + " " + groupRep + " " + segment;
             LOGGER.debug("Cannot extract value for {} ", spec, e);
-            LOGGER.warn("Cannot extract value for {} ", spec);
-
-            return new Hl7ParsingStructureResult(new ArrayList<>());
+            missCount++;
+            return NO_STRUCTURE;
 
         }
     }
 
     public boolean doesSegmentExists(String spec) {
         LOGGER.debug("Checking if segment exists: {}", spec);
+        if (StringUtils.isBlank(spec)) {
+            missCount++;
+            return false;
+        }
         try {
-            Preconditions.checkArgument(StringUtils.isNotBlank(spec),
-                    "Not a valid string to extract from Message");
+            Structure[] reps = getIndexed(message, spec);
+            if (reps != null && reps.length > 0) {
+                return true;
+            } else if (reps == null && isIndexed(message)) {
+                missCount++;
+                return false;
+            }
             Message unmodifiableMessage = Unmodifiable.unmodifiableMessage(message);
             Structure s = unmodifiableMessage.get(spec);
             return s != null;
 
         } catch (IllegalArgumentException | HL7Exception | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug("Cannot extract value for {} ", spec, e);
-            LOGGER.warn("Cannot extract value for {} ", spec);
-
+            missCount++;
             return false;
         }
     }
 
     public boolean doesSegmentExists(String spec, int rep) {
         LOGGER.debug("Checking if segment exists: {}", spec);
+        if (StringUtils.isBlank(spec) || rep < 0) {
+            missCount++;
+            return false;
+        }
         try {
-            Preconditions.checkArgument(StringUtils.isNotBlank(spec),
-                    "Not a valid string to extract from Terser");
-            Preconditions.checkArgument(rep >= 0, "Segment rep cannot be less than 0");
+            Structure[] reps = getIndexed(message, spec);
+            if (reps != null && rep < reps.length) {
+                return true;
+            } else if (reps == null && isIndexed(message)) {
+                missCount++;
+                return false;
+            }
             Message unmodifiableMessage = Unmodifiable.unmodifiableMessage(message);
             Structure s = unmodifiableMessage.get(spec, rep);
             return s != null;
 
         } catch (IllegalArgumentException | HL7Exception | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug(CANNOT_EXTRACT_VALUE_FOR_REP_REASON, spec, rep, e);
-            LOGGER.warn(CANNOT_EXTRACT_VALUE_FOR_REP_REASON, spec, rep);
-
+            missCount++;
             return false;
 
         }
     }
 
     public ParsingResult<Structure> getStructure(String structure, int rep) {
+        Structure[] reps = getIndexed(message, structure);
+        if (reps != null && rep >= 0 && rep < reps.length) {
+            return new Hl7ParsingStructureResult(reps[rep]);
+        }
         try {
-            ParsingResult<Structure> parsingResult = null;
             if (doesSegmentExists(structure, rep)) {
-                Preconditions.checkArgument(StringUtils.isNotBlank(structure),
-                        "Not a valid string to extract from Hl7");
-                Preconditions.checkArgument(rep >= 0, REP_CANNOT_BE_NEGATIVE);
                 LOGGER.debug("fetching values for spec {} rep {}", structure, rep);
-
-                parsingResult = new Hl7ParsingStructureResult(message.get(structure, rep));
-            } else {
-                parsingResult = new Hl7ParsingStructureResult(new ArrayList<>());
+                return new Hl7ParsingStructureResult(message.get(structure, rep));
             }
-            return parsingResult;
+            return NO_STRUCTURE;
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug(CANNOT_EXTRACT_VALUE_FOR_REP_REASON, structure, rep, e);
-            LOGGER.warn(CANNOT_EXTRACT_VALUE_FOR_REP_REASON, structure, rep);
-
-            return new Hl7ParsingStructureResult(new ArrayList<>());
+            missCount++;
+            return NO_STRUCTURE;
         }
     }
 
     public ParsingResult<Structure> getAllStructures(String structure) {
+        Structure[] reps = getIndexed(message, structure);
+        if (reps != null && reps.length > 0) {
+            return new Hl7ParsingStructureResult(Lists.newArrayList(reps));
+        }
         try {
-            ParsingResult<Structure> parsingResult = null;
             if (doesSegmentExists(structure)) {
-                Preconditions.checkArgument(StringUtils.isNotBlank(structure),
-                        "Not a valid string to extract from Hl7");
                 LOGGER.debug("fetching values for spec {}, ", structure);
                 Structure[] strs = message.getAll(structure);
-
-                parsingResult = new Hl7ParsingStructureResult(Lists.newArrayList(strs));
-            } else {
-                parsingResult = new Hl7ParsingStructureResult(new ArrayList<>());
+                return new Hl7ParsingStructureResult(Lists.newArrayList(strs));
             }
-            return parsingResult;
+            return NO_STRUCTURE;
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug("Cannot extract value for {} ", structure, e);
-            LOGGER.warn("Cannot extract value for {} ", structure);
-
-            return new Hl7ParsingStructureResult(new ArrayList<>());
+            missCount++;
+            return NO_STRUCTURE;
 
         }
     }
 
     public ParsingResult<Type> getType(Segment segment, int field, int rep) {
+        if (segment == null || field < 1 || rep < 0) {
+            return missingType("Segment {} has no field {} rep {}", segment, field, rep);
+        }
         try {
-
-            Preconditions.checkArgument(segment != null, "segment cannot be null");
-            Preconditions.checkArgument(field >= 1, "field cannot be negative");
-            Preconditions.checkArgument(rep >= 0, REP_CANNOT_BE_NEGATIVE);
             LOGGER.debug("fetching values for Segment {} field {} rep {}, ", segment, field, rep);
             return new Hl7ParsingTypeResult(segment.getField(field, rep));
 
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
 
             LOGGER.debug("Cannot extract value for {} rep {}  field {} ", segment, rep, field, e);
-            LOGGER.warn("Cannot extract value for {} rep {} field {} ", segment, rep, field);
-
-            return new Hl7ParsingTypeResult(new ArrayList<>());
+            missCount++;
+            return NO_TYPE;
 
         }
     }
 
     public ParsingResult<Type> getTypes(Segment segment, int field) {
+        if (segment == null || field < 1 || field > segment.numFields()) {
+            return missingType("Segment {} has no field {}", segment, field);
+        }
         try {
-            Preconditions.checkArgument(segment != null, "segment cannot be null");
-            Preconditions.checkArgument(field >= 1, "field cannot be negative");
-
             LOGGER.debug("fetching values for Segment {} field {}  ", segment, field);
             Type[] fields = segment.getField(field);
 
@@ -240,69 +269,130 @@ public class HL7DataExtractor {
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
 
             LOGGER.debug("Cannot extract value for segment {} field {} ", segment, field, e);
-            LOGGER.warn("Cannot extract value for segment {} field {} ", segment, field);
-
-            return new Hl7ParsingTypeResult(new ArrayList<>());
+            missCount++;
+            return NO_TYPE;
         }
     }
 
     public ParsingResult<Type> getComponent(Type inputType, int component) {
+        if (inputType == null || component < 1) {
+            return missingType("Type {} has no component {}", inputType, component);
+        }
         try {
-            Preconditions.checkArgument(inputType != null, "type!=null");
-            ParsingResult<Type> result;
             Type type = inputType;
             if (inputType instanceof Variable) {
                 type = ((Variable) inputType).getData();
             }
             if (type instanceof Composite) {
-                Type value = ((Composite) type).getComponent(component - 1);
-                if (value != null && !value.isEmpty()) {
-                    result = new Hl7ParsingTypeResult(((Composite) type).getComponent(component - 1));
-                } else {
-                    result = new Hl7ParsingTypeResult(new ArrayList<>());
+                Type[] components = ((Composite) type).getComponents();
+                if (component > components.length) {
+                    // Generic composites hold the components the message has, the others are empty
+                    return type instanceof GenericComposite ? NO_TYPE
+                            : missingType("Type {} has no component {}", inputType, component);
                 }
-            } else {
-                result = new Hl7ParsingTypeResult(type);
+                Type value = components[component - 1];
+                return value != null && !value.isEmpty() ? new Hl7ParsingTypeResult(value) : NO_TYPE;
             }
-            return result;
+            return new Hl7ParsingTypeResult(type);
 
         } catch (IllegalArgumentException | HL7Exception | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug("Cannot extract value for type {} component {} ", inputType, component, e);
-            LOGGER.warn("Cannot extract value for type {} component {} ", inputType, component);
-
-            return new Hl7ParsingTypeResult(new ArrayList<>());
+            missCount++;
+            return NO_TYPE;
 
         }
     }
 
     public ParsingResult<Type> getComponent(Type inputType, int component, int subComponent) {
+        if (inputType == null || component < 1 || subComponent < 1) {
+            return missingType("Type {} has no component {} subComponent {}", inputType, component,
+                    subComponent);
+        }
         try {
-            Preconditions.checkArgument(inputType != null, "inputType!=null");
-            ParsingResult<Type> result;
             Type type = inputType;
             if (inputType instanceof Variable) {
                 type = ((Variable) inputType).getData();
             }
             Primitive prim = Terser.getPrimitive(type, component, subComponent);
-            if (prim != null && !prim.isEmpty()) {
-                result = new Hl7ParsingTypeResult(prim);
-            } else {
-                result = new Hl7ParsingTypeResult(new ArrayList<>());
-            }
-            return result;
+            return prim != null && !prim.isEmpty() ? new Hl7ParsingTypeResult(prim) : NO_TYPE;
         } catch (IllegalArgumentException | HL7Exception | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug("Cannot extract value for type {} component {} subComponent {}  ", inputType, component,
                     subComponent, e);
-            LOGGER.warn("Cannot extract value for type {} component {},subComponent {} ",
-                    inputType, component, subComponent);
-
-            return new Hl7ParsingTypeResult(new ArrayList<>());
+            missCount++;
+            return NO_TYPE;
         }
     }
 
     private Terser getTerser() {
-        Message unmodifiableMessage = Unmodifiable.unmodifiableMessage(message);
-        return new Terser(unmodifiableMessage);
+        if (terser == null) {
+            // Every path the terser is asked for starts at the message, so it can be reused
+            terser = new Terser(Unmodifiable.unmodifiableMessage(message));
+        }
+        return terser;
+    }
+
+    /**
+     * Looks up the repetitions of a child of a group in the index of the message.
+     *
+     * @param group Group of the message
+     * @param name Name of the child
+     * @return the repetitions as parsed, or null if the index cannot answer and HAPI has to be
+     *         asked
+     */
+    private Structure[] getIndexed(Group group, String name) {
+        buildIndex();
+        return index != null && name != null ? index.getAll(group, name) : null;
+    }
+
+    /**
+     * @param group Group of the message
+     * @return true if every child of the group is in the index, so a name the index does not have
+     *         is not a child of the group
+     */
+    private boolean isIndexed(Group group) {
+        buildIndex();
+        return index != null && index.contains(group);
+    }
+
+    private void buildIndex() {
+        if (!indexBuilt) {
+            indexBuilt = true;
+            try {
+                index = StructureIndex.build(message);
+            } catch (HL7Exception | RuntimeException e) {
+                LOGGER.debug("Cannot index the structures of the message", e);
+            }
+        }
+    }
+
+    private ParsingResult<Structure> nonEmpty(Structure[] structures) {
+        List<Structure> list = new ArrayList<>();
+        if (structures != null) {
+            for (Structure s : structures) {
+                if (!index.isEmpty(s)) {
+                    list.add(s);
+                }
+            }
+        }
+        return list.isEmpty() ? NO_STRUCTURE : new Hl7ParsingStructureResult(list);
+    }
+
+    private ParsingResult<Structure> miss(String format, Object... arguments) {
+        LOGGER.debug(format, arguments);
+        missCount++;
+        return NO_STRUCTURE;
+    }
+
+    private ParsingResult<String> missingString(String format, Object... arguments) {
+        LOGGER.debug(format, arguments);
+        missCount++;
+        return NO_STRING;
+    }
+
+    private ParsingResult<Type> missingType(String format, Object... arguments) {
+        LOGGER.debug(format, arguments);
+        missCount++;
+        return NO_TYPE;
     }
 
     public static String getMessageType(Message message) {
@@ -322,25 +412,35 @@ public class HL7DataExtractor {
     }
 
     /**
-     * 
+     *
      * @param segment Segment to evaluate
      * @param field Field of segment
      * @return {@link ParsingResult}
      */
     public ParsingResult<String> get(String segment, String field) {
 
-        Preconditions.checkArgument(StringUtils.isNotBlank(segment), "segment cannot be blank");
-        Preconditions.checkArgument(StringUtils.isNotBlank(field), "field cannot be blank");
-
+        if (StringUtils.isBlank(segment) || StringUtils.isBlank(field)) {
+            return missingString("Invalid field {} {}", segment, field);
+        }
+        if (StringUtils.isAlphanumeric(segment)) {
+            Structure[] reps = getIndexed(message, segment);
+            if (reps == null && isIndexed(message)) {
+                return missingString("Message has no segment {}", segment);
+            } else if (reps != null && reps.length == 0) {
+                // The segment is not in the message
+                return NO_STRING;
+            } else if (reps != null && reps[0] instanceof Segment && NumberUtils.isDigits(field)
+                    && NumberUtils.toInt(field) > ((Segment) reps[0]).numFields()) {
+                return missingString("Segment {} has no field {}", segment, field);
+            }
+        }
         try {
             return new Hl7ParsingStringResult(getTerser().get("/" + segment + "-" + field));
 
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug("Cannot extract value for Segment {} field {}   ", segment, field, e);
-            LOGGER.warn("Cannot extract value for Segment {} field {}, reason {}", segment, field,
-                    e.getMessage());
-
-            return new Hl7ParsingStringResult(null);
+            missCount++;
+            return NO_STRING;
         }
     }
 
@@ -356,29 +456,27 @@ public class HL7DataExtractor {
 
     public ParsingResult<Structure> getAllStructures(Structure struct, String segment) {
         LOGGER.debug("Fetching segment: {} {}  ", struct, segment);
+        if (struct == null || StringUtils.isBlank(segment)) {
+            return miss("Invalid segment {} {}", struct, segment);
+        } else if (!(struct instanceof Group)) {
+            return NO_STRUCTURE;
+        }
+        Group gp = (Group) struct;
+        Structure[] reps = getIndexed(gp, segment);
+        if (reps != null) {
+            return nonEmpty(reps);
+        } else if (isIndexed(gp)) {
+            return miss("Group {} has no child {}", gp.getName(), segment);
+        }
         try {
-            ParsingResult<Structure> parsingResult = null;
-
-            Preconditions.checkArgument(struct != null, "struct cannot be null ");
-            Preconditions.checkArgument(StringUtils.isNotBlank(segment), SEGMENT_CANNOT_BE_NULL_OR_EMPTY);
-
-            if (struct instanceof Group) {
-                Group gp = (Group) struct;
-
-                Structure[] s = gp.getAll(segment);
-                List<Structure> list = Lists.newArrayList(s);
-                list.removeIf(isEmpty());
-
-                parsingResult = new Hl7ParsingStructureResult(list);
-            } else {
-                parsingResult = new Hl7ParsingStructureResult(new ArrayList<>());
-            }
-            return parsingResult;
+            Structure[] s = gp.getAll(segment);
+            List<Structure> list = Lists.newArrayList(s);
+            list.removeIf(isEmpty());
+            return new Hl7ParsingStructureResult(list);
         } catch (HL7Exception | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             LOGGER.debug("Cannot extract value for Structure {} Segment {} ", struct, segment, e);
-            LOGGER.warn("Cannot extract value for Structure {} Segment {} ", struct, segment);
-
-            return new Hl7ParsingStructureResult(new ArrayList<>());
+            missCount++;
+            return NO_STRUCTURE;
         }
     }
 }
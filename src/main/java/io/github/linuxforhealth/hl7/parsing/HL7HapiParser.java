@@ -12,6 +12,9 @@ import ca.uhn.hl7v2.parser.GenericParser;
 public class HL7HapiParser {
 
   private static final String SUPPORTED_HL7_VERSION = "2.6";
+  // HAPI parsers are not thread safe, each converting thread reuses its own parser.
+  private static final ThreadLocal<HL7HapiParser> THREAD_PARSER =
+      ThreadLocal.withInitial(HL7HapiParser::new);
   private DefaultHapiContext context;
   private GenericParser parser;
 
@@ -41,6 +44,16 @@ public class HL7HapiParser {
   }
 
 
+  /**
+   * Returns the parser of the current thread, created on first use. The parser must not be shared
+   * with other threads or closed.
+   *
+   * @return HL7HapiParser
+   */
+  public static HL7HapiParser forCurrentThread() {
+    return THREAD_PARSER.get();
+  }
+
   public DefaultHapiContext getContext() {
     return context;
   }
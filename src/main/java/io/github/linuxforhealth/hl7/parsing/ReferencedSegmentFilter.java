@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.parsing;
+
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Removes the fields of the segments a message template does not read from an ER7 (pipe and hat)
+ * encoded message before it is parsed. HAPI then parses only the fields of the referenced segments.
+ * The other segments are kept with their name and no fields, so their order, and with it the groups
+ * HAPI assigns the segments to, stays the same.
+ */
+public final class ReferencedSegmentFilter {
+
+    private static final String MSH = "MSH";
+    private static final int SEGMENT_NAME_LENGTH = 3;
+
+    private ReferencedSegmentFilter() {
+    }
+
+    /**
+     * Reads the message type from MSH-9 without parsing the message.
+     *
+     * @param hl7Message ER7 encoded message
+     * @return message type such as ADT_A01, or null if the message does not start with a MSH segment
+     *         with a message code and trigger event
+     */
+    public static String getMessageType(String hl7Message) {
+        if (!StringUtils.startsWith(hl7Message, MSH) || hl7Message.length() <= SEGMENT_NAME_LENGTH) {
+            return null;
+        }
+        char fieldSeparator = hl7Message.charAt(SEGMENT_NAME_LENGTH);
+        int end = segmentEnd(hl7Message, 0);
+        // MSH-1 is the field separator itself, so the separator after the segment name starts MSH-2
+        int start = SEGMENT_NAME_LENGTH;
+        for (int field = 2; field < 9 && start >= 0; field++) {
+            start = hl7Message.indexOf(fieldSeparator, start + 1);
+            if (start >= end) {
+                start = -1;
+            }
+        }
+        if (start < 0 || end <= SEGMENT_NAME_LENGTH + 1) {
+            return null;
+        }
+        int fieldEnd = hl7Message.indexOf(fieldSeparator, start + 1);
+        String messageType = hl7Message.substring(start + 1, fieldEnd >= 0 && fieldEnd < end ? fieldEnd : end);
+        // MSH-2 starts with the component separator
+        String[] components = StringUtils.splitPreserveAllTokens(messageType, hl7Message.charAt(4));
+        if (components.length < 2 || StringUtils.isAnyBlank(components[0], components[1])) {
+            return null;
+        }
+        return components[0] + "_" + components[1];
+    }
+
+    /**
+     * @param hl7Message ER7 encoded message, segments separated by carriage returns or line feeds
+     * @param referencedSegments Names of the segments to keep with their fields, MSH is always kept
+     * @return the message with only the names of the other segments
+     */
+    public static String filter(String hl7Message, Set<String> referencedSegments) {
+        if (!StringUtils.startsWith(hl7Message, MSH) || hl7Message.length() <= SEGMENT_NAME_LENGTH) {
+            return hl7Message;
+        }
+        char fieldSeparator = hl7Message.charAt(SEGMENT_NAME_LENGTH);
+        StringBuilder filtered = null;
+        int copied = 0;
+        int start = 0;
+        while (start < hl7Message.length()) {
+            int end = segmentEnd(hl7Message, start);
+            int nameEnd = start + SEGMENT_NAME_LENGTH;
+            if (nameEnd < end && hl7Message.charAt(nameEnd) == fieldSeparator) {
+                String name = hl7Message.substring(start, nameEnd);
+                if (!MSH.equals(name) && !referencedSegments.contains(name)) {
+                    if (filtered == null) {
+                        filtered = new StringBuilder(hl7Message.length());
+                    }
+                    filtered.append(hl7Message, copied, nameEnd);
+                    copied = end;
+                }
+            }
+            start = end + 1;
+        }
+        if (filtered == null) {
+            return hl7Message;
+        }
+        return filtered.append(hl7Message, copied, hl7Message.length()).toString();
+    }
+
+    private static int segmentEnd(String hl7Message, int start) {
+        for (int i = start; i < hl7Message.length(); i++) {
+            char c = hl7Message.charAt(i);
+            if (c == '\r' || c == '\n') {
+                return i;
+            }
+        }
+        return hl7Message.length();
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.parsing;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Group;
+import ca.uhn.hl7v2.model.Message;
+import ca.uhn.hl7v2.model.Structure;
+
+/**
+ * Groups and segments of a parsed message, collected in one traversal of the message. For every
+ * group the repetitions of each of its children are kept by name, together with whether each
+ * structure is empty, so looking up a structure does not go through HAPI, which creates missing
+ * structures and throws for names the group does not have.
+ *
+ * The index is of the message as parsed. Structures HAPI creates afterwards, when a missing
+ * structure is looked up, are empty and are not in the index.
+ */
+final class StructureIndex {
+
+    private final Map<Group, Map<String, Structure[]>> children = new IdentityHashMap<>();
+    private final Set<Structure> empty = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private StructureIndex() {
+    }
+
+    static StructureIndex build(Message message) throws HL7Exception {
+        StructureIndex index = new StructureIndex();
+        index.add(message);
+        return index;
+    }
+
+    /**
+     * @param group Group of the message
+     * @param name Name of a child of the group
+     * @return the repetitions of the child, empty ones included, or null if the group is not in the
+     *         index or has no child with the name
+     */
+    Structure[] getAll(Group group, String name) {
+        Map<String, Structure[]> groupChildren = children.get(group);
+        return groupChildren != null ? groupChildren.get(name) : null;
+    }
+
+    /**
+     * @param group Group of the message
+     * @return true if the group and all its children are in the index
+     */
+    boolean contains(Group group) {
+        return children.containsKey(group);
+    }
+
+    /**
+     * @param structure Structure of the message
+     * @return true if the structure has no value
+     */
+    boolean isEmpty(Structure structure) {
+        return structure == null || empty.contains(structure);
+    }
+
+    // Adds the group and its children, returns true if none of them has a value
+    private boolean add(Group group) throws HL7Exception {
+        Map<String, Structure[]> groupChildren = new HashMap<>();
+        boolean groupEmpty = true;
+        for (String name : group.getNames()) {
+            Structure[] reps = group.getAll(name);
+            groupChildren.put(name, reps);
+            for (Structure rep : reps) {
+                boolean repEmpty = rep instanceof Group ? add((Group) rep) : rep.isEmpty();
+                if (repEmpty) {
+                    empty.add(rep);
+                }
+                groupEmpty &= repEmpty;
+            }
+        }
+        children.put(group, groupChildren);
+        if (groupEmpty) {
+            empty.add(group);
+        }
+        return groupEmpty;
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package io.github.linuxforhealth.hl7.resource;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,6 +23,7 @@ import io.github.linuxforhealth.core.exception.DataExtractionException;
 import io.github.linuxforhealth.core.exception.RequiredConstraintFailureException;
 import io.github.linuxforhealth.core.resource.ResourceResult;
 import io.github.linuxforhealth.core.resource.SimpleResourceValue;
+import io.github.linuxforhealth.hl7.expression.ExpressionProfiler;
 import io.github.linuxforhealth.hl7.resource.deserializer.HL7DataBasedResourceDeserializer;
 import io.github.linuxforhealth.hl7.util.ExpressionUtility;
 
@@ -30,7 +32,7 @@ public class HL7DataBasedResourceModel implements ResourceModel {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HL7DataBasedResourceModel.class);
 
-    private Map<String, Expression> expressions;
+    private final Map<String, Expression> expressions;
     private String spec;
 
     private String name;
@@ -44,8 +46,8 @@ public class HL7DataBasedResourceModel implements ResourceModel {
 
     public HL7DataBasedResourceModel(String name, Map<String, Expression> expressions,
             String hl7spec) {
-        this.expressions = new HashMap<>();
-        this.expressions.putAll(expressions);
+        // Read only, the model is shared by every template using it
+        this.expressions = Collections.unmodifiableMap(new HashMap<>(expressions));
         this.spec = hl7spec;
 
         this.name = name;
@@ -65,7 +67,7 @@ public class HL7DataBasedResourceModel implements ResourceModel {
     public ResourceResult evaluate(InputDataExtractor dataSource,
             Map<String, EvaluationResult> context, EvaluationResult baseValue) {
         ResourceResult resources = null;
-
+        ExpressionProfiler.Frame profile = ExpressionProfiler.enter(this.name);
         try {
 
             ResourceEvaluationResult result = ExpressionUtility.evaluate(dataSource, context, baseValue,
@@ -88,6 +90,8 @@ public class HL7DataBasedResourceModel implements ResourceModel {
             LOGGER.debug("Exception during resource {} evaluation reason {}", this.name, e.toString());
             return null;
 
+        } finally {
+            ExpressionProfiler.exit(profile, resources == null);
         }
         return resources;
     }
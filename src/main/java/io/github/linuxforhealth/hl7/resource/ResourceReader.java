@@ -14,6 +14,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -27,6 +29,8 @@ import io.github.linuxforhealth.api.ResourceModel;
 import io.github.linuxforhealth.core.Constants;
 import io.github.linuxforhealth.core.ObjectMapperUtil;
 import io.github.linuxforhealth.core.config.ConverterConfiguration;
+import io.github.linuxforhealth.core.config.ConverterConfiguration.TemplateLoading;
+import io.github.linuxforhealth.core.config.ConverterRegistry;
 import io.github.linuxforhealth.hl7.message.HL7FHIRResourceTemplate;
 import io.github.linuxforhealth.hl7.message.HL7FHIRResourceTemplateAttributes;
 import io.github.linuxforhealth.hl7.message.HL7MessageModel;
@@ -43,9 +47,20 @@ public class ResourceReader {
 
   private final Logger LOGGER = LoggerFactory.getLogger(ResourceReader.class);
 
-  private static ResourceReader reader;
+  private final ConverterConfiguration converterConfig;
+  // Resource models by path, built once and shared by every template and expression using them
+  private final Map<String, ResourceModel> resourceModels = new ConcurrentHashMap<>();
 
-  private final ConverterConfiguration converterConfig = ConverterConfiguration.getInstance();
+  /**
+   * Creates a reader for the resource locations of the configuration. Use {@link #getInstance()} for
+   * the reader of the current configuration.
+   * 
+   * @param converterConfig {@link ConverterConfiguration}
+   */
+  public ResourceReader(ConverterConfiguration converterConfig) {
+    Preconditions.checkArgument(converterConfig != null, "converterConfig cannot be null");
+    this.converterConfig = converterConfig;
+  }
 
   /**
    * Loads a file resource configuration, returning a String
@@ -112,25 +127,55 @@ public class ResourceReader {
 
   /**
    * Returns all message templates in the configured location(s)
-   * Relies on the values in config.properties.
+   * Relies on the values in config.properties. With template.loading set to parallel the templates
+   * are loaded on all cores, otherwise one after the other.
    * 
    * @return Map of messages, by message title.
    */
   public Map<String, HL7MessageModel> getMessageTemplates() {
+    List<String> supportedMessageTemplates = getMessageTemplateNames();
+    if (converterConfig.getTemplateLoading() == TemplateLoading.PARALLEL) {
+      // Resource models are shared through the memo, so parallel loads build each model once. The
+      // worker threads build them with the registry of the calling thread.
+      ConverterRegistry registry = ConverterRegistry.getInstance();
+      return supportedMessageTemplates.parallelStream().collect(Collectors.toMap(
+          ResourceReader::getMessageType, template -> {
+            try (ConverterRegistry.Scope scope = registry.pin()) {
+              return getMessageTemplate(template);
+            }
+          }, (first, second) -> second));
+    }
     Map<String, HL7MessageModel> messagetemplates = new HashMap<>();
-    List<String> supportedMessageTemplates = ConverterConfiguration.getInstance().getSupportedMessageTemplates();
+    for (String template : supportedMessageTemplates) {
+      HL7MessageModel rm = getMessageTemplate(template);
+      messagetemplates.put(getMessageType(template),
+          rm);
+    }
+    return messagetemplates;
+  }
+
+  /**
+   * Returns the names of the message templates to load, from supported.hl7.messages or, with a
+   * wildcard, the files in the configured location(s). Nothing is read from the templates.
+   * 
+   * @return Template names, with or without .yml extension
+   */
+  public List<String> getMessageTemplateNames() {
+    List<String> supportedMessageTemplates = converterConfig.getSupportedMessageTemplates();
     if (hasWildcard(supportedMessageTemplates)) {
       // Code currently assumes we do no use the list of supported messages, once we see an *.
       // In future if needed to merge, it would go here.
-      supportedMessageTemplates.clear();
       supportedMessageTemplates = findAllMessageTemplateNames();
     }
-    for (String template : supportedMessageTemplates) {
-      HL7MessageModel rm = getMessageModel(template);
-      messagetemplates.put(com.google.common.io.Files.getNameWithoutExtension(template),
-          rm);
-    }
-    return messagetemplates;
+    return supportedMessageTemplates;
+  }
+
+  /**
+   * @param templateName Template name, with or without .yml extension
+   * @return the message type of the template, the name without extension
+   */
+  public static String getMessageType(String templateName) {
+    return com.google.common.io.Files.getNameWithoutExtension(templateName);
   }
 
   private boolean hasWildcard(List<String> supportedMessageTemplates) {
@@ -170,7 +215,14 @@ public class ResourceReader {
     return foundTemplates;
   }
 
-  private HL7MessageModel getMessageModel(String templateName) {
+  /**
+   * Loads one message template.
+   * 
+   * @param templateName Template name, with or without .yml extension
+   * @return {@link HL7MessageModel}
+   * @throws IllegalArgumentException - If the template cannot be found or read
+   */
+  public HL7MessageModel getMessageTemplate(String templateName) {
     // Allow for names that already have .yml extension
     String yamlizedTemplateName = templateName.endsWith(".yml") ? templateName : templateName + ".yml";
     String templateFileContent = getResourceInHl7Folder(Constants.MESSAGE_BASE_PATH + yamlizedTemplateName);
@@ -205,14 +257,38 @@ public class ResourceReader {
 
   }
 
+  /**
+   * Returns the resource model of a template, such as datatype/Reference. The model is read and
+   * built on first use only, later calls with the same path return the same model. Models are
+   * immutable after they are built and are shared by all templates and expressions that use them,
+   * until the registry is reset.
+   * 
+   * @param path Path of the template in the hl7 folder, without the .yml extension
+   * @return {@link ResourceModel}
+   */
   public ResourceModel generateResourceModel(String path) {
     Preconditions.checkArgument(StringUtils.isNotBlank(path), "Path for resource cannot be blank");
+    ResourceModel model = resourceModels.get(path);
+    if (model == null) {
+      // Not computeIfAbsent: building a model builds the models it refers to, which updates the map
+      // while the mapping function runs. Two threads may build the same model, but one is kept.
+      ResourceModel built = buildResourceModel(path);
+      model = resourceModels.putIfAbsent(path, built);
+      if (model == null) {
+        model = built;
+      }
+    }
+    return model;
+  }
+
+  private ResourceModel buildResourceModel(String path) {
     String templateFileContent = getResourceInHl7Folder(path + ".yml");
 
     try {
       InjectableValues injValues = new InjectableValues.Std().addValue("resourceName", path);
-      return ObjectMapperUtil.getYAMLInstance().setInjectableValues(injValues)
-          .readValue(templateFileContent, HL7DataBasedResourceModel.class);
+      // A reader with its own injectable values, as models are built from several threads
+      return ObjectMapperUtil.getYAMLInstance().readerFor(HL7DataBasedResourceModel.class)
+          .with(injValues).readValue(templateFileContent);
 
     } catch (IOException e) {
       throw new IllegalArgumentException("Error encountered in processing the template" + path, e);
@@ -221,14 +297,15 @@ public class ResourceReader {
   }
 
   public static ResourceReader getInstance() {
-    if (reader == null) {
-      reader = new ResourceReader();
-    }
-    return reader;
+    return ConverterRegistry.getInstance().getResourceReader();
   }
 
+  /**
+   * Reloads the configuration and everything that is loaded from it, see
+   * {@link ConverterRegistry#reset()}.
+   */
   public static void reset() {
-    reader = null;
+    ConverterRegistry.reset();
   }
 
   public String getResourceInHl7Folder(String path) {
@@ -12,10 +12,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -32,26 +32,14 @@ public class HL7DataBasedResourceDeserializer extends JsonDeserializer<HL7DataBa
 
   private static final String RESOURCE_TYPE_FIELD_NAME = "resourceType";
   private static final String SPEC = "specs";
-  private static Map<String, Expression> commonExpressions;
-
   private static final ObjectMapper MAPPER = ObjectMapperUtil.getYAMLInstance();
   private static final Logger LOGGER = LoggerFactory.getLogger(HL7DataBasedResourceDeserializer.class);
+  private static final String COMMON_RESOURCE = StringUtils.removeEnd(Constants.COMMON_RESOURCE_PATH, ".yml");
 
-  // Reads the resource/Common.yml and generates expressions from it.
-  private static synchronized Map<String, Expression> getCommonExpressions() throws JsonProcessingException {
-
-      if (commonExpressions == null) {
-
-        // generate the common expressions from the Common YAML file.
-        commonExpressions = new HashMap<>();
-        String path = ResourceReader.getInstance().getResource(Constants.HL7_BASE_PATH + Constants.COMMON_RESOURCE_PATH);
-        JsonNode node = ObjectMapperUtil.getYAMLInstance().readTree(path);
-        Map<String, Expression> expressions = generateExpressions(node);
-
-        commonExpressions.putAll(expressions);
-      }
-
-    return commonExpressions;
+  // Expressions of resource/Common.yml. The common resource has no resourceType, so it does not get
+  // the common expressions itself, and it is built once per registry like the other resource models.
+  private static Map<String, Expression> getCommonExpressions() {
+    return ResourceReader.getInstance().generateResourceModel(COMMON_RESOURCE).getExpressions();
   }
 
   @Override
@@ -27,6 +27,7 @@ import io.github.linuxforhealth.core.exception.DataExtractionException;
 import io.github.linuxforhealth.core.exception.RequiredConstraintFailureException;
 import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
 import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.core.expression.ScopedContextMap;
 import io.github.linuxforhealth.hl7.message.HL7MessageData;
 import io.github.linuxforhealth.hl7.resource.PendingExpressionState;
 import io.github.linuxforhealth.hl7.resource.ResourceEvaluationResult;
@@ -57,7 +58,7 @@ public class ExpressionUtility {
 
         try {
             Map<String, Expression> expressionsToEvaluateLater = new HashMap<>();
-            Map<String, EvaluationResult> localContext = new HashMap<>(context);
+            Map<String, EvaluationResult> localContext = ScopedContextMap.scope(context);
             localContext.put(Constants.NULL_VAR_NAME, new EmptyEvaluationResult());
             // initialize the map and list to collect values
             List<ResourceValue> additionalResolveValues = new ArrayList<>();
@@ -99,12 +100,12 @@ public class ExpressionUtility {
         LOGGER.debug("Evaluated {} {} value returned {} ", entry.getKey(), entry.getValue(), obj);
 
         if (obj != null && !obj.isEmpty()) {
-            String keyNameSuffix = getKeyNameSuffix(localContext);
+            String keyName = getKeyName(entry.getKey(), getKeyNameSuffix(localContext));
             // Check if the key already exist in the HashMap, if found append, do not replace
-            if (!resolveValues.containsKey(getKeyName(entry.getKey(), keyNameSuffix))) {
-                resolveValues.put(getKeyName(entry.getKey(), keyNameSuffix), obj.getValue());
+            if (!resolveValues.containsKey(keyName)) {
+                resolveValues.put(keyName, obj.getValue());
             } else {
-                Object existing = resolveValues.get(getKeyName(entry.getKey(), keyNameSuffix));
+                Object existing = resolveValues.get(keyName);
                 if (existing instanceof List) {
                     if (obj.getValue() instanceof List) {
                         ((List<Object>) existing).addAll(obj.getValue());
@@ -164,7 +165,7 @@ public class ExpressionUtility {
             Map<String, EvaluationResult> context, Map<String, Expression> expressionMap) {
         try {
 
-            Map<String, EvaluationResult> localContext = new HashMap<>(context);
+            Map<String, EvaluationResult> localContext = ScopedContextMap.scope(context);
             Map<String, Object> resolveValues = new HashMap<>();
             List<ResourceValue> additionalResolveValues = new ArrayList<>();
             for (Entry<String, Expression> entry : expressionMap.entrySet()) {
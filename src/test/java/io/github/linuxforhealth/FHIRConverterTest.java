@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -38,6 +39,7 @@ import ca.uhn.hl7v2.model.Message;
 import ca.uhn.hl7v2.util.Hl7InputStreamMessageStringIterator;
 import io.github.linuxforhealth.core.Constants;
 import io.github.linuxforhealth.fhir.FHIRContext;
+import io.github.linuxforhealth.hl7.ConversionResult;
 import io.github.linuxforhealth.hl7.ConverterOptions;
 import io.github.linuxforhealth.hl7.ConverterOptions.Builder;
 import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
@@ -343,6 +345,48 @@ class FHIRConverterTest {
         assertThat(b.getType()).isEqualTo(BundleType.COLLECTION);
     }
 
+    @Test
+    void test_convert_all_messages_in_stream() throws IOException {
+        String[] messageFiles = { "ADT_A01", "ORU_R01", "ADT_A02", "VXU_V04" };
+        StringBuilder stream = new StringBuilder();
+        for (String messageFile : messageFiles) {
+            stream.append(IOUtils.toString(new File("src/test/resources/messages/" + messageFile + ".hl7").toURI(),
+                    StandardCharsets.UTF_8));
+        }
+        // A message that cannot be parsed
+        stream.append("MSH|^~\\&|||||20210407191342||ADT^A01|MSGID|T|9.9\n");
+
+        List<ConversionResult> results = new ArrayList<>();
+        long count = ftv.convertAll(IOUtils.toInputStream(stream.toString(), StandardCharsets.UTF_8), OPTIONS,
+                results::add);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(results).extracting(ConversionResult::getMessageIndex).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(results).extracting(ConversionResult::isSuccess).containsExactly(true, true, false, true,
+                false);
+        // ADT_A02 is not in the supported messages of the default configuration
+        assertThat(results.get(2).getException()).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(results.get(2).getBundle()).isNull();
+        assertThat(results.get(4).getException()).isInstanceOf(IllegalArgumentException.class);
+
+        // Each bundle of the stream matches the single message conversion
+        for (int i : new int[] { 0, 1, 3 }) {
+            String hl7message = IOUtils.toString(
+                    new File("src/test/resources/messages/" + messageFiles[i] + ".hl7").toURI(), StandardCharsets.UTF_8);
+            Bundle expected = ftv.convertToBundle(hl7message, OPTIONS, null);
+            Bundle actual = results.get(i).getBundle();
+            assertThat(actual.getEntry()).extracting(en -> en.getResource().getResourceType())
+                    .containsExactlyElementsOf(expected.getEntry().stream()
+                            .map(en -> en.getResource().getResourceType()).collect(Collectors.toList()));
+            verifyBundleJson(results.get(i).getBundleAsJson(), actual.getEntry().size());
+        }
+    }
+
+    private void verifyBundleJson(String json, int expectedEntries) {
+        Bundle b = (Bundle) new FHIRContext().getParser().parseResource(json);
+        assertThat(b.getEntry()).hasSize(expectedEntries);
+    }
+
     private void verifyResult(String json, BundleType expectedBundleType) {
         verifyResult(json, expectedBundleType, true);
     }
@@ -8,9 +8,11 @@ package io.github.linuxforhealth.core.config;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Properties;
 
 import org.junit.jupiter.api.AfterAll;
@@ -20,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import io.github.linuxforhealth.core.Constants;
+import io.github.linuxforhealth.core.terminology.CompiledConceptMap;
 import io.github.linuxforhealth.core.terminology.UrlLookup;
 
 class ConverterConfigurationTest {
@@ -71,6 +74,25 @@ class ConverterConfigurationTest {
         configFile.delete();
     }
 
+    @Test
+    void test_that_compiled_additional_conceptmap_values_are_loaded() throws IOException {
+        File compiled = new File(folder, "additional_conceptmap.bin");
+        try (InputStream yaml = new FileInputStream("src/test/resources/additional_conceptmap.yml")) {
+            CompiledConceptMap.compile(yaml, compiled.toPath());
+        }
+        File configFile = new File(folder, "config.properties");
+        Properties prop = new Properties();
+        prop.put("additional.conceptmap.file", compiled.getPath());
+        prop.store(new FileOutputStream(configFile), null);
+        System.setProperty(CONF_PROP_HOME, configFile.getParent());
+        ConverterConfiguration.reset();
+        assertThat(UrlLookup.getSystemUrl("LN")).isEqualTo("http://loinc-additional.org");
+        assertThat(UrlLookup.getSystemUrl("SCT")).isEqualTo("http://snomed.info/sct");
+        assertThat(UrlLookup.getExtensionUrl("mothersMaidenName"))
+                .isEqualTo("http://hl7.org/fhir/StructureDefinition/patient-mothersMaidenName");
+        configFile.delete();
+    }
+
     @Test
     void testConfigurationValuesAreSetAndRetrieved() throws IOException {
         // Create our own properties file
@@ -85,6 +107,8 @@ class ConverterConfigurationTest {
         assertThat(theConvConfig.getAdditionalConceptmapFile())
                 .isEqualTo("src/test/resources/additional_conceptmap.yml");
         assertThat(theConvConfig.getAdditionalResourcesLocation()).isEqualTo("src/test/resources/additional_resources");
+        assertThat(theConvConfig.getTemplateLoading()).isEqualTo(ConverterConfiguration.TemplateLoading.EAGER);
+        assertThat(theConvConfig.isParseReferencedSegmentsOnly()).isFalse();
         configFile.delete();
     }
 
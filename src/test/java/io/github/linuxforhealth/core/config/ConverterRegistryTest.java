@@ -0,0 +1,137 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.linuxforhealth.core.Constants;
+import io.github.linuxforhealth.core.terminology.UrlLookup;
+import io.github.linuxforhealth.fhir.FHIRResourceMapper;
+import io.github.linuxforhealth.hl7.resource.ResourceReader;
+
+class ConverterRegistryTest {
+
+    @AfterEach
+    void reset() {
+        ConverterRegistry.reset();
+    }
+
+    @Test
+    void testRegistryIsSharedUntilReset() {
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        assertThat(ConverterRegistry.getInstance()).isSameAs(registry);
+        assertThat(ConverterConfiguration.getInstance()).isSameAs(registry.getConfiguration());
+        assertThat(ResourceReader.getInstance()).isSameAs(registry.getResourceReader());
+
+        ResourceReader.reset();
+        ConverterRegistry reloaded = ConverterRegistry.getInstance();
+        assertThat(reloaded).isNotSameAs(registry);
+        assertThat(ConverterConfiguration.getInstance()).isSameAs(reloaded.getConfiguration());
+
+        // The previous snapshot is still complete and usable
+        assertThat(registry.getResourceClass("Patient")).isEqualTo(Patient.class);
+        assertThat(registry.getUrlMap(Constants.CODING_SYSTEM_MAPPING).keySet())
+                .isEqualTo(reloaded.getUrlMap(Constants.CODING_SYSTEM_MAPPING).keySet());
+    }
+
+    @Test
+    void testReloadUrlMapKeepsTheOtherTables() {
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        UrlLookup.reset(Constants.EXTENSION_URL_MAPPING);
+        ConverterRegistry reloaded = ConverterRegistry.getInstance();
+
+        assertThat(reloaded).isNotSameAs(registry);
+        assertThat(reloaded.getResourceReader()).isSameAs(registry.getResourceReader());
+        assertThat(reloaded.getUrlMap(Constants.CODING_SYSTEM_MAPPING))
+                .isSameAs(registry.getUrlMap(Constants.CODING_SYSTEM_MAPPING));
+        assertThat(reloaded.getUrlMap(Constants.EXTENSION_URL_MAPPING))
+                .isNotSameAs(registry.getUrlMap(Constants.EXTENSION_URL_MAPPING));
+        assertThat(reloaded.getUrlMap(Constants.EXTENSION_URL_MAPPING).keySet())
+                .isEqualTo(registry.getUrlMap(Constants.EXTENSION_URL_MAPPING).keySet());
+        assertThrows(IllegalArgumentException.class, () -> UrlLookup.reset("NOT_A_URL_TYPE"));
+    }
+
+    @Test
+    void testLookupTablesAreImmutable() {
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        assertThat(registry.getHl7v2Mapping("AdministrativeGender")).containsEntry("F", "female");
+        assertThrows(UnsupportedOperationException.class,
+                () -> registry.getHl7v2Mapping("AdministrativeGender").put("X", "unknown"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> registry.getUrlMap(Constants.CODING_SYSTEM_MAPPING).clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> registry.getConfiguration().getSupportedMessageTemplates().clear());
+        assertThat(registry.getHl7v2Mapping("NotAConcept")).isNull();
+        assertThat(registry.getResourceClass("NotAResource")).isNull();
+        assertThrows(IllegalStateException.class, () -> FHIRResourceMapper.getResourceClass("NotAResource"));
+    }
+
+    @Test
+    void testLookupsDuringConcurrentResets() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        assertThat(UrlLookup.getSystemUrl("LN")).isEqualTo("http://loinc.org");
+                        assertThat(FHIRResourceMapper.getResourceClass("Patient")).isEqualTo(Patient.class);
+                    }
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5; i++) {
+                    ConverterRegistry.reset();
+                }
+            }));
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPinnedRegistryIsUsedUntilScopeIsClosed() {
+        ConverterRegistry pinned = ConverterRegistry.getInstance();
+        try (ConverterRegistry.Scope scope = pinned.pin()) {
+            ConverterRegistry reloaded = ConverterRegistry.reload();
+            assertThat(reloaded).isNotSameAs(pinned);
+            assertThat(ConverterRegistry.getInstance()).isSameAs(pinned);
+            assertThat(ResourceReader.getInstance()).isSameAs(pinned.getResourceReader());
+            try (ConverterRegistry.Scope nested = reloaded.pin()) {
+                assertThat(ConverterRegistry.getInstance()).isSameAs(reloaded);
+            }
+            assertThat(ConverterRegistry.getInstance()).isSameAs(pinned);
+        }
+        assertThat(ConverterRegistry.getInstance()).isNotSameAs(pinned);
+    }
+
+    @Test
+    void testReloadPublishesRegistryWithLoadedTemplates() {
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        ConverterRegistry reloaded = ConverterRegistry.reload();
+        assertThat(ConverterRegistry.getInstance()).isSameAs(reloaded);
+        assertThat(reloaded.getMessageTemplates().get("ADT_A01")).isNotNull()
+                .isNotSameAs(registry.getMessageTemplates().get("ADT_A01"));
+        assertThat(reloaded.getMessageTemplates().size())
+                .isEqualTo(reloaded.getConfiguration().getSupportedMessageTemplates().size());
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
+
+class ResourceWatcherTest {
+
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+    private static final String MESSAGE = "MSH|^~\\&|hl7Integration|hl7Integration|||||ADT^A01|||2.3|\r"
+            + "EVN|A01|20130617154644\r"
+            + "PID|1|465 306 5961||407623|Wood^Patrick^^^MR||19700101|female|||High Street^^Oxford^^Ox1 4DP|||||||\r"
+            + "PV1|1|I|||||||||||||||||||||||||||||||||||||||||||||||||||";
+    // ADT_A01 with only MessageHeader and Patient
+    private static final String PATIENT_ONLY_TEMPLATE = "resources:\n"
+            + "  - resourceName: MessageHeader\n"
+            + "    segment: MSH\n"
+            + "    resourcePath: resource/MessageHeader\n"
+            + "    repeats: false\n"
+            + "    isReferenced: false\n"
+            + "    additionalSegments:\n"
+            + "      - EVN\n"
+            + "  - resourceName: Patient\n"
+            + "    segment: PID\n"
+            + "    resourcePath: resource/Patient\n"
+            + "    repeats: false\n"
+            + "    isReferenced: true\n"
+            + "    additionalSegments:\n"
+            + "      - MSH\n";
+
+    @TempDir
+    File folder;
+
+    @AfterEach
+    void reset() {
+        System.clearProperty(CONF_PROP_HOME);
+        ConverterRegistry.reset();
+    }
+
+    @Test
+    void testConversionsContinueAcrossReload() throws Exception {
+        // Resources not in the folder are read from the classpath
+        Path template = folder.toPath().resolve("hl7/message/ADT_A01.yml");
+        Files.createDirectories(template.getParent());
+        Files.copy(Paths.get("src/main/resources/hl7/message/ADT_A01.yml"), template);
+        Properties prop = new Properties();
+        prop.put("base.path.resource", folder.getAbsolutePath());
+        prop.put("supported.hl7.messages", "ADT_A01");
+        prop.put("default.zoneid", "+08:00");
+        try (OutputStream out = new FileOutputStream(new File(folder, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, folder.getAbsolutePath());
+        ConverterRegistry.reset();
+
+        HL7ToFHIRConverter converter = new HL7ToFHIRConverter();
+        assertThat(converter.convert(MESSAGE)).contains("\"resourceType\":\"Encounter\"");
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean reloaded = new AtomicBoolean();
+        AtomicInteger conversions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (ResourceWatcher watcher = ResourceWatcher.start(100)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                futures.add(executor.submit(() -> {
+                    while (running.get()) {
+                        String json = converter.convert(MESSAGE);
+                        // Every conversion completes, with the old or the new template
+                        assertThat(json).contains("\"resourceType\":\"Patient\"");
+                        if (!json.contains("\"resourceType\":\"Encounter\"")) {
+                            reloaded.set(true);
+                        }
+                        conversions.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            Files.write(template, PATIENT_ONLY_TEMPLATE.getBytes(StandardCharsets.UTF_8));
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+            while (!reloaded.get() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            // Conversions after the reload use the new template
+            int afterReload = conversions.get() + 10;
+            while (conversions.get() < afterReload && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            running.set(false);
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+
+            assertThat(reloaded.get()).isTrue();
+            assertThat(watcher.getReloadCount()).isPositive();
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+        assertThat(ConverterRegistry.getInstance()).isNotSameAs(registry);
+        assertThat(converter.convert(MESSAGE)).doesNotContain("\"resourceType\":\"Encounter\"");
+    }
+
+    @Test
+    void testBrokenTemplateKeepsCurrentRegistry() throws Exception {
+        Path template = folder.toPath().resolve("hl7/message/ADT_A01.yml");
+        Files.createDirectories(template.getParent());
+        Files.copy(Paths.get("src/main/resources/hl7/message/ADT_A01.yml"), template);
+        Properties prop = new Properties();
+        prop.put("base.path.resource", folder.getAbsolutePath());
+        prop.put("supported.hl7.messages", "ADT_A01");
+        try (OutputStream out = new FileOutputStream(new File(folder, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, folder.getAbsolutePath());
+        ConverterRegistry.reset();
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        registry.getMessageTemplates();
+
+        Files.write(template, "resources: [".getBytes(StandardCharsets.UTF_8));
+        try {
+            ConverterRegistry.reload();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // expected, the template cannot be parsed
+        }
+        assertThat(ConverterRegistry.getInstance()).isSameAs(registry);
+        assertThat(new HL7ToFHIRConverter().convert(MESSAGE)).contains("\"resourceType\":\"Patient\"");
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlExpression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import io.github.linuxforhealth.api.EvaluationResult;
+import io.github.linuxforhealth.core.exception.DataExtractionException;
+import io.github.linuxforhealth.core.expression.EmptyEvaluationResult;
+import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
+import io.github.linuxforhealth.hl7.data.Hl7RelatedGeneralUtils;
+
+class StaticMethodCallTest {
+    private static final JexlEngineUtil ENGINE = new JexlEngineUtil("GeneralUtils", Hl7RelatedGeneralUtils.class);
+    private static final JexlEngine INTERPRETER = new JexlBuilder().silent(false).debug(true).strict(true).create();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "GeneralUtils.noWhiteSpace(join)",
+            "GeneralUtils.concatenateWithChar(data, '  \\n')",
+            "GeneralUtils.concatenateWithChar( data , \"-,(\")",
+            "GeneralUtils.getEncounterStatus(vars1,vars2,vars3)",
+            "GeneralUtils.split(join, \" \", 1)",
+            "GeneralUtils.extractLow(empty1)"
+    })
+    void static_call_is_bound_and_matches_interpreter(String expression) {
+        Map<String, EvaluationResult> context = new HashMap<>();
+        context.put("join", EvaluationResultFactory.getEvaluationResult("a b c"));
+        context.put("data", EvaluationResultFactory.getEvaluationResult("line"));
+        context.put("vars1", EvaluationResultFactory.getEvaluationResult("F"));
+        context.put("vars2", new EmptyEvaluationResult());
+        context.put("vars3", new EmptyEvaluationResult());
+        context.put("empty1", new EmptyEvaluationResult());
+
+        JexlExpression compiled = ENGINE.compile(expression);
+        assertThat(compiled).isInstanceOf(StaticMethodCall.class);
+        assertThat(ENGINE.evaluate(compiled, context))
+                .isEqualTo(ENGINE.evaluate(INTERPRETER.createExpression(expression), context));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // Nested call
+            "GeneralUtils.noWhiteSpace(GeneralUtils.extractLow(join))",
+            // Varargs
+            "GeneralUtils.makeStringArray(first, middle)",
+            // Operators in the arguments
+            "GeneralUtils.noWhiteSpace(join + data)",
+            // Not a static method
+            "String.toString()",
+            // Overloaded
+            "String.valueOf(join)"
+    })
+    void other_expressions_are_interpreted(String expression) {
+        assertThat(ENGINE.compile(expression)).isNotInstanceOf(StaticMethodCall.class);
+    }
+
+    @Test
+    void generated_id_is_bound() {
+        JexlExpression compiled = ENGINE.compile("GeneralUtils.generateResourceId()");
+        assertThat(compiled).isInstanceOf(StaticMethodCall.class);
+        assertThat((String) ENGINE.evaluate(compiled, new HashMap<>())).isNotBlank();
+    }
+
+    @Test
+    void missing_variable_fails_as_interpreter() {
+        JexlExpression compiled = ENGINE.compile("GeneralUtils.noWhiteSpace(missing)");
+        assertThat(compiled).isInstanceOf(StaticMethodCall.class);
+        Map<String, EvaluationResult> context = new HashMap<>();
+        DataExtractionException e = assertThrows(DataExtractionException.class,
+                () -> ENGINE.evaluate(compiled, context));
+        // Only the cause has a stack trace
+        assertThat(e.getStackTrace()).isEmpty();
+        assertThat(e.getCause()).isNotNull();
+    }
+
+    @Test
+    void argument_of_other_type_is_passed_to_interpreter() {
+        JexlExpression compiled = ENGINE.compile("GeneralUtils.split(join, \" \", index)");
+        assertThat(compiled).isInstanceOf(StaticMethodCall.class);
+        Map<String, EvaluationResult> context = new HashMap<>();
+        context.put("join", EvaluationResultFactory.getEvaluationResult("a b c"));
+        // long is not an int, the interpreter decides how the call is made
+        context.put("index", EvaluationResultFactory.getEvaluationResult(1L));
+        Object interpreted;
+        try {
+            interpreted = ENGINE.evaluate(INTERPRETER.createExpression("GeneralUtils.split(join, \" \", index)"),
+                    context);
+        } catch (DataExtractionException e) {
+            assertThrows(DataExtractionException.class, () -> ENGINE.evaluate(compiled, context));
+            return;
+        }
+        assertThat(ENGINE.evaluate(compiled, context)).isEqualTo(interpreted);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.github.linuxforhealth.api.EvaluationResult;
+
+class ScopedContextMapTest {
+
+    @Test
+    void testScopeShadowsEnclosingValues() {
+        Map<String, EvaluationResult> root = new HashMap<>();
+        root.put("a", EvaluationResultFactory.getEvaluationResult("root-a"));
+        root.put("b", EvaluationResultFactory.getEvaluationResult("root-b"));
+
+        ScopedContextMap child = ScopedContextMap.scope(root);
+        child.put("b", EvaluationResultFactory.getEvaluationResult("child-b"));
+        child.put("c", EvaluationResultFactory.getEvaluationResult("child-c"));
+        ScopedContextMap grandChild = ScopedContextMap.scope(child);
+        grandChild.put("d", new EmptyEvaluationResult());
+
+        assertThat((String) grandChild.get("a").getValue()).isEqualTo("root-a");
+        assertThat((String) grandChild.get("b").getValue()).isEqualTo("child-b");
+        assertThat((String) grandChild.get("c").getValue()).isEqualTo("child-c");
+        assertThat(grandChild.get("d").isEmpty()).isTrue();
+        assertThat(grandChild.get("e")).isNull();
+        assertThat(grandChild.containsKey("a")).isTrue();
+        assertThat(grandChild.containsKey("e")).isFalse();
+
+        // Flattened view for iteration
+        assertThat(grandChild).hasSize(4).containsOnlyKeys("a", "b", "c", "d");
+        assertThat((String) grandChild.entrySet().stream().filter(e -> e.getKey().equals("b")).findFirst().get()
+                .getValue().getValue()).isEqualTo("child-b");
+
+        // The enclosing scopes are not changed
+        assertThat(child).hasSize(3).doesNotContainKey("d");
+        assertThat((String) root.get("b").getValue()).isEqualTo("root-b");
+    }
+
+    @Test
+    void testEnclosingScopeIsFrozen() {
+        ScopedContextMap child = ScopedContextMap.scope(ImmutableMap.of());
+        child.put("a", EvaluationResultFactory.getEvaluationResult("a"));
+        ScopedContextMap.scope(child);
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> child.put("b", EvaluationResultFactory.getEvaluationResult("b")));
+
+        ScopedContextMap other = ScopedContextMap.scope(ImmutableMap.of());
+        assertThat(ScopedContextMap.freeze(other)).isSameAs(other);
+        assertThrows(UnsupportedOperationException.class,
+                () -> other.put("b", EvaluationResultFactory.getEvaluationResult("b")));
+    }
+
+    @Test
+    void testEmptyScopesAreSkipped() {
+        Map<String, EvaluationResult> root = new HashMap<>();
+        root.put("a", EvaluationResultFactory.getEvaluationResult("a"));
+        ScopedContextMap empty = ScopedContextMap.scope(ScopedContextMap.scope(root));
+        ScopedContextMap child = ScopedContextMap.scope(empty);
+
+        assertThat(child.isEmpty()).isFalse();
+        assertThat((String) child.get("a").getValue()).isEqualTo("a");
+        assertThat(ScopedContextMap.scope(new HashMap<>()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void testFreezeCopiesPlainMaps() {
+        Map<String, EvaluationResult> plain = new HashMap<>();
+        plain.put("a", EvaluationResultFactory.getEvaluationResult("a"));
+        Map<String, EvaluationResult> frozen = ScopedContextMap.freeze(plain);
+        plain.put("b", EvaluationResultFactory.getEvaluationResult("b"));
+
+        assertThat(frozen).isInstanceOf(ImmutableMap.class).containsOnlyKeys("a");
+        assertThat(ScopedContextMap.freeze(frozen)).isSameAs(frozen);
+    }
+
+}
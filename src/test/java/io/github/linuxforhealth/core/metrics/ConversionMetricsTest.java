@@ -0,0 +1,109 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import io.github.linuxforhealth.hl7.ConverterOptions;
+import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
+
+class ConversionMetricsTest {
+
+    @Test
+    void testPhaseTimingsAndResourceCounts() throws IOException {
+        List<ConversionMetrics> received = new ArrayList<>();
+        ConverterOptions options = new ConverterOptions.Builder().withMetricsListener(received::add).build();
+
+        String json = new HL7ToFHIRConverter().convert(readMessage("ADT_A01"), options);
+
+        assertThat(received).hasSize(1);
+        ConversionMetrics metrics = received.get(0);
+        assertThat(metrics.isSuccess()).isTrue();
+        assertThat(metrics.getMessageType()).isEqualTo("ADT_A01");
+        assertThat(metrics.getResourceCount()).isPositive();
+        assertThat(metrics.getResourceCounts()).containsKeys("Patient", "Encounter");
+        assertThat(metrics.getResourceCounts().values().stream().mapToInt(Integer::intValue).sum())
+                .isEqualTo(metrics.getResourceCount());
+        assertThat(json).contains("\"resourceType\":\"Patient\"");
+
+        for (ConversionPhase phase : new ConversionPhase[] { ConversionPhase.PARSE, ConversionPhase.LOG_STRUCTURE,
+                ConversionPhase.SEGMENT_EXTRACTION, ConversionPhase.EXPRESSION_EVALUATION,
+                ConversionPhase.RESOURCE_BINDING, ConversionPhase.ENCODING }) {
+            assertThat(metrics.getPhaseNanos(phase)).as(phase.name()).isPositive();
+        }
+        // Validation is off
+        assertThat(metrics.getPhaseNanos(ConversionPhase.VALIDATION)).isLessThan(metrics.getTotalNanos() / 10);
+        long phases = metrics.getPhaseNanos().values().stream().mapToLong(Long::longValue).sum();
+        assertThat(phases).isLessThanOrEqualTo(metrics.getTotalNanos());
+    }
+
+    @Test
+    void testFailedMessagesAreReported() throws IOException {
+        List<ConversionMetrics> received = new ArrayList<>();
+        ConverterOptions options = new ConverterOptions.Builder().withMetricsListener(received::add).build();
+        HL7ToFHIRConverter ftv = new HL7ToFHIRConverter();
+
+        // ADT_A02 is not in the supported messages of the default configuration
+        String unsupported = readMessage("ADT_A02");
+        assertThrows(UnsupportedOperationException.class, () -> ftv.convert(unsupported, options));
+        String stream = readMessage("ORU_R01") + "\r" + unsupported;
+        long count = ftv.convertAll(new ByteArrayInputStream(stream.getBytes(StandardCharsets.UTF_8)), options,
+                r -> {
+                });
+
+        assertThat(count).isEqualTo(2);
+        assertThat(received).hasSize(3);
+        assertThat(received.get(0).isSuccess()).isFalse();
+        assertThat(received.get(0).getMessageType()).isEqualTo("ADT_A02");
+        assertThat(received.get(0).getResourceCount()).isZero();
+        assertThat(received.get(1).isSuccess()).isTrue();
+        assertThat(received.get(1).getMessageType()).isEqualTo("ORU_R01");
+        assertThat(received.get(2).isSuccess()).isFalse();
+    }
+
+    @Test
+    void testListenerFailureDoesNotFailConversion() throws IOException {
+        ConverterOptions options = new ConverterOptions.Builder().withMetricsListener(m -> {
+            throw new IllegalStateException("listener failure");
+        }).build();
+
+        assertThat(new HL7ToFHIRConverter().convert(readMessage("ADT_A01"), options)).isNotBlank();
+    }
+
+    @Test
+    void testNoOpListenerRecordsNothing() {
+        ConversionMetrics metrics = ConversionMetrics.start(ConverterOptions.SIMPLE_OPTIONS.getMetricsListener());
+        assertThat(metrics).isSameAs(ConversionMetrics.DISABLED);
+        assertThat(metrics.isEnabled()).isFalse();
+
+        long start = metrics.startPhase();
+        metrics.stopPhase(ConversionPhase.PARSE, start);
+        metrics.recordFailure();
+        metrics.recordLookupMisses(3);
+        metrics.finish(null, true);
+        assertThat(start).isZero();
+        assertThat(metrics.getPhaseNanos(ConversionPhase.PARSE)).isZero();
+        assertThat(metrics.getFailureCount()).isZero();
+        assertThat(metrics.getLookupMissCount()).isZero();
+    }
+
+    private static String readMessage(String message) throws IOException {
+        return FileUtils.readFileToString(new File("src/test/resources/messages/" + message + ".hl7"),
+                StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.terminology;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableMap;
+
+class CompiledConceptMapTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void compiled_yaml_concept_map_is_looked_up() throws IOException {
+        Path compiled = folder.resolve("conceptmap.bin");
+        try (InputStream yaml = Files.newInputStream(Paths.get("src/test/resources/additional_conceptmap.yml"))) {
+            CompiledConceptMap.compile(yaml, compiled);
+        }
+
+        assertThat(CompiledConceptMap.isCompiled(compiled)).isTrue();
+        assertThat(CompiledConceptMap.isCompiled(Paths.get("src/test/resources/additional_conceptmap.yml")))
+                .isFalse();
+        CompiledConceptMap conceptMap = CompiledConceptMap.open(compiled);
+        CodingSystem loinc = conceptMap.get("LN");
+        assertThat(loinc.getUrl()).isEqualTo("http://loinc-additional.org");
+        assertThat(loinc.getDescription()).isEqualTo("Logical Observation Identifier Names and Codes (LOINC)");
+        assertThat(loinc.getOid()).isEqualTo("urn:oid:2.16.840.1.113883.6.1");
+        assertThat(conceptMap.get("NOT-A-SYSTEM")).isNull();
+    }
+
+    @Test
+    void every_coding_system_is_found() throws IOException {
+        List<CodingSystem> systems = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            systems.add(new CodingSystem("sys-" + i, null, "http://example.org/" + i, null));
+        }
+        // Ids beyond ASCII are ordered by their bytes
+        systems.add(new CodingSystem("SYS-\u00C9", "accent", "http://example.org/accent", null));
+        Path compiled = folder.resolve("large.bin");
+        CompiledConceptMap.write(systems, compiled);
+
+        CompiledConceptMap conceptMap = CompiledConceptMap.open(compiled);
+        assertThat(conceptMap.size()).isEqualTo(1001);
+        for (CodingSystem system : systems) {
+            assertThat(conceptMap.get(system.getId()).getUrl()).isEqualTo(system.getUrl());
+        }
+        assertThat(conceptMap.get("SYS-1000")).isNull();
+        assertThat(conceptMap.get("")).isNull();
+    }
+
+    @Test
+    void compiled_coding_systems_override_defaults() throws IOException {
+        Path compiled = folder.resolve("overlay.bin");
+        CompiledConceptMap.write(Arrays.asList(new CodingSystem("LN", null, "http://loinc-additional.org", null)),
+                compiled);
+        Map<String, CodingSystem> urls = CompiledConceptMap.open(compiled).overlay(ImmutableMap.of(
+                "LN", new CodingSystem("LN", null, "http://loinc.org", null),
+                "SCT", new CodingSystem("SCT", null, "http://snomed.info/sct", null)));
+
+        assertThat(urls.get("LN").getUrl()).isEqualTo("http://loinc-additional.org");
+        assertThat(urls.get("SCT").getUrl()).isEqualTo("http://snomed.info/sct");
+        assertThat(urls.get("OTHER")).isNull();
+        assertThat(urls.keySet()).containsExactlyInAnyOrder("LN", "SCT");
+        assertThrows(UnsupportedOperationException.class, () -> urls.clear());
+    }
+
+    @Test
+    void mapping_is_shared_until_the_file_is_replaced() throws IOException {
+        Path compiled = folder.resolve("replaced.bin");
+        CompiledConceptMap.write(Arrays.asList(new CodingSystem("LN", null, "http://loinc.org", null)), compiled);
+        CompiledConceptMap first = CompiledConceptMap.open(compiled);
+        assertThat(CompiledConceptMap.open(compiled)).isSameAs(first);
+
+        // A new file moved over the mapped one, as when the concept map is updated for a reload
+        Path replacement = folder.resolve("replacement.bin");
+        CompiledConceptMap.write(Arrays.asList(new CodingSystem("LN", null, "http://loinc-additional.org", null),
+                new CodingSystem("SCT", null, "http://snomed.info/sct", null)), replacement);
+        Files.move(replacement, compiled, StandardCopyOption.REPLACE_EXISTING);
+
+        CompiledConceptMap second = CompiledConceptMap.open(compiled);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.size()).isEqualTo(2);
+        assertThat(second.get("LN").getUrl()).isEqualTo("http://loinc-additional.org");
+        assertThat(CompiledConceptMap.open(compiled)).isSameAs(second);
+        // The replaced mapping stays readable for the registries that still use it
+        assertThat(first.get("LN").getUrl()).isEqualTo("http://loinc.org");
+    }
+
+    @Test
+    void duplicate_id_is_rejected() {
+        List<CodingSystem> systems = Arrays.asList(new CodingSystem("LN", null, "http://loinc.org", null),
+                new CodingSystem("ln", null, "http://loinc-additional.org", null));
+        Path compiled = folder.resolve("duplicate.bin");
+        assertThrows(IllegalArgumentException.class, () -> CompiledConceptMap.write(systems, compiled));
+    }
+
+}
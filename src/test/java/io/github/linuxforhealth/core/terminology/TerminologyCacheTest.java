@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.core.terminology;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.linuxforhealth.core.config.ConverterConfiguration;
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+
+class TerminologyCacheTest {
+    private static final String SYSTEM = "http://terminology.hl7.org/CodeSystem/v2-0001";
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private Supplier<SimpleCode> lookup(String code, String display) {
+        return () -> {
+            lookups.incrementAndGet();
+            return new SimpleCode(code, SYSTEM, display);
+        };
+    }
+
+    @Test
+    void repeated_code_is_looked_up_once() {
+        TerminologyCache cache = new TerminologyCache(10, 0);
+        SimpleCode first = cache.get(SYSTEM, "F", lookup("F", "Female"));
+        SimpleCode second = cache.get(SYSTEM, "F", lookup("F", "Female"));
+
+        assertThat(lookups).hasValue(1);
+        assertThat(second.getDisplay()).isEqualTo("Female");
+        assertThat(second).isNotSameAs(first);
+        TerminologyCacheStats stats = cache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void unknown_code_is_cached() {
+        TerminologyCache cache = new TerminologyCache(10, 0);
+        cache.get(SYSTEM, "X", lookup("X", null));
+        SimpleCode unknown = cache.get(SYSTEM, "X", lookup("X", null));
+
+        assertThat(lookups).hasValue(1);
+        assertThat(unknown.getCode()).isEqualTo("X");
+        assertThat(unknown.getDisplay()).isNull();
+    }
+
+    @Test
+    void change_of_returned_code_does_not_change_cache() {
+        TerminologyCache cache = new TerminologyCache(10, 0);
+        cache.get(SYSTEM, "F", lookup("F", "Female")).setVersion("2.9");
+
+        assertThat(cache.get(SYSTEM, "F", lookup("F", "Female")).getVersion()).isNull();
+    }
+
+    @Test
+    void least_recently_used_code_is_evicted() {
+        TerminologyCache cache = new TerminologyCache(1, 0);
+        cache.get(SYSTEM, "F", lookup("F", "Female"));
+        cache.get(SYSTEM, "M", lookup("M", "Male"));
+        cache.get(SYSTEM, "F", lookup("F", "Female"));
+
+        assertThat(lookups).hasValue(3);
+        assertThat(cache.getStats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void size_zero_switches_cache_off() {
+        TerminologyCache cache = new TerminologyCache(0, 0);
+        cache.get(SYSTEM, "F", lookup("F", "Female"));
+        cache.get(SYSTEM, "F", lookup("F", "Female"));
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(lookups).hasValue(2);
+        assertThat(cache.getStats().getHitCount()).isZero();
+    }
+
+    @Test
+    void lookups_are_cached_until_the_registry_is_reloaded() {
+        ConverterConfiguration.reset();
+        TerminologyLookup.lookup("v2-0396", "ICD10GM2012");
+        TerminologyLookup.lookup("V2-0396", "ICD10GM2012");
+        assertThat(TerminologyLookup.getCacheStats().getHitCount()).isEqualTo(1);
+
+        ConverterRegistry.reset();
+        assertThat(TerminologyLookup.getCacheStats().getHitCount()).isZero();
+        SimpleCode code = TerminologyLookup.lookup("v2-0396", "ICD10GM2012");
+        assertThat(code.getDisplay()).isEqualTo("ICD 10 Germany v2012");
+        assertThat(TerminologyLookup.getCacheStats().getMissCount()).isEqualTo(1);
+    }
+
+}
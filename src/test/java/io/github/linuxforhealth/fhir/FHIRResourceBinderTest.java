@@ -0,0 +1,162 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import io.github.linuxforhealth.core.config.ConverterConfiguration;
+import io.github.linuxforhealth.hl7.ConverterOptions;
+import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
+import io.github.linuxforhealth.hl7.message.HL7MessageEngine;
+import io.github.linuxforhealth.hl7.resource.ResourceReader;
+
+// Verifies that binding the evaluated resource maps directly to the FHIR model produces the same
+// resources as serializing them to JSON and parsing the JSON, for every message template.
+class FHIRResourceBinderTest {
+
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+    private static final String ALL_TEMPLATES = "ADT_A01, ADT_A02, ADT_A03, ADT_A04, ADT_A08, ADT_A28, ADT_A31, ADT_A34, ADT_A40, DFT_P03, MDM_T02, MDM_T04, MDM_T06, MDM_T08, MDM_T10, OML_O21, OMP_O09, ORM_O01, ORU_R01, PPR_PC1, PPR_PC2, PPR_PC3, RDE_O11, RDE_O25, VXU_V04";
+
+    @TempDir
+    static File folder;
+
+    static String originalConfigHome;
+
+    @BeforeAll
+    static void enableAllMessageTemplates() throws IOException {
+        originalConfigHome = System.getProperty(CONF_PROP_HOME);
+        File configFile = new File(folder, "config.properties");
+        Properties prop = new Properties();
+        prop.put("supported.hl7.messages", ALL_TEMPLATES);
+        prop.put("default.zoneid", "+08:00");
+        prop.store(new FileOutputStream(configFile), null);
+        System.setProperty(CONF_PROP_HOME, configFile.getParent());
+        ConverterConfiguration.reset();
+        ResourceReader.reset();
+    }
+
+    @AfterAll
+    static void reloadPreviousConfigurations() {
+        if (originalConfigHome != null)
+            System.setProperty(CONF_PROP_HOME, originalConfigHome);
+        else
+            System.clearProperty(CONF_PROP_HOME);
+        ConverterConfiguration.reset();
+        ResourceReader.reset();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "ADT_A01", "ADT_A02", "ADT_A03", "ADT_A04", "ADT_A08", "ADT_A28", "ADT_A31",
+            "ADT_A34", "ADT_A40", "DFT_P03", "MDM_T02", "MDM_T04", "MDM_T06", "MDM_T08", "MDM_T10", "OML_O21",
+            "OMP_O09", "ORM_O01", "ORU_R01", "PPR_PC1", "PPR_PC2", "PPR_PC3", "RDE_O11", "RDE_O25", "VXU_V04" })
+    void testDirectBindingMatchesJsonParsing(String template) throws IOException {
+        String hl7message = FileUtils.readFileToString(new File("src/test/resources/messages/" + template + ".hl7"),
+                StandardCharsets.UTF_8);
+        ComparingFHIRContext context = new ComparingFHIRContext();
+
+        Bundle bundle = new HL7ToFHIRConverter().convertToBundle(hl7message, ConverterOptions.SIMPLE_OPTIONS,
+                new HL7MessageEngine(context));
+
+        assertThat(bundle).isNotNull();
+        assertThat(bundle.getEntry()).isNotEmpty();
+        assertThat(context.boundCount).isGreaterThanOrEqualTo(bundle.getEntry().size());
+        assertThat(context.mismatches).isEmpty();
+    }
+
+    @Test
+    void testDecimalValuesAreBoundWithoutBinaryFloatingPointNoise() {
+        Map<String, Object> quantity = new HashMap<>();
+        quantity.put("value", 0.1f);
+        Map<String, Object> values = new HashMap<>();
+        values.put("resourceType", "Observation");
+        values.put("status", "final");
+        values.put("valueQuantity", quantity);
+
+        FHIRContext context = new FHIRContext();
+        Observation obs = context.bindResource(Observation.class, values);
+
+        assertThat(obs.getValueQuantity().getValueElement().getValueAsString()).isEqualTo("0.1");
+        assertThat(context.getParser().encodeResourceToString(obs))
+                .isEqualTo(context.getParser().encodeResourceToString(context.parseResource(Observation.class, values)));
+    }
+
+    @Test
+    void testUnserializableValuesFailOnBothPaths() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("resourceType", "Patient");
+        values.put("id", "p1");
+        values.put("unserializable", new Object());
+
+        FHIRContext context = new FHIRContext();
+        assertThrows(IllegalArgumentException.class, () -> context.bindResource(Patient.class, values));
+    }
+
+    @Test
+    void testClassThatCannotBeBoundDirectlyIsParsedFromJsonAfterwards() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("resourceType", "Patient");
+        values.put("id", "p1");
+        FailingFHIRContext context = new FailingFHIRContext();
+
+        assertThat(context.bindResource(Patient.class, values).getIdElement().getIdPart()).isEqualTo("p1");
+        assertThat(context.bindResource(Patient.class, values).getIdElement().getIdPart()).isEqualTo("p1");
+
+        assertThat(context.directAttempts).isEqualTo(1);
+    }
+
+    private static class FailingFHIRContext extends FHIRContext {
+        private int directAttempts;
+
+        @Override
+        <T extends Resource> T bindDirectly(Class<T> resourceClass, Map<String, Object> values) {
+            directAttempts++;
+            throw new DataFormatException("cannot bind");
+        }
+    }
+
+    private static class ComparingFHIRContext extends FHIRContext {
+        private int boundCount;
+        private final List<String> mismatches = new ArrayList<>();
+
+        @Override
+        public <T extends Resource> T bindResource(Class<T> resourceClass, Map<String, Object> values) {
+            T bound = FHIRResourceBinder.bind(getParser(), resourceClass, values);
+            T parsed = parseResource(resourceClass, values);
+            String boundJson = getParser().encodeResourceToString(bound);
+            String parsedJson = getParser().encodeResourceToString(parsed);
+            if (!boundJson.equals(parsedJson)) {
+                mismatches.add(resourceClass.getSimpleName() + "\n" + boundJson + "\n" + parsedJson);
+            }
+            boundCount++;
+            return bound;
+        }
+    }
+
+}
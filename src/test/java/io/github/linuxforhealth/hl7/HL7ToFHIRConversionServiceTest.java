@@ -0,0 +1,92 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import io.github.linuxforhealth.fhir.FHIRContext;
+
+class HL7ToFHIRConversionServiceTest {
+
+    private static final String[] MESSAGES = { "ADT_A01", "ORU_R01", "VXU_V04", "MDM_T02", "RDE_O11", "PPR_PC1" };
+
+    @Test
+    void testConcurrentConversionMatchesSequentialConversion() throws Exception {
+        HL7ToFHIRConverter ftv = new HL7ToFHIRConverter();
+        List<String> hl7messages = new ArrayList<>();
+        for (String message : MESSAGES) {
+            hl7messages.add(readMessage(message));
+        }
+
+        try (HL7ToFHIRConversionService service = new HL7ToFHIRConversionService(4)) {
+            assertThat(service.getPoolSize()).isEqualTo(4);
+            List<CompletableFuture<Bundle>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                for (String hl7message : hl7messages) {
+                    futures.add(service.submitToBundle(hl7message, ConverterOptions.SIMPLE_OPTIONS));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+            for (int i = 0; i < futures.size(); i++) {
+                Bundle expected = ftv.convertToBundle(hl7messages.get(i % hl7messages.size()),
+                        ConverterOptions.SIMPLE_OPTIONS, null);
+                assertThat(resourceTypes(futures.get(i).get())).isEqualTo(resourceTypes(expected));
+            }
+        }
+    }
+
+    @Test
+    void testSubmitReturnsJsonWithOptions() throws Exception {
+        ConverterOptions options = new ConverterOptions.Builder().withPrettyPrint().build();
+        try (HL7ToFHIRConversionService service = new HL7ToFHIRConversionService(2)) {
+            String json = service.submit(readMessage("ADT_A01"), options).get();
+
+            assertThat(json).contains("\n");
+            Bundle b = (Bundle) new FHIRContext().getParser().parseResource(json);
+            assertThat(b.getEntry()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void testFailedConversionCompletesExceptionally() throws Exception {
+        try (HL7ToFHIRConversionService service = new HL7ToFHIRConversionService(2)) {
+            // ADT_A02 is not in the supported messages of the default configuration
+            CompletableFuture<String> unsupported = service.submit(readMessage("ADT_A02"),
+                    ConverterOptions.SIMPLE_OPTIONS);
+            ExecutionException e = assertThrows(ExecutionException.class, unsupported::get);
+            assertThat(e.getCause()).isInstanceOf(UnsupportedOperationException.class);
+
+            // The worker is returned to the pool after a failure
+            assertThat(service.submit(readMessage("ADT_A01"), ConverterOptions.SIMPLE_OPTIONS).get()).isNotBlank();
+        }
+    }
+
+    private static String readMessage(String message) throws IOException {
+        return FileUtils.readFileToString(new File("src/test/resources/messages/" + message + ".hl7"),
+                StandardCharsets.UTF_8);
+    }
+
+    private static List<ResourceType> resourceTypes(Bundle bundle) {
+        return bundle.getEntry().stream().map(e -> e.getResource().getResourceType()).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Converts messages with one converter shared by several threads and compares the output with the
+ * output of the same conversions run sequentially.
+ */
+class HL7ToFHIRConverterConcurrencyTest {
+
+    private static final String[] MESSAGES = { "ADT_A01", "ADT_A03", "ORU_R01", "VXU_V04", "MDM_T02", "RDE_O11",
+            "PPR_PC1", "OMP_O09", "ORM_O01", "DFT_P03" };
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 5;
+
+    // Generated ids and timestamps differ between two conversions of the same message
+    private static final Pattern UUID = Pattern
+            .compile("(\\d+\\.)?[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Pattern TIMESTAMP = Pattern
+            .compile("(\"lastUpdated\"|process-timestamp\",\"valueDateTime\"):\"[^\"]*\"");
+
+    @Test
+    void testSharedConverterMatchesSequentialConversion() throws Exception {
+        HL7ToFHIRConverter ftv = new HL7ToFHIRConverter();
+        List<String> hl7messages = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (String message : MESSAGES) {
+            String hl7message = readMessage(message);
+            hl7messages.add(hl7message);
+            expected.add(normalize(ftv.convert(hl7message, ConverterOptions.SIMPLE_OPTIONS)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<String> actual = new ArrayList<>();
+                    // Every thread starts with a different message so that different templates overlap
+                    for (int i = 0; i < ROUNDS * hl7messages.size(); i++) {
+                        int index = (i + offset) % hl7messages.size();
+                        actual.add(index + ":"
+                                + normalize(ftv.convert(hl7messages.get(index), ConverterOptions.SIMPLE_OPTIONS)));
+                    }
+                    return actual;
+                }));
+            }
+            start.countDown();
+
+            for (int t = 0; t < THREADS; t++) {
+                List<String> actual = futures.get(t).get(5, TimeUnit.MINUTES);
+                for (int i = 0; i < actual.size(); i++) {
+                    int index = (i + t) % hl7messages.size();
+                    assertThat(actual.get(i)).as("thread %d message %s", t, MESSAGES[index])
+                            .isEqualTo(index + ":" + expected.get(index));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String normalize(String json) {
+        String normalized = UUID.matcher(json).replaceAll("<id>");
+        return TIMESTAMP.matcher(normalized).replaceAll("$1:\"<timestamp>\"");
+    }
+
+    private static String readMessage(String message) throws IOException {
+        return FileUtils.readFileToString(new File("src/test/resources/messages/" + message + ".hl7"),
+                StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import ca.uhn.fhir.parser.IParser;
+import io.github.linuxforhealth.hl7.ConverterOptions.Builder;
+import io.github.linuxforhealth.hl7.message.HL7MessageEngine;
+
+class MessageEngineCacheTest {
+
+    @Test
+    void testEqualOptionsShareEngine() {
+        MessageEngineCache cache = new MessageEngineCache();
+        ConverterOptions options = new Builder().withPrettyPrint().withZoneIdText("+08:00")
+                .withProperty("TENANT", "tenantid").build();
+        ConverterOptions equalOptions = new Builder().withPrettyPrint().withZoneIdText("+08:00")
+                .withProperty("TENANT", "tenantid").build();
+
+        HL7MessageEngine engine = cache.get(options);
+        assertThat(cache.get(options)).isSameAs(engine);
+        assertThat(cache.get(equalOptions)).isSameAs(engine);
+        assertThat(cache.size()).isEqualTo(1);
+
+        assertThat(engine.getFHIRContext().getZoneIdText()).isEqualTo("+08:00");
+        assertThat(engine.getFHIRContext().getProperties()).containsEntry("TENANT", "tenantid");
+    }
+
+    @Test
+    void testDifferentOptionsGetDifferentEngines() {
+        MessageEngineCache cache = new MessageEngineCache();
+        List<ConverterOptions> options = new ArrayList<>();
+        options.add(ConverterOptions.SIMPLE_OPTIONS);
+        options.add(new Builder().withBundleType(BundleType.TRANSACTION).build());
+        options.add(new Builder().withPrettyPrint().build());
+        options.add(new Builder().withValidateResource().build());
+        options.add(new Builder().withZoneIdText("+08:00").build());
+        options.add(new Builder().withProperty("TENANT", "tenantid").build());
+        options.add(new Builder().withProperty("TENANT", "othertenant").build());
+
+        Set<HL7MessageEngine> engines = new HashSet<>();
+        options.forEach(o -> engines.add(cache.get(o)));
+
+        assertThat(engines).hasSize(options.size());
+        assertThat(cache.size()).isEqualTo(options.size());
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        MessageEngineCache cache = new MessageEngineCache(2);
+        ConverterOptions first = new Builder().withProperty("TENANT", "first").build();
+        HL7MessageEngine firstEngine = cache.get(first);
+        cache.get(new Builder().withProperty("TENANT", "second").build());
+        cache.get(new Builder().withProperty("TENANT", "third").build());
+
+        assertThat(cache.size()).isEqualTo(2);
+        // The least recently used engine was evicted and is created again
+        assertThat(cache.get(first)).isNotSameAs(firstEngine);
+    }
+
+    @Test
+    void testEngineIsSharedAcrossThreadsWithoutSharingParsers() throws Exception {
+        MessageEngineCache cache = new MessageEngineCache();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Object[]>> tasks = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tasks.add(() -> {
+                    HL7MessageEngine engine = cache.get(new Builder().withPrettyPrint().build());
+                    IParser parser = engine.getFHIRContext().getParser();
+                    assertThat(parser.encodeResourceToString(new Patient())).contains("\n");
+                    return new Object[] { engine, parser };
+                });
+            }
+            Set<Object> engines = new HashSet<>();
+            Set<Object> parsers = new HashSet<>();
+            for (Future<Object[]> f : executor.invokeAll(tasks)) {
+                engines.add(f.get()[0]);
+                parsers.add(f.get()[1]);
+            }
+            assertThat(engines).hasSize(1);
+            // Every use gets its own parser, the engine keeps no per-thread parser
+            assertThat(parsers).hasSize(tasks.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.data.date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class DtmScannerTest {
+
+    private static final String[] YEARS = { "0000", "2020", "9999" };
+    private static final String[] MONTHS = { "00", "01", "02", "04", "12", "13" };
+    private static final String[] DAYS = { "00", "01", "28", "29", "30", "31", "32" };
+    private static final String[] HOURS = { "00", "09", "24", "25" };
+    private static final String[] MINUTES = { "00", "59", "60" };
+    private static final String[] SECONDS = { "00", "59", "60" };
+    private static final String[] FRACTIONS = { "", ".", ".0", ".1", ".05", ".340", ".3456", ".12345" };
+    private static final String[] OFFSETS = { "", "+0000", "-0000", "-0400", "+1800", "+1801", "+2400", "+0060",
+            "|0800", "+080" };
+    private static final String[] ZONES = { "America/Chicago", null };
+
+    /**
+     * Every precision of the DTM format with field values inside and outside of their range, each
+     * with and without offset.
+     */
+    private static List<String> values() {
+        List<String> dates = new ArrayList<>();
+        for (String year : YEARS) {
+            dates.add(year);
+            for (String month : MONTHS) {
+                dates.add(year + month);
+                for (String day : DAYS) {
+                    dates.add(year + month + day);
+                    for (String hour : HOURS) {
+                        dates.add(year + month + day + hour);
+                        for (String minute : MINUTES) {
+                            dates.add(year + month + day + hour + minute);
+                            for (String second : SECONDS) {
+                                dates.add(year + month + day + hour + minute + second);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        List<String> values = new ArrayList<>();
+        for (String date : dates) {
+            for (String offset : OFFSETS) {
+                values.add(date + offset);
+            }
+        }
+        for (String date : new String[] { "20210407191342", "20211231235959", "20210228240000", "2021040719" }) {
+            for (String fraction : FRACTIONS) {
+                for (String offset : OFFSETS) {
+                    values.add(date + fraction + offset);
+                }
+            }
+        }
+        return values;
+    }
+
+    @Test
+    void scanner_formats_date_time_as_formatter() {
+        List<String> differences = new ArrayList<>();
+        for (String value : values()) {
+            for (String zone : ZONES) {
+                String scanned = DateUtil.formatToDateTimeWithZone(value, zone);
+                String formatted = DateUtil.formatToDateTimeWithFormatter(value, zone);
+                if (!Objects.equals(scanned, formatted)) {
+                    differences.add(value + " in " + zone + ": " + scanned + " instead of " + formatted);
+                }
+            }
+        }
+        assertThat(differences).isEmpty();
+    }
+
+    @Test
+    void scanner_formats_date_as_formatter() {
+        List<String> differences = new ArrayList<>();
+        for (String value : values()) {
+            // The formatter fails with a NullPointerException on offsets of values with no day
+            if (DtmScanner.scan(value) == null) {
+                continue;
+            }
+            String scanned = DateUtil.formatToDate(value);
+            String formatted = DateUtil.formatToDateWithFormatter(value);
+            if (!Objects.equals(scanned, formatted)) {
+                differences.add(value + ": " + scanned + " instead of " + formatted);
+            }
+        }
+        assertThat(differences).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "2021", "202104", "20210407", "2021040719", "202104071913", "20210407191342",
+            "20210407191342.1", "20210407191342.1234", "2021040719+0800", "20210407191342.12-0530",
+            "20210431", "2021040724", "20210407+0800" })
+    void dtm_values_are_scanned(String value) {
+        assertThat(DtmScanner.scan(value)).isNotNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "202", "20210", "202104071", "2021040719131", "202104071913421",
+            "2021040719.12", "20210407191342.", "20210407191342.12345", "2021+0800", "202104+0800",
+            "20210407+080", "20210407|0800", "2021-04-07", " 20210407" })
+    void other_values_are_left_to_formatter(String value) {
+        assertThat(DtmScanner.scan(value)).isNull();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import io.github.linuxforhealth.hl7.ConverterOptions;
+import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
+
+class ExpressionProfilerTest {
+
+    @Test
+    void testProfilerRecordsNestedExpressions() throws IOException {
+        ExpressionProfiler profiler = new ExpressionProfiler();
+        ConverterOptions options = new ConverterOptions.Builder().withExpressionProfiler(profiler).build();
+        HL7ToFHIRConverter ftv = new HL7ToFHIRConverter();
+
+        ftv.convert(readMessage("ADT_A01"), options);
+        ftv.convert(readMessage("ORU_R01"), options);
+
+        List<ExpressionProfiler.Entry> entries = profiler.getEntries();
+        assertThat(entries).isNotEmpty();
+        Map<String, ExpressionProfiler.Entry> byPath = entries.stream()
+                .collect(Collectors.toMap(ExpressionProfiler.Entry::getPath, Function.identity()));
+        assertThat(byPath).containsKeys("Patient", "Observation");
+        assertThat(byPath.keySet()).anyMatch(p -> p.startsWith("Patient > "));
+
+        // Entries are sorted by self time and the total time includes the nested entries
+        for (int i = 0; i < entries.size(); i++) {
+            ExpressionProfiler.Entry e = entries.get(i);
+            assertThat(e.getCalls()).isPositive();
+            assertThat(e.getTotalNanos()).isGreaterThanOrEqualTo(e.getSelfNanos());
+            assertThat(e.getEmptyCount()).isBetween(0L, e.getCalls());
+            if (i > 0) {
+                assertThat(e.getSelfNanos()).isLessThanOrEqualTo(entries.get(i - 1).getSelfNanos());
+            }
+        }
+        ExpressionProfiler.Entry patient = byPath.get("Patient");
+        long nested = byPath.entrySet().stream()
+                .filter(e -> e.getKey().startsWith("Patient > ") && e.getKey().indexOf(" > ", 10) == -1)
+                .mapToLong(e -> e.getValue().getTotalNanos()).sum();
+        assertThat(patient.getTotalNanos()).isGreaterThanOrEqualTo(nested);
+
+        String report = profiler.report(5);
+        assertThat(report.split("\n")).hasSize(6);
+        assertThat(report).contains("self ms").contains(entries.get(0).getPath());
+
+        profiler.reset();
+        assertThat(profiler.getEntries()).isEmpty();
+    }
+
+    @Test
+    void testNothingRecordedWithoutProfiler() throws IOException {
+        ExpressionProfiler profiler = new ExpressionProfiler();
+        new HL7ToFHIRConverter().convert(readMessage("ADT_A01"), ConverterOptions.SIMPLE_OPTIONS);
+
+        assertThat(profiler.getEntries()).isEmpty();
+        assertThat(ExpressionProfiler.enter("Patient")).isNull();
+    }
+
+    private static String readMessage(String message) throws IOException {
+        return FileUtils.readFileToString(new File("src/test/resources/messages/" + message + ".hl7"),
+                StandardCharsets.UTF_8);
+    }
+
+}
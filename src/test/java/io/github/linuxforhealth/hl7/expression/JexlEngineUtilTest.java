@@ -7,16 +7,26 @@ package io.github.linuxforhealth.hl7.expression;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.jexl3.JexlExpression;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import com.google.common.collect.ImmutableMap;
+
+import io.github.linuxforhealth.api.EvaluationResult;
 import io.github.linuxforhealth.core.data.JexlEngineUtil;
+import io.github.linuxforhealth.core.expression.EvaluationResultFactory;
 
 class JexlEngineUtilTest {
 
@@ -64,4 +74,44 @@ class JexlEngineUtilTest {
         assertThat(b).isEqualTo(NumberUtils.createFloat("1.2"));
     }
 
+    @Test
+    void compiled_expression_is_reused_and_reads_evaluation_results() {
+        JexlEngineUtil engine = new JexlEngineUtil();
+        JexlExpression exp = engine.compile(" String.join(\" \", var1, var2) ");
+        assertThat(engine.compile("String.join(\" \", var1, var2)")).isSameAs(exp);
+
+        Map<String, EvaluationResult> context = new HashMap<>();
+        context.put("var1", EvaluationResultFactory.getEvaluationResult("s"));
+        context.put("var2", EvaluationResultFactory.getEvaluationResult("t"));
+        assertThat(engine.evaluate(exp, context)).isEqualTo("s t");
+    }
+
+    @Test
+    void expression_cannot_assign_variables() {
+        JexlEngineUtil engine = new JexlEngineUtil();
+        Map<String, EvaluationResult> context = new HashMap<>();
+        Assertions.assertThrows(RuntimeException.class,
+                () -> engine.evaluate(engine.compile("String.valueOf(var1 = 1)"), context));
+        assertThat(context).isEmpty();
+    }
+
+    @Test
+    void compiled_expression_is_evaluated_concurrently() throws Exception {
+        JexlEngineUtil engine = new JexlEngineUtil();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String value = "v" + i;
+                results.add(executor.submit(() -> engine.evaluate(engine.compile("String.valueOf(var1)"),
+                        ImmutableMap.of("var1", EvaluationResultFactory.getEvaluationResult(value)))));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get()).isEqualTo("v" + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
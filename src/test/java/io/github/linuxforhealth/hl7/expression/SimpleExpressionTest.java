@@ -86,4 +86,26 @@ class SimpleExpressionTest {
     assertThat(value).isNull();
   }
 
+  @Test
+  void test_type_resolved_ignoring_case() {
+    ExpressionAttributes attr =
+        new ExpressionAttributes.Builder().withValue("123").withType("integer").build();
+    SimpleExpression exp = new SimpleExpression(attr);
+
+    EvaluationResult value =
+        exp.evaluate(data, ImmutableMap.of(), new EmptyEvaluationResult());
+    assertThat((Integer) value.getValue()).isEqualTo(123);
+  }
+
+  @Test
+  void test_unknown_type_fails_evaluation_only() {
+    ExpressionAttributes attr =
+        new ExpressionAttributes.Builder().withValue(SOME_VALUE).withType("NOT_A_TYPE").build();
+    SimpleExpression exp = new SimpleExpression(attr);
+
+    EvaluationResult value =
+        exp.evaluate(data, ImmutableMap.of(), new EmptyEvaluationResult());
+    assertThat(value).isNull();
+  }
+
 }
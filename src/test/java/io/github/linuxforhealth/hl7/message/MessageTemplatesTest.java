@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.linuxforhealth.core.config.ConverterConfiguration.TemplateLoading;
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
+
+class MessageTemplatesTest {
+
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+
+    @TempDir
+    File folder;
+
+    @AfterEach
+    void reset() {
+        System.clearProperty(CONF_PROP_HOME);
+        ConverterRegistry.reset();
+    }
+
+    @Test
+    void testLazyTemplateIsLoadedOnceOnFirstUse() throws Exception {
+        configure("ADT_A01, ORU_R01, NOT_A_TEMPLATE", "lazy");
+        assertThat(ConverterRegistry.getInstance().getConfiguration().getTemplateLoading())
+                .isEqualTo(TemplateLoading.LAZY);
+
+        // The missing template is only noticed when a message of its type is converted
+        MessageTemplates templates = MessageTemplates.load(ConverterRegistry.getInstance(), TemplateLoading.LAZY);
+        assertThat(templates.size()).isEqualTo(3);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<HL7MessageModel>> loads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                loads.add(executor.submit(() -> templates.get("ADT_A01")));
+            }
+            HL7MessageModel template = loads.get(0).get();
+            assertThat(template.getMessageName()).isEqualTo("ADT_A01");
+            for (Future<HL7MessageModel> load : loads) {
+                assertThat(load.get()).isSameAs(template);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(templates.get("ADT_A02")).isNull();
+        assertThatThrownBy(() -> templates.get("NOT_A_TEMPLATE")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testParallelLoadingLoadsSameTemplatesAsEager() throws IOException {
+        configure("ADT_A01, ORU_R01, PPR_PC1, VXU_V04", "parallel");
+        ConverterRegistry registry = ConverterRegistry.getInstance();
+        MessageTemplates parallel = MessageTemplates.load(registry, TemplateLoading.PARALLEL);
+        MessageTemplates eager = MessageTemplates.load(registry, TemplateLoading.EAGER);
+
+        assertThat(parallel.size()).isEqualTo(4).isEqualTo(eager.size());
+        for (String messageType : new String[] { "ADT_A01", "ORU_R01", "PPR_PC1", "VXU_V04" }) {
+            assertThat(parallel.get(messageType).getMessageName()).isEqualTo(messageType);
+            assertThat(parallel.get(messageType).getResources())
+                    .hasSameSizeAs(eager.get(messageType).getResources());
+        }
+    }
+
+    @Test
+    void testLazyConverterConvertsMessage() throws IOException {
+        configure("ADT_A01", "lazy");
+        String message = "MSH|^~\\&|hl7Integration|hl7Integration|||||ADT^A01|||2.3|\r"
+                + "EVN|A01|20130617154644\r"
+                + "PID|1|465 306 5961||407623|Wood^Patrick^^^MR||19700101|female|||High Street^^Oxford^^Ox1 4DP~George St^^Oxford^^Ox1 5AP|||||||\r"
+                + "PV1|1|I|||||||||||||||||||||||||||||||||||||||||||||||||||";
+        String json = new HL7ToFHIRConverter().convert(message);
+        assertThat(json).contains("\"resourceType\":\"Patient\"");
+    }
+
+    private void configure(String supportedMessages, String templateLoading) throws IOException {
+        Properties prop = new Properties();
+        prop.put("supported.hl7.messages", supportedMessages);
+        prop.put("default.zoneid", "+08:00");
+        prop.put("template.loading", templateLoading);
+        try (OutputStream out = new FileOutputStream(new File(folder, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, folder.getAbsolutePath());
+        ConverterRegistry.reset();
+    }
+
+}
@@ -21,6 +21,7 @@ import ca.uhn.hl7v2.model.Segment;
 import ca.uhn.hl7v2.model.Structure;
 import ca.uhn.hl7v2.model.Type;
 import io.github.linuxforhealth.hl7.data.Hl7DataHandlerUtil;
+import io.github.linuxforhealth.hl7.message.util.SegmentExtractionMemo;
 import io.github.linuxforhealth.hl7.message.util.SegmentExtractorUtil;
 import io.github.linuxforhealth.hl7.message.util.SegmentGroup;
 import io.github.linuxforhealth.hl7.parsing.HL7DataExtractor;
@@ -187,6 +188,35 @@ class SegmentUtilTest {
 
     }
 
+    @Test
+    void test_templates_sharing_a_memo_get_the_same_groups() throws HL7Exception {
+        Message hl7message = getMessage(messageRepeatMultiplePRB);
+        HL7DataExtractor hl7DTE = new HL7DataExtractor(hl7message);
+        List<HL7Segment> additionalSegments = Lists.newArrayList(new HL7Segment(ORDER_GROUP_LIST, "NTE", true),
+                new HL7Segment("PID"));
+        List<SegmentGroup> expected = SegmentExtractorUtil.extractSegmentGroups(ORDER_GROUP_LIST, "OBX",
+                additionalSegments, hl7DTE, Lists.newArrayList("PROBLEM"));
+
+        SegmentExtractionMemo memo = new SegmentExtractionMemo();
+        List<SegmentGroup> first = SegmentExtractorUtil.extractSegmentGroups(ORDER_GROUP_LIST, "OBX",
+                additionalSegments, hl7DTE, Lists.newArrayList("PROBLEM"), memo);
+        List<SegmentGroup> second = SegmentExtractorUtil.extractSegmentGroups(ORDER_GROUP_LIST, "OBX",
+                additionalSegments, hl7DTE, Lists.newArrayList("PROBLEM"), memo);
+
+        assertThat(first).hasSize(expected.size());
+        assertThat(second).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (SegmentGroup actual : Lists.newArrayList(first.get(i), second.get(i))) {
+                assertThat(actual.getSegments()).isEqualTo(expected.get(i).getSegments());
+                assertThat(actual.getGroupId()).isEqualTo(expected.get(i).getGroupId());
+                assertThat(actual.getAdditionalSegments()).isEqualTo(expected.get(i).getAdditionalSegments());
+            }
+            // Each template can change its own lists
+            assertThat(second.get(i).getAdditionalSegments().get("PID"))
+                    .isNotSameAs(first.get(i).getAdditionalSegments().get("PID"));
+        }
+    }
+
     @Test
     void test_parent_repeat_additional_segment_under_group_with_group_name()
             throws HL7Exception {
@@ -13,6 +13,7 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 
 import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Group;
 import ca.uhn.hl7v2.model.Message;
 import ca.uhn.hl7v2.model.Primitive;
 import ca.uhn.hl7v2.model.Segment;
@@ -419,6 +420,82 @@ class HL7DataExtractorTest {
 
     }
 
+    @Test
+    void structures_of_groups_match_the_message() throws IOException, HL7Exception {
+        String message = "MSH|^~\\&|SE050|050|PACS|050|20120912011230||ORU^R01|102|T|2.6|||AL|NE|764|ASCII||||||^4086::132:2A57:3C28^IPv6\r"
+                + "PID|1||000010016^^^MR||Wood^Patrick\r"
+                + "OBR|1||CD_000000|2244^General Order|||20170725143000\r"
+                + "OBX|1|ST|1234^Glucose||99|mg/dL\r"
+                + "OBX\r"
+                + "OBR|2||CD_000001|2245^General Order|||20170725143000\r"
+                + "OBX|1|ST|1235^Sodium||140|mmol/L\r";
+
+        Message hl7message = getMessage(message);
+        HL7DataExtractor hl7DTE = new HL7DataExtractor(hl7message);
+
+        List<Structure> results = hl7DTE.getAllStructures("PATIENT_RESULT").getValues();
+        assertThat(results).containsExactly(hl7message.getAll("PATIENT_RESULT"));
+        List<Structure> orders = hl7DTE.getAllStructures(results.get(0), "ORDER_OBSERVATION").getValues();
+        assertThat(orders).hasSize(2);
+        List<Structure> observations = hl7DTE.getAllStructures(orders.get(0), "OBSERVATION").getValues();
+        // The observation with an empty OBX is left out
+        assertThat(observations).hasSize(1);
+        assertThat(hl7DTE.getAllStructures(observations.get(0), "OBX").getValue())
+                .isSameAs(((Group) observations.get(0)).get("OBX"));
+        assertThat(hl7DTE.getAllStructures("PATIENT_RESULT", 0, "ORDER_OBSERVATION").getValues())
+                .containsExactlyElementsOf(orders);
+        assertThat(hl7DTE.getStructure("PATIENT_RESULT", 0, "ORDER_OBSERVATION", 1).getValue())
+                .isSameAs(orders.get(1));
+        assertThat(hl7DTE.getStructure("PATIENT_RESULT", 0, "ORDER_OBSERVATION", 2).getValue()).isNull();
+        assertThat(hl7DTE.getStructure("PATIENT_RESULT", 1, "ORDER_OBSERVATION", 0).getValue()).isNull();
+        assertThat(hl7DTE.getAllStructures(orders.get(1), "NOT_A_GROUP").getValues()).isEmpty();
+    }
+
+    @Test
+    void lookups_of_missing_structures_do_not_add_them_to_the_message() throws IOException, HL7Exception {
+        String message = "MSH|^~\\&|SendTest1|Sendfac1|Receiveapp1|Receivefac1|200603081747|security|PPR^PC1^PPR_PC1|1|P^I|2.6||||||ASCII||\r"
+                + "PID|||555444222111^^^MPI&GenHosp&L^MR||james^anderson||19600614|M\r"
+                + "PRB|AD|200603150625|aortic stenosis|53692||2||200603150625\r";
+
+        Message hl7message = getMessage(message);
+        HL7DataExtractor hl7DTE = new HL7DataExtractor(hl7message);
+
+        assertThat(hl7DTE.getStructure("PROBLEM", 0, "NTE", 0).getValue()).isNull();
+        assertThat(hl7DTE.getAllStructures("PROBLEM", 0, "NTE").getValues()).isEmpty();
+        assertThat(hl7DTE.getStructure("PROBLEM", 1, "PRB", 0).getValue()).isNull();
+
+        assertThat(((Group) hl7message.get("PROBLEM")).getAll("NTE")).isEmpty();
+        assertThat(hl7message.getAll("PROBLEM")).hasSize(1);
+        assertThat(hl7DTE.getStructure("PROBLEM", 0, "PRB", 0).getValue().getName()).isEqualTo("PRB");
+    }
+
+    @Test
+    void lookups_the_message_structure_does_not_define_are_counted_as_misses() throws IOException {
+        String message = "MSH|^~\\&|hl7Integration|hl7Integration|||||ADT^A01|||2.3|\r"
+                + "PID|1|465 306 5961|000010016^^^MR~000010017^^^MR|407623|Wood^Patrick^^^MR||19700101|female\r";
+
+        Message hl7message = getMessage(message);
+        HL7DataExtractor hl7DTE = new HL7DataExtractor(hl7message);
+        Segment pid = (Segment) hl7DTE.getStructure("PID", 0).getValue();
+        Type cx = hl7DTE.getTypes(pid, 3).getValue();
+        assertThat(hl7DTE.get("PID", "3").getValue()).isEqualTo("000010016");
+        assertThat(hl7DTE.getComponent(cx, 1).getValue()).isNotNull();
+        // Defined but empty
+        assertThat(hl7DTE.getTypes(pid, 9).isEmpty()).isTrue();
+        assertThat(hl7DTE.get("NK1", "2").getValue()).isNull();
+        assertThat(hl7DTE.getMissCount()).isZero();
+
+        assertThat(hl7DTE.getTypes(pid, 99).isEmpty()).isTrue();
+        assertThat(hl7DTE.getComponent(cx, 99).isEmpty()).isTrue();
+        // ADT_A01 has no OBR
+        assertThat(hl7DTE.get("OBR", "4").getValue()).isNull();
+        assertThat(hl7DTE.get("PID", "99").getValue()).isNull();
+        assertThat(hl7DTE.getAllStructures("OBR").isEmpty()).isTrue();
+        assertThat(hl7DTE.getStructure("PV67", 0).isEmpty()).isTrue();
+        assertThat(hl7DTE.get("PID", "").getValue()).isNull();
+        assertThat(hl7DTE.getMissCount()).isEqualTo(7);
+    }
+
     private static Message getMessage(String message) throws IOException {
         HL7HapiParser hparser = null;
 
@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import ca.uhn.hl7v2.model.Message;
+
+class HL7HapiParserTest {
+
+    @Test
+    void testEachThreadReusesItsOwnParser() throws Exception {
+        HL7HapiParser parser = HL7HapiParser.forCurrentThread();
+        assertThat(HL7HapiParser.forCurrentThread()).isSameAs(parser);
+
+        HL7HapiParser otherThreadParser = CompletableFuture.supplyAsync(HL7HapiParser::forCurrentThread,
+                r -> new Thread(r).start()).get();
+        assertThat(otherThreadParser).isNotNull().isNotSameAs(parser);
+    }
+
+    @Test
+    void testThreadParserParsesMessages() throws Exception {
+        String hl7message = "MSH|^~\\&|SE050|050|PACS|050|20120912011230||ADT^A01|102|T|2.6|||AL|NE\r"
+                + "PID|||1234^^^^MR||DOE^JANE^|||F||||||||||||||||||||||";
+        Message message = HL7HapiParser.forCurrentThread().getParser().parse(hl7message);
+        assertThat(HL7DataExtractor.getMessageType(message)).isEqualTo("ADT_A01");
+        // The parser is not closed and parses the next message
+        assertThat(HL7HapiParser.forCurrentThread().getParser().parse(hl7message)).isNotNull();
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import io.github.linuxforhealth.core.config.ConverterRegistry;
+import io.github.linuxforhealth.hl7.HL7ToFHIRConverter;
+import io.github.linuxforhealth.hl7.resource.ResourceReader;
+
+class ReferencedSegmentFilterTest {
+
+    private static final String CONF_PROP_HOME = "hl7converter.config.home";
+    private static final String ALL_TEMPLATES = "ADT_A01, ADT_A02, ADT_A03, ADT_A04, ADT_A08, ADT_A28, ADT_A31, ADT_A34, ADT_A40, DFT_P03, MDM_T02, MDM_T04, MDM_T06, MDM_T08, MDM_T10, OML_O21, OMP_O09, ORM_O01, ORU_R01, PPR_PC1, PPR_PC2, PPR_PC3, RDE_O11, RDE_O25, VXU_V04";
+    private static final String MESSAGE = "MSH|^~\\&|hl7Integration|hl7Integration|||||ADT^A01|1234|P|2.3|\r"
+            + "EVN|A01|20130617154644\r"
+            + "PID|1|465 306 5961||407623|Wood^Patrick^^^MR||19700101|female|||High Street^^Oxford^^Ox1 4DP|||||||\r"
+            + "ZPD|1|custom^data|more\r"
+            + "PV1|1|I|||||||||||||||||||||||||||||||||||||||||||||||||||\r"
+            + "ROL|1|AD|AT|1234^Smith^John|||||||||\r";
+    // PD1 and EVN are not segments or additional segments of a resource in these templates, Patient
+    // reads PD1.4, Encounter EVN.2 and EVN.6 and MessageHeader EVN.4 by name
+    private static final String MDM_WITH_PD1 = "MSH|^~\\&|SE050|050|PACS|050|20210407191342||MDM^T02|MSGID000001|T|2.6\r"
+            + "EVN||20170825010500||O|||\r"
+            + "PID|1||000054321^^^MRN|||||||||||||M|CAT|||||N\r"
+            + "PD1|||Oxford Clinic^^1234|0100^ANDERSON^CARL\r"
+            + "PV1|1|I|||||||||||||||||||||||||||||||||||||||||||\r"
+            + "TXA|1|05^Operative Report|TX|20170825010500||||||||DOC01||PON001^IE|FON001^IE||AU\r"
+            + "OBX|1|TX|05^Operative Report||<HOSPITAL NAME>||||||P\r";
+    private static final String PPR_WITH_EVN = "MSH|^~\\&|SE050|050|PACS|050|20210407191342||PPR^PC1|MSGID000001|T|2.6\r"
+            + "EVN|PC1|20130617154644||O|||20130617154000\r"
+            + "PID|||555444222111^^^MPI&GenHosp&L^MR||james^anderson||19600614|M\r"
+            + "PD1|||Oxford Clinic^^1234|0100^ANDERSON^CARL\r"
+            + "PV1||I|6N^1234^A^GENHOS||||0100^ANDERSON^CARL\r"
+            + "PRB|AD|200603150625|aortic stenosis|53692||2||200603150625\r";
+
+    // Generated ids and timestamps differ between two conversions of the same message
+    private static final Pattern UUID = Pattern
+            .compile("(\\d+\\.)?[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Pattern TIMESTAMP = Pattern
+            .compile("(\"lastUpdated\"|process-timestamp\",\"valueDateTime\"):\"[^\"]*\"");
+
+    @TempDir
+    File folder;
+
+    @AfterEach
+    void reset() {
+        System.clearProperty(CONF_PROP_HOME);
+        ConverterRegistry.reset();
+    }
+
+    @Test
+    void testMessageTypeIsReadFromMsh() {
+        assertThat(ReferencedSegmentFilter.getMessageType(MESSAGE)).isEqualTo("ADT_A01");
+        assertThat(ReferencedSegmentFilter.getMessageType("MSH#^~\\&#a#b#####ORU^R01^ORU_R01#1\r"))
+                .isEqualTo("ORU_R01");
+        // MSH-9 missing or incomplete
+        assertThat(ReferencedSegmentFilter.getMessageType("MSH|^~\\&|a|b\rPID|ADT^A01")).isNull();
+        assertThat(ReferencedSegmentFilter.getMessageType("MSH|^~\\&|||||||ADT|")).isNull();
+        assertThat(ReferencedSegmentFilter.getMessageType("<HL7Message/>")).isNull();
+    }
+
+    @Test
+    void testUnreferencedSegmentsKeepOnlyTheirName() {
+        String filtered = ReferencedSegmentFilter.filter(MESSAGE, ImmutableSet.of("PID", "PV1"));
+
+        assertThat(filtered).isEqualTo("MSH|^~\\&|hl7Integration|hl7Integration|||||ADT^A01|1234|P|2.3|\r"
+                + "EVN\r"
+                + "PID|1|465 306 5961||407623|Wood^Patrick^^^MR||19700101|female|||High Street^^Oxford^^Ox1 4DP|||||||\r"
+                + "ZPD\r"
+                + "PV1|1|I|||||||||||||||||||||||||||||||||||||||||||||||||||\r"
+                + "ROL\r");
+    }
+
+    @Test
+    void testMessageWithOnlyReferencedSegmentsIsNotCopied() {
+        String message = "MSH|^~\\&|a|b|||||ADT^A01|1|P|2.6|\nPID|1||407623\n";
+
+        assertThat(ReferencedSegmentFilter.filter(message, ImmutableSet.of("PID"))).isSameAs(message);
+        assertThat(ReferencedSegmentFilter.filter(message, ImmutableSet.of())).isEqualTo(
+                "MSH|^~\\&|a|b|||||ADT^A01|1|P|2.6|\nPID\n");
+    }
+
+    @Test
+    void testConversionIsUnchangedWhenParsingReferencedSegmentsOnly() throws IOException {
+        List<String> hl7messages = new ArrayList<>();
+        hl7messages.add(MESSAGE);
+        // All the sample messages, one per supported message type
+        File[] samples = new File("src/test/resources/messages").listFiles((dir, name) -> name.endsWith(".hl7"));
+        Arrays.sort(samples);
+        assertThat(samples).isNotEmpty();
+        for (File sample : samples) {
+            hl7messages.add(FileUtils.readFileToString(sample, StandardCharsets.UTF_8));
+        }
+        List<String> expected = convertAll(hl7messages, false);
+
+        List<String> actual = convertAll(hl7messages, true);
+
+        assertThat(actual.get(0)).contains("\"resourceType\":\"Patient\"").contains("\"resourceType\":\"Encounter\"");
+        for (int i = 0; i < hl7messages.size(); i++) {
+            assertThat(actual.get(i)).as("message %d", i).isEqualTo(expected.get(i));
+        }
+    }
+
+    @Test
+    void testSegmentsReadByNameInResourceTemplatesAreReferenced() {
+        assertThat(ResourceReader.getInstance().getMessageTemplate("MDM_T02").getReferencedSegments())
+                .contains("PD1", "EVN");
+        assertThat(ResourceReader.getInstance().getMessageTemplate("PPR_PC1").getReferencedSegments())
+                .contains("PD1", "EVN");
+    }
+
+    @Test
+    void testConversionIsUnchangedForSegmentsReadByName() throws IOException {
+        List<String> hl7messages = ImmutableList.of(MDM_WITH_PD1, PPR_WITH_EVN);
+        List<String> expected = convertAll(hl7messages, false);
+
+        List<String> actual = convertAll(hl7messages, true);
+
+        for (int i = 0; i < hl7messages.size(); i++) {
+            assertThat(actual.get(i)).as("message %d", i).isEqualTo(expected.get(i));
+        }
+    }
+
+    private List<String> convertAll(List<String> hl7messages, boolean referencedSegmentsOnly) throws IOException {
+        Properties prop = new Properties();
+        prop.put("default.zoneid", "+08:00");
+        prop.put("supported.hl7.messages", ALL_TEMPLATES);
+        prop.put("parse.referenced.segments.only", String.valueOf(referencedSegmentsOnly));
+        try (OutputStream out = new FileOutputStream(new File(folder, "config.properties"))) {
+            prop.store(out, null);
+        }
+        System.setProperty(CONF_PROP_HOME, folder.getAbsolutePath());
+        ConverterRegistry.reset();
+        HL7ToFHIRConverter converter = new HL7ToFHIRConverter();
+        List<String> converted = new ArrayList<>();
+        for (String hl7message : hl7messages) {
+            converted.add(normalize(converter.convert(hl7message)));
+        }
+        return converted;
+    }
+
+    private static String normalize(String json) {
+        String normalized = UUID.matcher(json).replaceAll("<id>");
+        return TIMESTAMP.matcher(normalized).replaceAll("$1:\"<timestamp>\"");
+    }
+
+}
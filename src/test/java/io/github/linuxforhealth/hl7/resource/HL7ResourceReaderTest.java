@@ -6,6 +6,7 @@
 package io.github.linuxforhealth.hl7.resource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import java.io.IOException;
 import java.util.Map;
 import java.io.File;
@@ -18,6 +19,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import io.github.linuxforhealth.api.ResourceModel;
 import io.github.linuxforhealth.core.config.ConverterConfiguration;
 import io.github.linuxforhealth.hl7.message.HL7MessageModel;
 
@@ -121,4 +123,22 @@ class HL7ResourceReaderTest {
     }
   }
 
+  @Test
+  void testResourceModelIsBuiltOncePerRegistry() {
+    ResourceReader reader = ResourceReader.getInstance();
+    ResourceModel reference = reader.generateResourceModel("datatype/Reference");
+    assertThat(reader.generateResourceModel("datatype/Reference")).isSameAs(reference);
+    assertThat(reader.generateResourceModel("datatype/Identifier")).isNotSameAs(reference);
+
+    // A new registry builds its own models
+    ResourceReader.reset();
+    assertThat(ResourceReader.getInstance().generateResourceModel("datatype/Reference")).isNotSameAs(reference);
+  }
+
+  @Test
+  void testSharedResourceModelIsReadOnly() {
+    ResourceModel model = ResourceReader.getInstance().generateResourceModel("datatype/Identifier");
+    assertThatThrownBy(() -> model.getExpressions().clear()).isInstanceOf(UnsupportedOperationException.class);
+  }
+
 }
@@ -0,0 +1,45 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package io.github.linuxforhealth.hl7.message.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import io.github.linuxforhealth.core.terminology.CompiledConceptMap;
+
+/**
+ * Compiles a YAML additional concept map to the binary format of {@link CompiledConceptMap}:
+ * - first argument - YAML concept map, the format of additional.conceptmap.file
+ * - second argument - compiled concept map to write, overwritten if it exists
+ * 
+ * Set the compiled file as additional.conceptmap.file in config.properties.
+ * 
+ * This class uses a main() method; run as a Java application or with
+ * ./gradlew compileConceptMap -PconceptMap.input=concept-map.yaml -PconceptMap.output=concept-map.bin
+ */
+public class ConceptMapCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 || args[0].isEmpty() || args[1].isEmpty()) {
+            System.out.println("Usage: ConceptMapCompiler <concept map yaml> <compiled concept map>");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        if (!Files.exists(input)) {
+            System.out.println("Input file " + input + " not found");
+            return;
+        }
+        Path output = Paths.get(args[1]);
+        try (InputStream yaml = Files.newInputStream(input)) {
+            CompiledConceptMap.compile(yaml, output);
+        }
+        System.out.println("Compiled " + CompiledConceptMap.open(output).size() + " coding systems to " + output);
+    }
+
+}